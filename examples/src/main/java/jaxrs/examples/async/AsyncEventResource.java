@@ -40,11 +40,9 @@
 
 package jaxrs.examples.async;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -53,11 +51,19 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 /**
  * Asynchronous event-based request processing example.
+ * <p>
+ * Requests waiting for a message, or for room to store one, are kept suspended in queues and resumed by the request
+ * that makes them able to proceed, so that no thread is blocked on their behalf. Readers that disconnect are removed
+ * from the queue by a {@link ConnectionCallback}. A message handed to a reader keeps its room in the store until
+ * the reader has been resumed with it, so that the message can be stored again if the reader is gone meanwhile
+ * without exceeding the capacity.
+ * </p>
  *
  * @author Marek Potociar
  */
@@ -65,40 +71,113 @@ import javax.ws.rs.core.MediaType;
 @Produces(MediaType.TEXT_PLAIN)
 @Consumes(MediaType.TEXT_PLAIN)
 public class AsyncEventResource implements CompletionCallback {
-    private static final BlockingQueue<String> messages = new ArrayBlockingQueue<String>(5);
+    private static final int CAPACITY = 5;
+    private static final Object LOCK = new Object();
+    // guarded by LOCK
+    private static final Deque<String> messages = new ArrayDeque<String>(CAPACITY);
+    private static final Queue<AsyncResponse> readers = new ArrayDeque<AsyncResponse>();
+    private static final Queue<PendingMessage> writers = new ArrayDeque<PendingMessage>();
+    private static int reserved;
 
     @GET
     public void readMessage(@Suspended final AsyncResponse ar) {
         ar.register(AsyncEventResource.class);
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
-
-            @Override
-            public void run() {
-                try {
-                    ar.resume(messages.take());
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(AsyncEventResource.class.getName()).log(Level.SEVERE, null, ex);
-                    ar.cancel(); // close the open connection
-                }
+        ar.register((ConnectionCallback) disconnected -> {
+            synchronized (LOCK) {
+                readers.remove(disconnected);
             }
         });
+
+        final String message;
+        synchronized (LOCK) {
+            message = messages.poll();
+            if (message == null) {
+                readers.add(ar);
+                return;
+            }
+            reserved++;
+        }
+        handOver(ar, message, null);
     }
 
     @POST
     public void postMessage(final String message, @Suspended final AsyncResponse asyncResponse) {
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
+        final AsyncResponse reader;
+        synchronized (LOCK) {
+            reader = readers.poll();
+            if (reader == null) {
+                if (messages.size() + reserved >= CAPACITY) {
+                    writers.add(new PendingMessage(message, asyncResponse));
+                    return;
+                }
+                messages.add(message);
+            }
+        }
+        if (reader == null || handOver(reader, message, asyncResponse)) {
+            asyncResponse.resume("Message stored.");
+        }
+    }
 
-            @Override
-            public void run() {
-                try {
-                    messages.put(message);
-                    asyncResponse.resume("Message stored.");
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(AsyncEventResource.class.getName()).log(Level.SEVERE, null, ex);
-                    asyncResponse.resume(ex); // propagate info about the problem
+    /**
+     * Resume a reader with a message. If no reader is left to take it, the message is stored: in its reserved room
+     * if it was taken from the store, otherwise if there is room, or else its writer is queued.
+     *
+     * @param reader reader to resume.
+     * @param message message.
+     * @param writer suspended writer of a message that has no room reserved, {@code null} if it has one.
+     * @return {@code true} if the message was received or stored, {@code false} if its writer was queued.
+     */
+    private static boolean handOver(final AsyncResponse reader, final String message, final AsyncResponse writer) {
+        AsyncResponse next = reader;
+        // a reader that timed out or was cancelled meanwhile is skipped
+        while (!next.resume(message)) {
+            synchronized (LOCK) {
+                next = readers.poll();
+                if (next != null) {
+                    continue;
                 }
+                if (writer == null) {
+                    reserved--;
+                    messages.addFirst(message);
+                } else if (messages.size() + reserved < CAPACITY) {
+                    messages.add(message);
+                } else {
+                    writers.add(new PendingMessage(message, writer));
+                    return false;
+                }
+                return true;
             }
-        });
+        }
+        if (writer == null) {
+            releaseRoom();
+        }
+        return true;
+    }
+
+    /**
+     * Release the room reserved for a message received by a reader, to the next waiting writer if any.
+     */
+    private static void releaseRoom() {
+        final PendingMessage writer;
+        final AsyncResponse reader;
+        synchronized (LOCK) {
+            reserved--;
+            writer = writers.poll();
+            if (writer == null) {
+                return;
+            }
+            // readers may be waiting if the room was reserved when they came
+            reader = readers.poll();
+            if (reader != null) {
+                reserved++;
+            } else {
+                messages.add(writer.message);
+            }
+        }
+        if (reader != null) {
+            handOver(reader, writer.message, null);
+        }
+        writer.ar.resume("Message stored.");
     }
 
     @Override
@@ -109,4 +188,18 @@ public class AsyncEventResource implements CompletionCallback {
             System.out.println("Completed with an unmapped exception.");
         }
     }
+
+    /**
+     * Message waiting for room in the store.
+     */
+    private static final class PendingMessage {
+
+        private final String message;
+        private final AsyncResponse ar;
+
+        private PendingMessage(final String message, final AsyncResponse ar) {
+            this.message = message;
+            this.ar = ar;
+        }
+    }
 }
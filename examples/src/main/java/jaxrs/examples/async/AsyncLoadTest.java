@@ -0,0 +1,241 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.async;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+
+/**
+ * Load test suspending 10k concurrent requests in the asynchronous examples, showing that the number of threads
+ * and the heap used do not grow with the number of suspended requests.
+ * <p>
+ * Usage: {@code AsyncLoadTest [requests]}. The requests are suspended with in-memory {@link AsyncResponse}s, first
+ * in {@link LongRunningAsyncOperationResource}, whose operations complete after 10 seconds, then in
+ * {@link AsyncEventResource}, whose readers are resumed by as many posted messages. The number of live threads
+ * before the requests and at their peak, the heap used while they are suspended, and the time until all of them
+ * are resumed are printed.
+ */
+public final class AsyncLoadTest {
+
+    private AsyncLoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        final LongRunningAsyncOperationResource longRunning = new LongRunningAsyncOperationResource();
+        run("long-running operations", requests, longRunning::asyncExample, null);
+
+        final AsyncEventResource events = new AsyncEventResource();
+        run("message readers", requests, events::readMessage,
+                () -> {
+                    for (int i = 0; i < requests; i++) {
+                        events.postMessage("message " + i, new InMemoryAsyncResponse(null));
+                    }
+                });
+    }
+
+    private static void run(final String name,
+                            final int requests,
+                            final RequestHandler handler,
+                            final Runnable resumeAll) throws InterruptedException {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        final int threadsBefore = threads.getThreadCount();
+        final long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+
+        final CountDownLatch resumed = new CountDownLatch(requests);
+        final long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            handler.handle(new InMemoryAsyncResponse(resumed));
+        }
+        final long suspendedAt = System.nanoTime();
+        System.gc();
+        final long heapSuspended = memory.getHeapMemoryUsage().getUsed();
+        final int threadsSuspended = threads.getThreadCount();
+
+        if (resumeAll != null) {
+            resumeAll.run();
+        }
+        if (!resumed.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(resumed.getCount() + " request(s) of " + name + " not resumed.");
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("%s: %d requests suspended in %d ms, all resumed after %d ms%n", name, requests,
+                TimeUnit.NANOSECONDS.toMillis(suspendedAt - start), elapsed);
+        System.out.printf("  threads: %d before, %d while suspended, %d at peak%n", threadsBefore, threadsSuspended,
+                threads.getPeakThreadCount());
+        System.out.printf("  heap: %+d KB while suspended (%d bytes per request)%n",
+                (heapSuspended - heapBefore) / 1024, (heapSuspended - heapBefore) / requests);
+    }
+
+    private interface RequestHandler {
+
+        void handle(AsyncResponse ar);
+    }
+
+    /**
+     * Asynchronous response counting resumptions and notifying completion callbacks.
+     */
+    private static final class InMemoryAsyncResponse implements AsyncResponse {
+
+        private final CountDownLatch resumed;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final List<CompletionCallback> completionCallbacks = new ArrayList<>(2);
+
+        private InMemoryAsyncResponse(final CountDownLatch resumed) {
+            this.resumed = resumed;
+        }
+
+        @Override
+        public boolean resume(final Object response) {
+            return complete(null);
+        }
+
+        @Override
+        public boolean resume(final Throwable response) {
+            return complete(response);
+        }
+
+        @Override
+        public boolean cancel() {
+            return complete(null);
+        }
+
+        @Override
+        public boolean cancel(final int retryAfter) {
+            return complete(null);
+        }
+
+        @Override
+        public boolean cancel(final Date retryAfter) {
+            return complete(null);
+        }
+
+        @Override
+        public boolean isSuspended() {
+            return !done.get();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.get();
+        }
+
+        @Override
+        public boolean setTimeout(final long time, final TimeUnit unit) {
+            // the examples track their timeouts with AsyncTimeouts
+            return true;
+        }
+
+        @Override
+        public void setTimeoutHandler(final TimeoutHandler handler) {
+        }
+
+        @Override
+        public Collection<Class<?>> register(final Class<?> callback) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Class<?> callback, final Class<?>... callbacks) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public synchronized Collection<Class<?>> register(final Object callback) {
+            if (callback instanceof CompletionCallback) {
+                completionCallbacks.add((CompletionCallback) callback);
+                return Collections.singletonList(CompletionCallback.class);
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Object callback, final Object... callbacks) {
+            final Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+            registered.put(callback.getClass(), register(callback));
+            for (Object c : callbacks) {
+                registered.put(c.getClass(), register(c));
+            }
+            return registered;
+        }
+
+        private boolean complete(final Throwable failure) {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            final List<CompletionCallback> callbacks;
+            synchronized (this) {
+                callbacks = new ArrayList<>(completionCallbacks);
+            }
+            for (CompletionCallback callback : callbacks) {
+                callback.onComplete(failure);
+            }
+            if (resumed != null) {
+                resumed.countDown();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.async;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+
+import jaxrs.examples.timer.HashedWheelTimer;
+
+/**
+ * Timeouts of suspended requests tracked by a {@link HashedWheelTimer} shared by all requests.
+ * <p>
+ * Used instead of {@link AsyncResponse#setTimeout(long, TimeUnit)}, the timeout is scheduled in constant time
+ * and cancelled by a {@link CompletionCallback} as soon as the response has been sent, so that large numbers of
+ * suspended requests cost neither a timer thread nor a scheduled executor task each.
+ * </p>
+ */
+public final class AsyncTimeouts {
+
+    private AsyncTimeouts() {
+    }
+
+    /**
+     * Set the timeout of a suspended request using the {@link HashedWheelTimer#shared() shared timer}.
+     *
+     * @param ar      suspended response.
+     * @param time    suspend timeout.
+     * @param unit    unit of the suspend timeout.
+     * @param handler handler invoked on timeout; if {@code null}, the request is resumed with
+     *                {@code 503 Service Unavailable} as by default.
+     * @return handle of the timeout.
+     */
+    public static HashedWheelTimer.Timeout setTimeout(final AsyncResponse ar,
+                                                      final long time,
+                                                      final TimeUnit unit,
+                                                      final TimeoutHandler handler) {
+        return setTimeout(HashedWheelTimer.shared(), ar, time, unit, handler);
+    }
+
+    /**
+     * Set the timeout of a suspended request.
+     *
+     * @param timer   timer tracking the timeout.
+     * @param ar      suspended response.
+     * @param time    suspend timeout.
+     * @param unit    unit of the suspend timeout.
+     * @param handler handler invoked on timeout; if {@code null}, the request is resumed with
+     *                {@code 503 Service Unavailable} as by default.
+     * @return handle of the timeout.
+     */
+    public static HashedWheelTimer.Timeout setTimeout(final HashedWheelTimer timer,
+                                                      final AsyncResponse ar,
+                                                      final long time,
+                                                      final TimeUnit unit,
+                                                      final TimeoutHandler handler) {
+        final HashedWheelTimer.Timeout timeout = timer.schedule(() -> {
+            if (ar.isSuspended()) {
+                if (handler != null) {
+                    handler.handleTimeout(ar);
+                } else {
+                    ar.resume(new ServiceUnavailableException());
+                }
+            }
+        }, time, unit);
+        ar.register((CompletionCallback) throwable -> timeout.cancel());
+        return timeout;
+    }
+}
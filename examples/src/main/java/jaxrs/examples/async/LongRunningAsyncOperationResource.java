@@ -41,7 +41,9 @@
 package jaxrs.examples.async;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,11 +53,23 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
 import javax.ws.rs.container.Suspended;
 
+import jaxrs.examples.timer.HashedWheelTimer;
+
 /**
  * Long-running asynchronous processing examples.
+ * <p>
+ * The long-running operation waits 10 seconds for an external system, e.g. a remote service, without holding
+ * a thread, and then computes its result on the {@link SharedExecutor}. The operation is cancelled by callbacks
+ * registered with the suspended response as soon as the response completes otherwise, e.g. because it timed out,
+ * or the client disconnects. Suspend timeouts are tracked by the shared {@link HashedWheelTimer} through
+ * {@link AsyncTimeouts} rather than by {@link AsyncResponse#setTimeout(long, TimeUnit)}.
+ * </p>
  *
  * @author Marek Potociar
  */
@@ -63,6 +77,8 @@ import javax.ws.rs.container.Suspended;
 @Produces("text/plain")
 public class LongRunningAsyncOperationResource {
 
+    private static final long OPERATION_DURATION = 10;
+
     @GET
     @Path("sync")
     public String basicSyncExample() {
@@ -78,18 +94,8 @@ public class LongRunningAsyncOperationResource {
     @Path("async")
     public void asyncExample(
             @Suspended final AsyncResponse ar) {
-        ar.setTimeout(15, SECONDS);
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    Thread.sleep(10000);
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(LongRunningAsyncOperationResource.class.getName()).log(Level.SEVERE, "Response processing interrupted", ex);
-                }
-                ar.resume("Hello async world!");
-            }
-        });
+        AsyncTimeouts.setTimeout(ar, 15, SECONDS, null);
+        resumeWith(ar, longRunningOperation("Hello async world!"));
     }
 
     @GET
@@ -99,19 +105,7 @@ public class LongRunningAsyncOperationResource {
             // process simple queries synchronously
             ar.resume("Simple result for " + query);
         } else {
-            Executors.newSingleThreadExecutor().submit(new Runnable() {
-
-                @Override
-                public void run() {
-                    try {
-                        Thread.sleep(10000);
-                    } catch (InterruptedException ex) {
-                        Logger.getLogger(LongRunningAsyncOperationResource.class.getName())
-                                .log(Level.SEVERE, "Response processing interrupted", ex);
-                    }
-                    ar.resume("Complex result for " + query);
-                }
-            });
+            resumeWith(ar, longRunningOperation("Complex result for " + query));
         }
     }
 
@@ -124,53 +118,76 @@ public class LongRunningAsyncOperationResource {
     public void overriddenTimeoutAsync(@QueryParam("timeOut") Long timeOut, @QueryParam("timeUnit") TimeUnit timeUnit,
                                        @Suspended final AsyncResponse ar) {
         if (timeOut != null && timeUnit != null) {
-            ar.setTimeout(timeOut, timeUnit);
+            AsyncTimeouts.setTimeout(ar, timeOut, timeUnit, null);
         } else {
-            ar.setTimeout(15, SECONDS);
+            AsyncTimeouts.setTimeout(ar, 15, SECONDS, null);
         }
 
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
-
-            @Override
-            public void run() {
-                try {
-                    Thread.sleep(10000);
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(LongRunningAsyncOperationResource.class.getName())
-                            .log(Level.SEVERE, "Response processing interrupted", ex);
-                }
-                ar.resume("Hello async world!");
-            }
-        });
+        resumeWith(ar, longRunningOperation("Hello async world!"));
     }
 
     @GET
     @Path("asyncHandleUsage")
     public void suspendHandleUsageExample(@Suspended final AsyncResponse ar) {
-        ar.setTimeout(15, SECONDS);
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
-
-            @Override
-            public void run() {
-                try {
-                    Thread.sleep(10000);
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(LongRunningAsyncOperationResource.class.getName())
-                            .log(Level.SEVERE, "Response processing interrupted", ex);
-                }
-                ar.resume("Hello async world!");
-            }
-        });
-
-        Executors.newSingleThreadExecutor().submit(new Runnable() {
+        AsyncTimeouts.setTimeout(ar, 15, SECONDS, null);
+        resumeWith(ar, longRunningOperation("Hello async world!"));
 
-            @Override
-            public void run() {
-                while (!ar.isDone()) {
-                }
+        // notified once the response is sent, instead of polling ar.isDone()
+        ar.register((CompletionCallback) throwable ->
                 Logger.getLogger(LongRunningAsyncOperationResource.class.getName())
-                        .log(Level.INFO, "Context resumed with a response!");
+                        .log(Level.FINE, "Context resumed with a response!"));
+    }
+
+    /**
+     * Start the long-running operation.
+     *
+     * @param result result of the operation.
+     * @return pending operation, whose cancellation stops it.
+     */
+    static CompletableFuture<String> longRunningOperation(final String result) {
+        final CompletableFuture<String> operation = new CompletableFuture<>();
+        final HashedWheelTimer.Timeout wait = HashedWheelTimer.shared().schedule(() -> {
+            try {
+                SharedExecutor.get().execute(() -> operation.complete(result));
+            } catch (RejectedExecutionException e) {
+                operation.completeExceptionally(new ServiceUnavailableException(1L, e));
+            }
+        }, OPERATION_DURATION, SECONDS);
+        operation.whenComplete((value, failure) -> wait.cancel());
+        return operation;
+    }
+
+    private static void resumeWith(final AsyncResponse ar, final CompletableFuture<String> operation) {
+        ar.register(new OperationCallbacks(operation));
+        operation.whenComplete((value, failure) -> {
+            if (failure == null) {
+                ar.resume(value);
+            } else if (!(failure instanceof CancellationException)) {
+                ar.resume(failure);
             }
         });
     }
+
+    /**
+     * Callbacks cancelling a pending operation once its response is no longer expected.
+     */
+    private static final class OperationCallbacks implements CompletionCallback, ConnectionCallback {
+
+        private final CompletableFuture<?> operation;
+
+        private OperationCallbacks(final CompletableFuture<?> operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public void onComplete(final Throwable throwable) {
+            // no-op if the operation produced the response
+            operation.cancel(false);
+        }
+
+        @Override
+        public void onDisconnect(final AsyncResponse disconnected) {
+            operation.cancel(false);
+        }
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pool of direct byte buffers in a few size classes.
+ * <p>
+ * Small entities are buffered in small buffers, large entities in progressively larger ones, so that neither
+ * wastes memory nor needs a long chain of buffers.
+ * </p>
+ */
+public final class BufferPool {
+
+    private static final BufferPool SHARED = new BufferPool(new int[] {4 * 1024, 32 * 1024, 256 * 1024}, 256);
+
+    private final DirectBufferPool[] sizeClasses;
+
+    /**
+     * Create a new pool.
+     *
+     * @param sizes    buffer sizes of the size classes in ascending order.
+     * @param capacity maximum number of idle buffers retained per size class.
+     */
+    public BufferPool(final int[] sizes, final int capacity) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("At least one size class required.");
+        }
+        sizeClasses = new DirectBufferPool[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            if (i > 0 && sizes[i] <= sizes[i - 1]) {
+                throw new IllegalArgumentException("Size classes must be in ascending order.");
+            }
+            sizeClasses[i] = new DirectBufferPool(sizes[i], capacity);
+        }
+    }
+
+    /**
+     * Get the pool shared by the examples.
+     *
+     * @return shared pool.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the number of size classes.
+     *
+     * @return number of size classes.
+     */
+    public int sizeClasses() {
+        return sizeClasses.length;
+    }
+
+    /**
+     * Borrow a cleared buffer of a size class.
+     *
+     * @param sizeClass size class index, capped to the largest size class.
+     * @return direct buffer, to be returned using {@link #release(ByteBuffer)}.
+     */
+    public ByteBuffer acquire(final int sizeClass) {
+        return sizeClasses[Math.min(Math.max(sizeClass, 0), sizeClasses.length - 1)].acquire();
+    }
+
+    /**
+     * Return a buffer to the pool of its size class.
+     *
+     * @param buffer buffer borrowed from this pool.
+     */
+    public void release(final ByteBuffer buffer) {
+        for (final DirectBufferPool sizeClass : sizeClasses) {
+            if (sizeClass.getBufferSize() == buffer.capacity()) {
+                sizeClass.release(buffer);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, re-readable buffered entity.
+ * <p>
+ * The first bytes of the entity are held in a chain of pooled direct buffers, the remainder (if any) in a temporary
+ * file. The buffer is reference-counted: the buffers are returned to the pool and the file is deleted once the last
+ * reference is released. Each {@link #newInputStream() input stream} holds a reference until it is closed, so
+ * a buffer may be released by its owner while it is still being read.
+ * </p>
+ *
+ * @see EntityBufferFactory
+ */
+public final class EntityBuffer implements Closeable {
+
+    private final BufferPool pool;
+    private final List<ByteBuffer> chunks;
+    private final FileChannel spill;
+    private final long memorySize;
+    private final long size;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    EntityBuffer(final BufferPool pool, final List<ByteBuffer> chunks, final FileChannel spill, final long spillSize) {
+        this.pool = pool;
+        this.chunks = chunks;
+        this.spill = spill;
+        long memory = 0;
+        for (final ByteBuffer chunk : chunks) {
+            memory += chunk.remaining();
+        }
+        this.memorySize = memory;
+        this.size = memory + spillSize;
+    }
+
+    /**
+     * Get the size of the entity.
+     *
+     * @return entity size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Check whether part of the entity was spilled to a temporary file.
+     *
+     * @return {@code true} in case the entity was spilled.
+     */
+    public boolean isSpilled() {
+        return spill != null;
+    }
+
+    /**
+     * Open a new stream reading the entity from its beginning. The stream holds a reference to this buffer
+     * until it is closed.
+     *
+     * @return entity input stream.
+     * @throws IllegalStateException in case the buffer has been released.
+     */
+    public InputStream newInputStream() {
+        retain();
+        return new EntityBufferInputStream();
+    }
+
+    /**
+     * Acquire an additional reference to the buffer.
+     *
+     * @return this buffer.
+     * @throws IllegalStateException in case the buffer has been released.
+     */
+    public EntityBuffer retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Entity buffer has been released.");
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * Release a reference to the buffer, freeing its memory and file once no references remain.
+     */
+    public void release() {
+        final int count = references.decrementAndGet();
+        if (count == 0) {
+            for (final ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+            if (spill != null) {
+                try {
+                    // the file has been opened with DELETE_ON_CLOSE
+                    spill.close();
+                } catch (IOException e) {
+                    // nothing more to do
+                }
+            }
+        } else if (count < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Entity buffer has been released.");
+        }
+    }
+
+    /**
+     * Release a reference to the buffer.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    private final class EntityBufferInputStream extends InputStream {
+
+        private int chunkIndex;
+        private ByteBuffer current;
+        private long position;
+        private boolean closed;
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed.");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            if (position < memorySize) {
+                while (current == null || !current.hasRemaining()) {
+                    // independent position and limit for each stream
+                    current = chunks.get(chunkIndex++).duplicate();
+                }
+                final int n = Math.min(len, current.remaining());
+                current.get(b, off, n);
+                position += n;
+                return n;
+            }
+            final int n = spill.read(ByteBuffer.wrap(b, off, (int) Math.min(len, size - position)),
+                    position - memorySize);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if (n <= 0 || closed) {
+                return 0;
+            }
+            final long start = position;
+            final long target = Math.min(size, position + n);
+            while (position < Math.min(target, memorySize)) {
+                if (current == null || !current.hasRemaining()) {
+                    current = chunks.get(chunkIndex++).duplicate();
+                }
+                final int step = (int) Math.min(target - position, current.remaining());
+                current.position(current.position() + step);
+                position += step;
+            }
+            // the spilled part is read by position, nothing to advance
+            position = target;
+            return target - start;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(size - position, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.EntityBuffering;
+
+/**
+ * Factory of {@link EntityBuffer entity buffers}.
+ * <p>
+ * Entities are read into pooled direct buffers of growing size classes up to the memory threshold; the remainder
+ * is spilled to a temporary file. Example of a client response filter that needs to read the entity twice:
+ * <pre>
+ *   EntityBuffer entity = factory.buffer(responseContext);
+ *   try (InputStream in = entity.newInputStream()) {
+ *       verifySignature(in);
+ *   } finally {
+ *       entity.release();
+ *   }
+ *   // the entity stream of the response context reads the entity again
+ * </pre>
+ * </p>
+ */
+public final class EntityBufferFactory {
+
+    /**
+     * Default memory threshold, 1 MiB.
+     */
+    public static final long DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final BufferPool pool;
+    private final long memoryThreshold;
+    private final Path spillDirectory;
+
+    /**
+     * Create a new factory.
+     *
+     * @param pool            buffer pool.
+     * @param memoryThreshold maximum number of bytes kept in memory per entity, negative for no limit.
+     * @param spillDirectory  directory of the temporary files, {@code null} for the default temporary directory.
+     */
+    public EntityBufferFactory(final BufferPool pool, final long memoryThreshold, final Path spillDirectory) {
+        this.pool = pool;
+        this.memoryThreshold = memoryThreshold;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Create a factory using the shared buffer pool, configured by the {@link EntityBuffering} properties.
+     *
+     * @param configuration runtime configuration.
+     * @return entity buffer factory.
+     */
+    public static EntityBufferFactory from(final Configuration configuration) {
+        final Object threshold = configuration.getProperty(EntityBuffering.MEMORY_THRESHOLD_PROPERTY);
+        final Object directory = configuration.getProperty(EntityBuffering.SPILL_DIRECTORY_PROPERTY);
+        return new EntityBufferFactory(BufferPool.shared(),
+                threshold == null ? DEFAULT_MEMORY_THRESHOLD : Long.parseLong(threshold.toString().trim()),
+                directory == null ? null : Paths.get(directory.toString()));
+    }
+
+    /**
+     * Read the entity of a client response into a buffer and replace the entity stream of the response with
+     * a stream reading the buffer.
+     *
+     * @param response client response context.
+     * @return entity buffer, to be released by the caller.
+     * @throws IOException in case reading the entity fails.
+     */
+    public EntityBuffer buffer(final ClientResponseContext response) throws IOException {
+        final EntityBuffer buffer;
+        try (InputStream entity = response.getEntityStream()) {
+            buffer = buffer(entity);
+        }
+        response.setEntityStream(buffer.newInputStream());
+        return buffer;
+    }
+
+    /**
+     * Read the entity of a container request into a buffer and replace the entity stream of the request with
+     * a stream reading the buffer.
+     *
+     * @param request container request context.
+     * @return entity buffer, to be released by the caller.
+     * @throws IOException in case reading the entity fails.
+     */
+    public EntityBuffer buffer(final ContainerRequestContext request) throws IOException {
+        final EntityBuffer buffer;
+        try (InputStream entity = request.getEntityStream()) {
+            buffer = buffer(entity);
+        }
+        request.setEntityStream(buffer.newInputStream());
+        return buffer;
+    }
+
+    /**
+     * Read a stream to its end into a buffer. The stream is not closed.
+     *
+     * @param entity entity stream.
+     * @return entity buffer, to be released by the caller.
+     * @throws IOException in case reading the entity fails.
+     */
+    public EntityBuffer buffer(final InputStream entity) throws IOException {
+        final ReadableByteChannel source = Channels.newChannel(entity);
+        final List<ByteBuffer> chunks = new ArrayList<>();
+        FileChannel spill = null;
+        try {
+            long memory = 0;
+            boolean end = false;
+            while (!end && (memoryThreshold < 0 || memory < memoryThreshold)) {
+                // two buffers per size class before moving to a larger one
+                final ByteBuffer chunk = pool.acquire(chunks.size() / 2);
+                if (memoryThreshold >= 0) {
+                    chunk.limit((int) Math.min(chunk.capacity(), memoryThreshold - memory));
+                }
+                end = fill(source, chunk);
+                chunk.flip();
+                if (chunk.hasRemaining()) {
+                    chunks.add(chunk);
+                    memory += chunk.remaining();
+                } else {
+                    pool.release(chunk);
+                }
+            }
+
+            long spillSize = 0;
+            if (!end) {
+                spill = openSpillFile();
+                final ByteBuffer transfer = pool.acquire(pool.sizeClasses() - 1);
+                try {
+                    while (!end) {
+                        end = fill(source, transfer);
+                        transfer.flip();
+                        while (transfer.hasRemaining()) {
+                            spillSize += spill.write(transfer);
+                        }
+                        transfer.clear();
+                    }
+                } finally {
+                    pool.release(transfer);
+                }
+            }
+            return new EntityBuffer(pool, chunks, spill, spillSize);
+        } catch (IOException | RuntimeException e) {
+            for (final ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+            if (spill != null) {
+                spill.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Read from the source until the buffer is full or the source ends.
+     *
+     * @return {@code true} in case the source ended.
+     */
+    private static boolean fill(final ReadableByteChannel source, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private FileChannel openSpillFile() throws IOException {
+        final Path file = spillDirectory == null
+                ? Files.createTempFile("entity", ".buf")
+                : Files.createTempFile(spillDirectory, "entity", ".buf");
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+}
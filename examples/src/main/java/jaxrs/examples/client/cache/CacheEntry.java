@@ -42,6 +42,8 @@ package jaxrs.examples.client.cache;
 
 import javax.ws.rs.core.MultivaluedMap;
 
+import jaxrs.examples.buffer.EntityBuffer;
+
 /**
  * @author Bill Burke
  * @author Marek Potociar
@@ -50,9 +52,9 @@ public class CacheEntry {
 
     private int status;
     private MultivaluedMap<String, String> headers;
-    private byte[] body;
+    private EntityBuffer body;
 
-    public CacheEntry(int status, MultivaluedMap<String, String> headers, byte[] body) {
+    public CacheEntry(int status, MultivaluedMap<String, String> headers, EntityBuffer body) {
         this.status = status;
         this.headers = headers;
         this.body = body;
@@ -66,7 +68,7 @@ public class CacheEntry {
         return headers;
     }
 
-    public byte[] getBody() {
+    public EntityBuffer getBody() {
         return body;
     }
 }
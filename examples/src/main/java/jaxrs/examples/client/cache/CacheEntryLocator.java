@@ -40,8 +40,8 @@
 
 package jaxrs.examples.client.cache;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -71,9 +71,18 @@ public class CacheEntryLocator implements ClientRequestFilter {
         if (request.getMethod().equalsIgnoreCase("GET")) {
             CacheEntry cacheEntry = cache.get(request.getUri().toString());
 
+            InputStream body = null;
             if (cacheEntry != null) {
+                try {
+                    body = cacheEntry.getBody().newInputStream();
+                } catch (IllegalStateException e) {
+                    // entry replaced and released concurrently, treat as a miss
+                }
+            }
+
+            if (body != null) {
                 Response.ResponseBuilder responseBuilder =
-                        Response.status(cacheEntry.getStatus()).entity(new ByteArrayInputStream(cacheEntry.getBody()));
+                        Response.status(cacheEntry.getStatus()).entity(body);
 
                 for (Map.Entry<String, List<String>> mapEntry : cacheEntry.getHeaders().entrySet()) {
                     for (String value : mapEntry.getValue()) {
@@ -40,17 +40,20 @@
 
 package jaxrs.examples.client.cache;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 
 import javax.ws.rs.client.ClientRequestContext;
 import javax.ws.rs.client.ClientResponseContext;
 import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MultivaluedHashMap;
 
+import jaxrs.examples.buffer.BufferPool;
+import jaxrs.examples.buffer.EntityBuffer;
+import jaxrs.examples.buffer.EntityBufferFactory;
+
 /**
  * @author Bill Burke
  * @author Marek Potociar
@@ -60,6 +63,11 @@ public class CacheResponseFilter implements ClientResponseFilter {
 
     private Map<String, CacheEntry> cacheStore;
 
+    @Context
+    private Configuration configuration;
+
+    private volatile EntityBufferFactory bufferFactory;
+
     public CacheResponseFilter(Map<String, CacheEntry> store) {
         this.cacheStore = store;
     }
@@ -69,36 +77,31 @@ public class CacheResponseFilter implements ClientResponseFilter {
         store(request, response);
     }
 
-    private void store(ClientRequestContext request, ClientResponseContext response) {
-        if (request.getMethod().equalsIgnoreCase("GET")) {
-
-            final byte[] body = readFromStream(1024, response.getEntityStream());
+    private void store(ClientRequestContext request, ClientResponseContext response) throws IOException {
+        if (request.getMethod().equalsIgnoreCase("GET") && response.hasEntity()) {
+            // buffered in pooled memory and spilled to a file if large, re-readable for each cache hit
+            final EntityBuffer body = bufferFactory().buffer(response);
 
             CacheEntry cacheEntry = new CacheEntry(
                     response.getStatus(),
                     new MultivaluedHashMap<String, String>(response.getHeaders()),
                     body);
-            cacheStore.put(request.getUri().toString(), cacheEntry);
-
-            response.setEntityStream(new ByteArrayInputStream(cacheEntry.getBody()));
+            CacheEntry previous = cacheStore.put(request.getUri().toString(), cacheEntry);
+            if (previous != null) {
+                previous.getBody().release();
+            }
         }
     }
 
-    private static byte[] readFromStream(int bufferSize, InputStream entityStream) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        byte[] buffer = new byte[bufferSize];
-        int wasRead = 0;
-        do {
-            try {
-                wasRead = entityStream.read(buffer);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            if (wasRead > 0) {
-                baos.write(buffer, 0, wasRead);
-            }
-        } while (wasRead > -1);
-        return baos.toByteArray();
+    private EntityBufferFactory bufferFactory() {
+        EntityBufferFactory factory = bufferFactory;
+        if (factory == null) {
+            factory = configuration != null
+                    ? EntityBufferFactory.from(configuration)
+                    : new EntityBufferFactory(BufferPool.shared(),
+                            EntityBufferFactory.DEFAULT_MEMORY_THRESHOLD, null);
+            bufferFactory = factory;
+        }
+        return factory;
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.hedging;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.Response;
+
+/**
+ * Runs invocations as a race between the original attempt and, if the attempt is slower than the current
+ * latency percentile, a hedge.
+ */
+final class Hedger {
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, "TRACE"));
+
+    private final LatencyTracker tracker;
+    private final HedgeBudget budget;
+    private final HedgingMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final long minDelayNanos;
+    private final int attemptThreads;
+
+    private ExecutorService defaultExecutor;
+    private boolean closed;
+
+    Hedger(final LatencyTracker tracker,
+           final HedgeBudget budget,
+           final HedgingMetrics metrics,
+           final ScheduledExecutorService scheduler,
+           final long minDelayNanos,
+           final int attemptThreads) {
+        this.tracker = tracker;
+        this.budget = budget;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.minDelayNanos = minDelayNanos;
+        this.attemptThreads = attemptThreads;
+    }
+
+    /**
+     * Execute an invocation, hedging it if it is idempotent and turns out to be slow.
+     *
+     * @param method   HTTP method name of the invocation.
+     * @param executor executor service running the (blocking) invocation attempts, may be {@code null}
+     *                 in which case the attempts run on a dedicated bounded pool, never on the hedge scheduler.
+     * @param call     invocation attempt.
+     * @param <T>      invocation result type.
+     * @return completion stage of the first successful attempt.
+     * @throws IllegalStateException in case the attempts need the dedicated pool and the hedger has been closed.
+     */
+    <T> CompletionStage<T> execute(final String method, final ExecutorService executor, final Supplier<T> call) {
+        metrics.invocation();
+        budget.deposit();
+
+        final Race<T> race = new Race<>(executor != null ? executor : defaultExecutor(), call);
+        race.launch(false);
+
+        final long threshold = tracker.threshold();
+        if (threshold >= 0 && IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT))) {
+            race.scheduleHedge(Math.max(threshold, minDelayNanos));
+        }
+        return race.result;
+    }
+
+    /**
+     * Shut down the pool running the invocation attempts of clients without an executor service. Attempts already
+     * submitted to the pool still run.
+     */
+    synchronized void close() {
+        closed = true;
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Get the pool running the invocation attempts of clients without an executor service. Attempts block,
+     * so running them on the scheduler would delay the hedge timers they are racing against. The pool is bounded:
+     * when all its threads are busy, e.g. during a latency spike, further attempts are queued.
+     */
+    private synchronized ExecutorService defaultExecutor() {
+        if (closed) {
+            throw new IllegalStateException("Hedging feature has been closed.");
+        }
+        if (defaultExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(attemptThreads, attemptThreads,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                        final Thread thread = new Thread(task, "hedging-attempt-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            defaultExecutor = pool;
+        }
+        return defaultExecutor;
+    }
+
+    private final class Race<T> {
+
+        private final ExecutorService executor;
+        private final Supplier<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Future<?> primary;
+        private Future<?> hedge;
+        private Future<?> hedgeTimer;
+        private long start;
+        private int inFlight;
+
+        private Race(final ExecutorService executor, final Supplier<T> call) {
+            this.executor = executor;
+            this.call = call;
+        }
+
+        private synchronized void scheduleHedge(final long delayNanos) {
+            if (!result.isDone()) {
+                hedgeTimer = scheduler.schedule(this::hedge, delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (result.isDone() || inFlight == 0) {
+                    return;
+                }
+            }
+            if (!budget.tryWithdraw()) {
+                metrics.budgetExhausted();
+                return;
+            }
+            metrics.hedge();
+            launch(true);
+        }
+
+        private synchronized void launch(final boolean isHedge) {
+            if (!isHedge) {
+                start = System.nanoTime();
+            }
+            inFlight++;
+            final Future<?> attempt = executor.submit(() -> {
+                final T value;
+                try {
+                    value = call.get();
+                } catch (Throwable t) {
+                    failed(t);
+                    return;
+                }
+                completed(value, isHedge);
+            });
+            if (isHedge) {
+                hedge = attempt;
+            } else {
+                primary = attempt;
+            }
+        }
+
+        private void completed(final T value, final boolean isHedge) {
+            // every attempt that completes is a sample, measured from the primary start as seen by the caller;
+            // recording winners only, and hedges from their own start, would drag the percentile down
+            tracker.record(System.nanoTime() - start);
+            if (!result.complete(value)) {
+                // lost the race
+                if (value instanceof Response) {
+                    ((Response) value).close();
+                }
+                return;
+            }
+            if (isHedge) {
+                metrics.hedgeWin();
+            }
+            final Future<?> loser;
+            final Future<?> timer;
+            synchronized (this) {
+                inFlight--;
+                loser = isHedge ? primary : hedge;
+                timer = hedgeTimer;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (loser != null) {
+                loser.cancel(true);
+            }
+        }
+
+        private void failed(final Throwable failure) {
+            final Future<?> timer;
+            synchronized (this) {
+                if (--inFlight > 0 || result.isDone()) {
+                    // the other attempt may still succeed
+                    return;
+                }
+                timer = hedgeTimer;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            result.completeExceptionally(failure);
+        }
+    }
+}
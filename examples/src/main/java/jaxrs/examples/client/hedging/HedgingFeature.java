@@ -0,0 +1,215 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.hedging;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.RxInvokerProvider;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+
+/**
+ * Client feature sending a hedge, i.e. a duplicate, of an idempotent invocation that takes longer than
+ * an adaptive percentile of the recently observed latencies.
+ * <p>
+ * The first attempt to succeed wins, the other one is cancelled and its response, if any, closed. The number of
+ * hedges is capped by a budget expressed as a fraction of the invocations, so that a uniformly slow backend is
+ * not hit by twice the load. Latencies are tracked per feature instance; registering a separate instance on each
+ * {@link javax.ws.rs.client.WebTarget} therefore adapts the hedging delay to each target:
+ * <pre>
+ * HedgingFeature hedging = new HedgingFeature(scheduler).percentile(0.95).budget(0.05, 10);
+ * WebTarget replicas = client.target("http://backend/items").register(hedging);
+ *
+ * CompletionStage&lt;String&gt; item = replicas.path("42").request()
+ *                                        .rx(HedgingRxInvoker.class)
+ *                                        .get(String.class);
+ * ...
+ * System.out.println(hedging.getMetrics());
+ * </pre>
+ * The feature must be configured before it is registered. Closing the feature shuts down the pool running the
+ * attempts of clients without an executor service.
+ */
+public final class HedgingFeature implements Feature, AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+    private final HedgingMetrics metrics = new HedgingMetrics();
+
+    private double percentile = 0.95;
+    private int window = 1000;
+    private int minSamples = 100;
+    private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    private double budgetRatio = 0.05;
+    private int budgetBurst = 10;
+    private int attemptThreads = 64;
+
+    private volatile Hedger hedger;
+
+    /**
+     * Create new hedging feature.
+     *
+     * @param scheduler scheduled executor service used to trigger hedges. The invocation attempts run on the
+     *                  executor service the client provides to reactive invokers or, if there is none, on
+     *                  a dedicated pool, so that blocked attempts never delay the hedge timers. The size of
+     *                  the dedicated pool is set by {@link #attemptThreads(int)}.
+     */
+    public HedgingFeature(final ScheduledExecutorService scheduler) {
+        if (scheduler == null) {
+            throw new NullPointerException("Scheduler must not be null.");
+        }
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Set the latency percentile an attempt has to exceed to be hedged. Defaults to {@code 0.95}.
+     *
+     * @param percentile latency percentile, in the {@code (0, 1)} range.
+     * @return updated feature.
+     */
+    public HedgingFeature percentile(final double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Percentile must be in the (0, 1) range.");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Set the latency sampling window. Defaults to the last 1000 invocations, hedging starts after 100.
+     *
+     * @param window     number of most recent invocations the percentile is computed from.
+     * @param minSamples number of invocations to observe before hedging starts.
+     * @return updated feature.
+     */
+    public HedgingFeature window(final int window, final int minSamples) {
+        if (window <= 0 || minSamples <= 0) {
+            throw new IllegalArgumentException("Window and minimum number of samples must be positive.");
+        }
+        this.window = window;
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    /**
+     * Set the minimum hedging delay, protecting a backend with very low latencies from hedge storms.
+     * Defaults to 1 ms.
+     *
+     * @param delay minimum delay.
+     * @param unit  time unit of the delay.
+     * @return updated feature.
+     */
+    public HedgingFeature minDelay(final long delay, final TimeUnit unit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+        this.minDelayNanos = unit.toNanos(delay);
+        return this;
+    }
+
+    /**
+     * Set the hedge budget. Defaults to 5 % of invocations with bursts of up to 10 hedges.
+     *
+     * @param ratio maximum long-term ratio of hedges to invocations.
+     * @param burst maximum number of hedges that may be sent in a burst.
+     * @return updated feature.
+     */
+    public HedgingFeature budget(final double ratio, final int burst) {
+        if (ratio < 0 || burst <= 0) {
+            throw new IllegalArgumentException("Budget ratio must not be negative, burst must be positive.");
+        }
+        this.budgetRatio = ratio;
+        this.budgetBurst = burst;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of threads of the pool running the invocation attempts of clients without an executor
+     * service. Attempts exceeding it are queued. Defaults to 64.
+     *
+     * @param threads maximum number of threads.
+     * @return updated feature.
+     */
+    public HedgingFeature attemptThreads(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        this.attemptThreads = threads;
+        return this;
+    }
+
+    /**
+     * Get the hedging statistics.
+     *
+     * @return hedging metrics.
+     */
+    public HedgingMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean configure(final FeatureContext context) {
+        Hedger current = hedger;
+        if (current == null) {
+            synchronized (this) {
+                current = hedger;
+                if (current == null) {
+                    current = new Hedger(new LatencyTracker(window, percentile, minSamples),
+                            new HedgeBudget(budgetRatio, budgetBurst), metrics, scheduler, minDelayNanos,
+                            attemptThreads);
+                    hedger = current;
+                }
+            }
+        }
+        context.register(new HedgingRxInvokerProvider(current), RxInvokerProvider.class);
+        return true;
+    }
+
+    /**
+     * Shut down the pool running the invocation attempts of clients without an executor service. Invocations
+     * of such clients fail afterwards; the scheduler is not shut down.
+     */
+    @Override
+    public void close() {
+        final Hedger current = hedger;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
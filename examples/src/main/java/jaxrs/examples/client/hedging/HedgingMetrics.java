@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.hedging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedging statistics of a {@link HedgingFeature}.
+ */
+public final class HedgingMetrics {
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    HedgingMetrics() {
+    }
+
+    void invocation() {
+        invocations.increment();
+    }
+
+    void hedge() {
+        hedges.increment();
+    }
+
+    void hedgeWin() {
+        hedgeWins.increment();
+    }
+
+    void budgetExhausted() {
+        budgetExhausted.increment();
+    }
+
+    /**
+     * Get the number of invocations issued through the hedging invoker.
+     *
+     * @return number of invocations.
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Get the number of hedges sent.
+     *
+     * @return number of hedges.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * Get the number of invocations answered by the hedge rather than by the original attempt.
+     *
+     * @return number of hedge wins.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Get the number of hedges that were due but not sent because the hedge budget was exhausted.
+     *
+     * @return number of suppressed hedges.
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * Get the fraction of sent hedges that won the race.
+     *
+     * @return hedge win rate, or {@code 0} if no hedge has been sent.
+     */
+    public double getHedgeWinRate() {
+        final long sent = hedges.sum();
+        return sent == 0 ? 0 : (double) hedgeWins.sum() / sent;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingMetrics{invocations=" + getInvocations()
+                + ", hedges=" + getHedges()
+                + ", hedgeWins=" + getHedgeWins()
+                + ", budgetExhausted=" + getBudgetExhausted() + '}';
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.hedging;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.CompletionStageRxInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.SyncInvoker;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+/**
+ * {@link CompletionStage}-based reactive invoker hedging slow idempotent invocations.
+ * <p>
+ * Obtained by calling {@code rx(HedgingRxInvoker.class)} on an invocation builder of a client or web target
+ * with the {@link HedgingFeature} registered. Non-idempotent methods ({@code POST} and unknown extension
+ * methods) are never hedged. As with any {@link CompletionStage}, the result can be consumed as a
+ * {@link java.util.concurrent.Future} using {@link CompletionStage#toCompletableFuture()}.
+ * </p>
+ * <p>
+ * Each attempt runs its own {@link Invocation} built from the invocation builder, since the original attempt and
+ * the hedge run concurrently. A synchronous invoker that is not an {@link Invocation.Builder} is called by both
+ * attempts concurrently, relying on the runtime's invoker being thread-safe.
+ * </p>
+ */
+public final class HedgingRxInvoker implements CompletionStageRxInvoker {
+
+    private final SyncInvoker syncInvoker;
+    private final Invocation.Builder builder;
+    private final ExecutorService executorService;
+    private final Hedger hedger;
+
+    HedgingRxInvoker(final SyncInvoker syncInvoker, final ExecutorService executorService, final Hedger hedger) {
+        this.syncInvoker = syncInvoker;
+        this.builder = syncInvoker instanceof Invocation.Builder ? (Invocation.Builder) syncInvoker : null;
+        this.executorService = executorService;
+        this.hedger = hedger;
+    }
+
+    private <T> CompletionStage<T> execute(final String method, final Supplier<T> call) {
+        return hedger.execute(method, executorService, call);
+    }
+
+    @Override
+    public CompletionStage<Response> get() {
+        return method(HttpMethod.GET);
+    }
+
+    @Override
+    public <T> CompletionStage<T> get(final Class<T> responseType) {
+        return method(HttpMethod.GET, responseType);
+    }
+
+    @Override
+    public <T> CompletionStage<T> get(final GenericType<T> responseType) {
+        return method(HttpMethod.GET, responseType);
+    }
+
+    @Override
+    public CompletionStage<Response> put(final Entity<?> entity) {
+        return method(HttpMethod.PUT, entity);
+    }
+
+    @Override
+    public <T> CompletionStage<T> put(final Entity<?> entity, final Class<T> clazz) {
+        return method(HttpMethod.PUT, entity, clazz);
+    }
+
+    @Override
+    public <T> CompletionStage<T> put(final Entity<?> entity, final GenericType<T> type) {
+        return method(HttpMethod.PUT, entity, type);
+    }
+
+    @Override
+    public CompletionStage<Response> post(final Entity<?> entity) {
+        return method(HttpMethod.POST, entity);
+    }
+
+    @Override
+    public <T> CompletionStage<T> post(final Entity<?> entity, final Class<T> clazz) {
+        return method(HttpMethod.POST, entity, clazz);
+    }
+
+    @Override
+    public <T> CompletionStage<T> post(final Entity<?> entity, final GenericType<T> type) {
+        return method(HttpMethod.POST, entity, type);
+    }
+
+    @Override
+    public CompletionStage<Response> delete() {
+        return method(HttpMethod.DELETE);
+    }
+
+    @Override
+    public <T> CompletionStage<T> delete(final Class<T> responseType) {
+        return method(HttpMethod.DELETE, responseType);
+    }
+
+    @Override
+    public <T> CompletionStage<T> delete(final GenericType<T> responseType) {
+        return method(HttpMethod.DELETE, responseType);
+    }
+
+    @Override
+    public CompletionStage<Response> head() {
+        return method(HttpMethod.HEAD);
+    }
+
+    @Override
+    public CompletionStage<Response> options() {
+        return method(HttpMethod.OPTIONS);
+    }
+
+    @Override
+    public <T> CompletionStage<T> options(final Class<T> responseType) {
+        return method(HttpMethod.OPTIONS, responseType);
+    }
+
+    @Override
+    public <T> CompletionStage<T> options(final GenericType<T> responseType) {
+        return method(HttpMethod.OPTIONS, responseType);
+    }
+
+    @Override
+    public CompletionStage<Response> trace() {
+        return method("TRACE");
+    }
+
+    @Override
+    public <T> CompletionStage<T> trace(final Class<T> responseType) {
+        return method("TRACE", responseType);
+    }
+
+    @Override
+    public <T> CompletionStage<T> trace(final GenericType<T> responseType) {
+        return method("TRACE", responseType);
+    }
+
+    @Override
+    public CompletionStage<Response> method(final String name) {
+        return execute(name, () -> builder != null ? build(name, null).invoke() : syncInvoker.method(name));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(final String name, final Class<T> responseType) {
+        return execute(name, () -> builder != null
+                ? build(name, null).invoke(responseType)
+                : syncInvoker.method(name, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(final String name, final GenericType<T> responseType) {
+        return execute(name, () -> builder != null
+                ? build(name, null).invoke(responseType)
+                : syncInvoker.method(name, responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> method(final String name, final Entity<?> entity) {
+        return execute(name, () -> builder != null ? build(name, entity).invoke() : syncInvoker.method(name, entity));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(final String name, final Entity<?> entity, final Class<T> responseType) {
+        return execute(name, () -> builder != null
+                ? build(name, entity).invoke(responseType)
+                : syncInvoker.method(name, entity, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(final String name, final Entity<?> entity, final GenericType<T> responseType) {
+        return execute(name, () -> builder != null
+                ? build(name, entity).invoke(responseType)
+                : syncInvoker.method(name, entity, responseType));
+    }
+
+    /**
+     * Build the invocation of an attempt. Invocation builders are not thread-safe, so the attempts, which may run
+     * concurrently, build their own invocation one at a time.
+     */
+    private Invocation build(final String name, final Entity<?> entity) {
+        synchronized (builder) {
+            return entity != null ? builder.build(name, entity) : builder.build(name);
+        }
+    }
+}
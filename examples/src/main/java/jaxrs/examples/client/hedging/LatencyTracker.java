@@ -0,0 +1,108 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.hedging;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of recent invocation latencies used to derive the hedging delay.
+ * <p>
+ * Samples are kept in a fixed-size ring; the requested percentile is recomputed lazily every
+ * {@value #RECOMPUTE_INTERVAL} samples so that the per-request cost stays constant.
+ */
+final class LatencyTracker {
+
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private long threshold = -1;
+
+    /**
+     * Create new latency tracker.
+     *
+     * @param windowSize number of most recent samples to consider.
+     * @param percentile percentile of the window latency distribution, in the {@code (0, 1)} range.
+     * @param minSamples number of samples needed before a threshold is reported.
+     */
+    LatencyTracker(final int windowSize, final double percentile, final int minSamples) {
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, windowSize);
+    }
+
+    /**
+     * Record the latency of a completed invocation.
+     *
+     * @param nanos invocation latency in nanoseconds.
+     */
+    synchronized void record(final long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        if (++sinceRecompute >= RECOMPUTE_INTERVAL || threshold < 0) {
+            recompute();
+        }
+    }
+
+    /**
+     * Get the current latency percentile.
+     *
+     * @return latency percentile in nanoseconds, or {@code -1} if there are not enough samples yet.
+     */
+    synchronized long threshold() {
+        return size < minSamples ? -1 : threshold;
+    }
+
+    private void recompute() {
+        sinceRecompute = 0;
+        final long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile * size) - 1;
+        threshold = sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.rx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Incremental reader of the elements of a response entity stream.
+ * <p>
+ * Readers keep at most one element in memory, so the memory used to stream an entity does not depend on its size.
+ */
+abstract class ElementReader {
+
+    final InputStream in;
+
+    ElementReader(final InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the next element.
+     *
+     * @return next element or {@code null} at the end of the entity.
+     * @throws IOException in case reading the entity fails.
+     */
+    abstract Object next() throws IOException;
+
+    /**
+     * Reads raw entity bytes as a sequence of {@link ByteBuffer} chunks.
+     */
+    static final class Chunks extends ElementReader {
+
+        private final int chunkSize;
+
+        Chunks(final InputStream in, final int chunkSize) {
+            super(in);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        Object next() throws IOException {
+            final byte[] chunk = new byte[chunkSize];
+            int length = 0;
+            while (length < chunkSize) {
+                final int read = in.read(chunk, length, chunkSize - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+                if (in.available() == 0) {
+                    // publish what is there rather than wait for a full chunk
+                    break;
+                }
+            }
+            return length == 0 ? null : ByteBuffer.wrap(length == chunkSize ? chunk : Arrays.copyOf(chunk, length));
+        }
+    }
+
+    /**
+     * Reads non-empty lines, e.g. of an {@code application/x-ndjson} entity, as strings.
+     */
+    static final class Lines extends ElementReader {
+
+        private final Charset charset;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+        Lines(final InputStream in, final Charset charset) {
+            super(in);
+            this.charset = charset;
+        }
+
+        @Override
+        Object next() throws IOException {
+            while (true) {
+                line.reset();
+                int b;
+                while ((b = in.read()) >= 0 && b != '\n') {
+                    line.write(b);
+                }
+                final String text = new String(line.toByteArray(), charset).trim();
+                if (!text.isEmpty()) {
+                    return text;
+                }
+                if (b < 0) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the items of a top-level JSON array as JSON text strings.
+     */
+    static final class JsonArrayItems extends ElementReader {
+
+        private final Charset charset;
+        private final ByteArrayOutputStream item = new ByteArrayOutputStream(256);
+        private boolean started;
+        private boolean finished;
+
+        JsonArrayItems(final InputStream in, final Charset charset) {
+            super(in);
+            this.charset = charset;
+        }
+
+        @Override
+        Object next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            if (!started) {
+                final int first = skipWhitespace();
+                if (first < 0) {
+                    finished = true;
+                    return null;
+                }
+                if (first != '[') {
+                    throw new IOException("JSON array expected.");
+                }
+                started = true;
+            }
+
+            item.reset();
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '[' || b == '{') {
+                    depth++;
+                } else if (b == ']' || b == '}') {
+                    if (depth == 0) {
+                        // end of the top-level array
+                        finished = true;
+                        break;
+                    }
+                    depth--;
+                } else if (b == ',' && depth == 0) {
+                    break;
+                }
+                item.write(b);
+            }
+            if (b < 0) {
+                throw new IOException("Unterminated JSON array.");
+            }
+            final String text = new String(item.toByteArray(), charset).trim();
+            return text.isEmpty() ? next() : text;
+        }
+
+        private int skipWhitespace() throws IOException {
+            int b;
+            do {
+                b = in.read();
+            } while (b == ' ' || b == '\t' || b == '\r' || b == '\n');
+            return b;
+        }
+    }
+}
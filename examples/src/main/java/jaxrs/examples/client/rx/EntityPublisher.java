@@ -0,0 +1,281 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.rx;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Providers;
+
+/**
+ * Publisher of the elements of a response entity, reading the entity only as far as the subscriber demands.
+ *
+ * @param <T> element type.
+ */
+final class EntityPublisher<T> implements Flow.Publisher<T> {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final Supplier<Response> request;
+    private final Class<?> elementType;
+    private final Type genericElementType;
+    private final Function<String, ?> decoder;
+    private final Providers providers;
+    private final Executor executor;
+
+    /**
+     * Create new entity publisher.
+     *
+     * @param request            issues the request, once per subscription.
+     * @param elementType        raw element type.
+     * @param genericElementType generic element type.
+     * @param decoder            decoder of elements from their text form, {@code null} to read the elements with
+     *                           the message body reader applicable to the element type.
+     * @param providers          client providers, may be {@code null} if a decoder is given.
+     * @param executor           executor reading the entity.
+     */
+    EntityPublisher(final Supplier<Response> request,
+                    final Class<?> elementType,
+                    final Type genericElementType,
+                    final Function<String, ?> decoder,
+                    final Providers providers,
+                    final Executor executor) {
+        this.request = request;
+        this.elementType = elementType;
+        this.genericElementType = genericElementType;
+        this.decoder = decoder;
+        this.providers = providers;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null.");
+        }
+        final EntitySubscription subscription = new EntitySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class EntitySubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        private volatile boolean cancelled;
+        private volatile Response response;
+        private ElementReader reader;
+        private Function<String, ?> decode;
+        private boolean responsePublished;
+
+        private EntitySubscription(final Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                signalError(new IllegalArgumentException("Demand must be positive: " + n));
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            release();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Emit elements while there is demand. Runs in at most one thread at a time.
+         */
+        private void drain() {
+            int missed = 1;
+            do {
+                try {
+                    while (demand.get() > 0 && !cancelled && !terminated.get()) {
+                        final Object element = nextElement();
+                        if (element == null) {
+                            release();
+                            if (terminated.compareAndSet(false, true)) {
+                                subscriber.onComplete();
+                            }
+                            break;
+                        }
+                        if (demand.get() != Long.MAX_VALUE) {
+                            demand.decrementAndGet();
+                        }
+                        @SuppressWarnings("unchecked")
+                        final T item = (T) element;
+                        subscriber.onNext(item);
+                    }
+                } catch (Throwable t) {
+                    release();
+                    if (!cancelled) {
+                        signalError(t);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private Object nextElement() throws Exception {
+            if (response == null) {
+                response = request.get();
+            }
+            if (Response.class.equals(elementType)) {
+                if (responsePublished) {
+                    return null;
+                }
+                responsePublished = true;
+                return response;
+            }
+            if (reader == null) {
+                reader = open(response);
+            }
+            final Object element = reader.next();
+            return element == null || decode == null ? element : decode.apply((String) element);
+        }
+
+        private ElementReader open(final Response response) {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new WebApplicationException(response);
+            }
+            final InputStream entity = new BufferedInputStream(response.readEntity(InputStream.class), CHUNK_SIZE);
+            if (ByteBuffer.class.equals(elementType)) {
+                return new ElementReader.Chunks(entity, CHUNK_SIZE);
+            }
+            final MediaType mediaType = response.getMediaType();
+            final Charset charset = charset(mediaType);
+            final ElementReader elements;
+            final MediaType elementMediaType;
+            if (mediaType != null && mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                elements = new ElementReader.JsonArrayItems(entity, charset);
+                elementMediaType = MediaType.APPLICATION_JSON_TYPE.withCharset(charset.name());
+            } else if (mediaType == null || "x-ndjson".equals(mediaType.getSubtype())) {
+                elements = new ElementReader.Lines(entity, charset);
+                elementMediaType = MediaType.APPLICATION_JSON_TYPE.withCharset(charset.name());
+            } else if ("text".equals(mediaType.getType())) {
+                elements = new ElementReader.Lines(entity, charset);
+                elementMediaType = mediaType.withCharset(charset.name());
+            } else {
+                throw new ProcessingException("Unsupported element framing for media type " + mediaType + ".");
+            }
+            decode = decoder != null ? decoder : bodyReaderDecoder(elementMediaType, charset);
+            return elements;
+        }
+
+        private Function<String, ?> bodyReaderDecoder(final MediaType mediaType, final Charset charset) {
+            @SuppressWarnings("unchecked")
+            final MessageBodyReader<Object> bodyReader = providers == null ? null : (MessageBodyReader<Object>)
+                    providers.getMessageBodyReader(elementType, genericElementType, NO_ANNOTATIONS, mediaType);
+            if (bodyReader == null) {
+                throw new ProcessingException("No message body reader for element type "
+                        + genericElementType.getTypeName() + " and media type " + mediaType + ".");
+            }
+            @SuppressWarnings("unchecked")
+            final Class<Object> type = (Class<Object>) elementType;
+            return text -> {
+                try {
+                    return bodyReader.readFrom(type, genericElementType, NO_ANNOTATIONS, mediaType,
+                            new MultivaluedHashMap<>(), new ByteArrayInputStream(text.getBytes(charset)));
+                } catch (IOException ex) {
+                    throw new ProcessingException(ex);
+                }
+            };
+        }
+
+        private Charset charset(final MediaType mediaType) {
+            final String name = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+            return name == null ? StandardCharsets.UTF_8 : Charset.forName(name);
+        }
+
+        private void signalError(final Throwable t) {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onError(t);
+            }
+        }
+
+        private void release() {
+            final Response current = response;
+            if (current != null && !(responsePublished && Response.class.equals(elementType))) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.rx;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.ws.rs.client.PublisherRxInvoker;
+import javax.ws.rs.client.RxInvokerProvider;
+import javax.ws.rs.client.SyncInvoker;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Providers;
+
+/**
+ * Provider of {@link PublisherRxInvoker} instances streaming the response entity on demand.
+ * <p>
+ * Elements other than {@link ByteBuffer} chunks and {@link Response responses} are read from their text form
+ * (an NDJSON line or a JSON array item) by the {@link javax.ws.rs.ext.MessageBodyReader message body reader}
+ * the client providers offer for the element type and {@code application/json}. A decoder registered for an
+ * element type takes precedence over the message body readers, e.g. to bypass a slow JSON provider:
+ * <pre>
+ *   Client client = ClientBuilder.newBuilder()
+ *           .register(new PublisherRxInvokerProvider()
+ *                   .decoder(Item.class, json -&gt; jsonb.fromJson(json, Item.class)))
+ *           .build();
+ * </pre>
+ * {@code String} elements are published as is. The entity is read on the executor service of the client; a shared
+ * pool of daemon threads is used when the client has none.
+ * </p>
+ */
+public final class PublisherRxInvokerProvider implements RxInvokerProvider<PublisherRxInvoker> {
+
+    private static final class DefaultExecutor {
+
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "publisher-rx-invoker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final Map<Class<?>, Function<String, ?>> decoders = new ConcurrentHashMap<>();
+
+    @Context
+    private Providers providers;
+
+    public PublisherRxInvokerProvider() {
+        decoders.put(String.class, Function.identity());
+    }
+
+    /**
+     * Register a decoder of elements of the given type, replacing the message body reader for that type.
+     *
+     * @param elementType element type.
+     * @param decoder     function decoding an element from its text form.
+     * @param <T>         element type.
+     * @return the updated provider.
+     */
+    public <T> PublisherRxInvokerProvider decoder(final Class<T> elementType, final Function<String, T> decoder) {
+        if (elementType == null || decoder == null) {
+            throw new NullPointerException("Element type and decoder must not be null.");
+        }
+        decoders.put(elementType, decoder);
+        return this;
+    }
+
+    @Override
+    public boolean isProviderFor(final Class<?> clazz) {
+        return PublisherRxInvoker.class.equals(clazz);
+    }
+
+    @Override
+    public PublisherRxInvoker getRxInvoker(final SyncInvoker syncInvoker, final ExecutorService executorService) {
+        return new StreamingRxInvoker(syncInvoker,
+                executorService != null ? executorService : DefaultExecutor.INSTANCE,
+                this);
+    }
+
+    /**
+     * Get the decoder registered for an element type.
+     *
+     * @return registered decoder, or {@code null} if the elements are not decoded from text or are read
+     *         by a message body reader.
+     */
+    Function<String, ?> decoderFor(final Class<?> elementType) {
+        if (ByteBuffer.class.equals(elementType) || Response.class.equals(elementType)) {
+            return null;
+        }
+        return decoders.get(elementType);
+    }
+
+    Providers providers() {
+        return providers;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.rx;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.PublisherRxInvoker;
+import javax.ws.rs.client.SyncInvoker;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+/**
+ * {@link PublisherRxInvoker} issuing requests through a {@link SyncInvoker} and reading the entity on an executor.
+ */
+final class StreamingRxInvoker implements PublisherRxInvoker {
+
+    private final SyncInvoker syncInvoker;
+    private final Executor executor;
+    private final PublisherRxInvokerProvider provider;
+
+    StreamingRxInvoker(final SyncInvoker syncInvoker,
+                       final Executor executor,
+                       final PublisherRxInvokerProvider provider) {
+        this.syncInvoker = syncInvoker;
+        this.executor = executor;
+        this.provider = provider;
+    }
+
+    @Override
+    public Flow.Publisher<Response> get() {
+        return method(HttpMethod.GET);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> get(final Class<T> elementType) {
+        return method(HttpMethod.GET, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> get(final GenericType<T> elementType) {
+        return method(HttpMethod.GET, elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> put(final Entity<?> entity) {
+        return method(HttpMethod.PUT, entity);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> put(final Entity<?> entity, final Class<T> elementType) {
+        return method(HttpMethod.PUT, entity, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> put(final Entity<?> entity, final GenericType<T> elementType) {
+        return method(HttpMethod.PUT, entity, elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> post(final Entity<?> entity) {
+        return method(HttpMethod.POST, entity);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> post(final Entity<?> entity, final Class<T> elementType) {
+        return method(HttpMethod.POST, entity, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> post(final Entity<?> entity, final GenericType<T> elementType) {
+        return method(HttpMethod.POST, entity, elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> delete() {
+        return method(HttpMethod.DELETE);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> delete(final Class<T> elementType) {
+        return method(HttpMethod.DELETE, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> delete(final GenericType<T> elementType) {
+        return method(HttpMethod.DELETE, elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> head() {
+        return method(HttpMethod.HEAD);
+    }
+
+    @Override
+    public Flow.Publisher<Response> options() {
+        return method(HttpMethod.OPTIONS);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> options(final Class<T> elementType) {
+        return method(HttpMethod.OPTIONS, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> options(final GenericType<T> elementType) {
+        return method(HttpMethod.OPTIONS, elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> trace() {
+        return method("TRACE");
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> trace(final Class<T> elementType) {
+        return method("TRACE", elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> trace(final GenericType<T> elementType) {
+        return method("TRACE", elementType);
+    }
+
+    @Override
+    public Flow.Publisher<Response> method(final String name) {
+        return publisher(() -> syncInvoker.method(name), Response.class, Response.class);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> method(final String name, final Class<T> elementType) {
+        return publisher(() -> syncInvoker.method(name), elementType, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> method(final String name, final GenericType<T> elementType) {
+        return publisher(() -> syncInvoker.method(name), elementType.getRawType(), elementType.getType());
+    }
+
+    @Override
+    public Flow.Publisher<Response> method(final String name, final Entity<?> entity) {
+        return publisher(() -> syncInvoker.method(name, entity), Response.class, Response.class);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> method(final String name, final Entity<?> entity, final Class<T> elementType) {
+        return publisher(() -> syncInvoker.method(name, entity), elementType, elementType);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> method(final String name, final Entity<?> entity, final GenericType<T> elementType) {
+        return publisher(() -> syncInvoker.method(name, entity), elementType.getRawType(), elementType.getType());
+    }
+
+    private <T> Flow.Publisher<T> publisher(final Supplier<Response> request,
+                                            final Class<?> elementType,
+                                            final Type genericElementType) {
+        final Function<String, ?> decoder = provider.decoderFor(elementType);
+        return new EntityPublisher<>(request, elementType, genericElementType, decoder, provider.providers(),
+                executor);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.client.threads;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+/**
+ * Compares 10k concurrent blocking asynchronous client calls executed by a client configured with a bounded
+ * pool of platform threads with the same calls executed by a client built with
+ * {@link ClientBuilder#virtualThreads(boolean) virtual threads} enabled.
+ * <p>
+ * Usage: {@code BlockingCallsBenchmark [url]}. With a URL, each call is a {@code GET} of that URL; without it,
+ * each call is simulated by a request filter that blocks for 100 ms and aborts the request with a canned
+ * response. Either way the calls are issued through the {@link javax.ws.rs.client.AsyncInvoker asynchronous
+ * invoker}, so the blocking happens on the threads of the client. Running the benchmark requires a JAX-RS
+ * implementation on the class path; implementations running on a platform without virtual thread support
+ * (before Java 21) fall back to their default executor service in the second run.
+ */
+public final class BlockingCallsBenchmark {
+
+    private static final int CALLS = 10000;
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final long SIMULATED_LATENCY_MILLIS = 100;
+    private static final String SIMULATED_URL = "http://localhost/simulated";
+
+    private BlockingCallsBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final String url = args.length > 0 ? args[0] : null;
+
+        final ExecutorService pool = Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+        try {
+            run("platform threads (pool of " + PLATFORM_POOL_SIZE + ")",
+                    ClientBuilder.newBuilder().executorService(pool), url);
+        } finally {
+            pool.shutdown();
+        }
+
+        run("virtual threads", ClientBuilder.newBuilder().virtualThreads(true), url);
+    }
+
+    private static void run(final String name, final ClientBuilder builder, final String url) throws Exception {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        final Client client = builder.build();
+        try {
+            final WebTarget target;
+            if (url != null) {
+                target = client.target(url);
+            } else {
+                target = client.target(SIMULATED_URL).register(new SimulatedLatency());
+            }
+
+            final long start = System.nanoTime();
+            final List<Future<String>> futures = new ArrayList<>(CALLS);
+            for (int i = 0; i < CALLS; i++) {
+                futures.add(target.request().async().get(String.class));
+            }
+            for (Future<String> future : futures) {
+                future.get();
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            System.out.printf("%s: %d calls in %d ms (%.0f calls/s), peak platform threads %d%n",
+                    name, CALLS, elapsed, CALLS * 1000.0 / Math.max(1, elapsed), threads.getPeakThreadCount());
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * Request filter standing in for a server: blocks the invocation thread and aborts the request with
+     * a canned response.
+     */
+    private static final class SimulatedLatency implements ClientRequestFilter {
+
+        @Override
+        public void filter(final ClientRequestContext requestContext) throws IOException {
+            try {
+                Thread.sleep(SIMULATED_LATENCY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            requestContext.abortWith(Response.ok("simulated").build());
+        }
+    }
+}
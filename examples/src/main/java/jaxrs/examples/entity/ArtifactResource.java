@@ -0,0 +1,115 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.PUT;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.FileRegion;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Example of serving and uploading large artifacts without copying their content through the Java heap.
+ * <p>
+ * Downloads return a {@link FileRegion}, written with an exact {@code Content-Length} by the
+ * {@link FileRegionWriter}. Uploads use the same entity type on the client side, see {@link #upload(Client, Path)}.
+ * </p>
+ */
+@javax.ws.rs.Path("artifacts/{name}")
+public class ArtifactResource {
+
+    private static final Path REPOSITORY = Paths.get(System.getProperty("artifacts.dir", "artifacts"));
+
+    @PathParam("name")
+    private String name;
+
+    @GET
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public FileRegion download() throws IOException {
+        final Path artifact = artifact();
+        if (!Files.isRegularFile(artifact)) {
+            throw new NotFoundException();
+        }
+        return FileRegion.of(artifact);
+    }
+
+    @PUT
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public Response store(final InputStream content) throws IOException {
+        Files.copy(content, artifact(), StandardCopyOption.REPLACE_EXISTING);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Upload a local file as an artifact.
+     *
+     * @param client client with the {@link FileRegionWriter} registered.
+     * @param file   local file.
+     * @return upload response.
+     * @throws IOException in case the file size cannot be determined.
+     */
+    public static Response upload(final Client client, final Path file) throws IOException {
+        return client.target("http://localhost:8080/artifacts/{name}")
+                .resolveTemplate("name", file.getFileName().toString())
+                .request()
+                .put(Entity.entity(FileRegion.of(file), MediaType.APPLICATION_OCTET_STREAM_TYPE));
+    }
+
+    private Path artifact() {
+        final Path artifact = REPOSITORY.resolve(name).normalize();
+        if (!artifact.startsWith(REPOSITORY)) {
+            throw new NotFoundException();
+        }
+        return artifact;
+    }
+}
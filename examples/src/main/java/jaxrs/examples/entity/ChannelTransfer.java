@@ -0,0 +1,99 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.entity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import jaxrs.examples.buffer.DirectBufferPool;
+
+/**
+ * Channel transfer utilities shared by the channel based entity providers and other writers of file regions.
+ */
+public final class ChannelTransfer {
+
+    private ChannelTransfer() {
+    }
+
+    /**
+     * Get a channel writing to the entity stream.
+     * <p>
+     * A runtime backing the entity stream by a channel (e.g. one wrapping a socket channel) lets
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)} use {@code sendfile};
+     * any other stream is adapted by {@link Channels#newChannel(OutputStream)}.
+     * </p>
+     *
+     * @param entityStream entity output stream.
+     * @return channel writing to the entity stream.
+     */
+    public static WritableByteChannel target(final OutputStream entityStream) {
+        return entityStream instanceof WritableByteChannel
+                ? (WritableByteChannel) entityStream
+                : Channels.newChannel(entityStream);
+    }
+
+    /**
+     * Copy all remaining bytes of the source channel to the target channel through a pooled direct buffer.
+     *
+     * @param source source channel.
+     * @param target target channel.
+     * @return number of bytes copied.
+     * @throws IOException in case reading or writing fails.
+     */
+    static long copy(final ReadableByteChannel source, final WritableByteChannel target) throws IOException {
+        final DirectBufferPool pool = DirectBufferPool.shared();
+        final ByteBuffer buffer = pool.acquire();
+        try {
+            long copied = 0;
+            while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                copied += target.write(buffer);
+                buffer.compact();
+            }
+            return copied;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+
+/**
+ * Serializes entities once into {@link SerializedEntity} instances using the registered message body writers.
+ */
+public final class EntitySerializer {
+
+    private final Providers providers;
+
+    /**
+     * Create a new serializer.
+     *
+     * @param providers providers of the runtime, e.g. injected using {@link javax.ws.rs.core.Context &#64;Context}.
+     */
+    public EntitySerializer(final Providers providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * Serialize an entity.
+     *
+     * @param entity entity to serialize.
+     * @return serialized entity with the variant of the original entity.
+     * @throws IOException         in case writing the entity fails.
+     * @throws ProcessingException in case no message body writer supports the entity.
+     */
+    @SuppressWarnings("unchecked")
+    public SerializedEntity serialize(final Entity<?> entity) throws IOException {
+        Object instance = entity.getEntity();
+        Type genericType = instance.getClass();
+        if (instance instanceof GenericEntity) {
+            genericType = ((GenericEntity<?>) instance).getType();
+            instance = ((GenericEntity<?>) instance).getEntity();
+        }
+        final Class<Object> type = (Class<Object>) instance.getClass();
+
+        final MessageBodyWriter<Object> writer = providers.getMessageBodyWriter(
+                type, genericType, entity.getAnnotations(), entity.getMediaType());
+        if (writer == null) {
+            throw new ProcessingException("No message body writer for " + type.getName()
+                    + " and media type " + entity.getMediaType() + ".");
+        }
+
+        final long size = writer.getSize(instance, type, genericType, entity.getAnnotations(), entity.getMediaType());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE
+                ? (int) size : 512);
+        writer.writeTo(instance, type, genericType, entity.getAnnotations(), entity.getMediaType(),
+                new MultivaluedHashMap<String, Object>(), out);
+        return SerializedEntity.of(out.toByteArray(), entity.getVariant());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.entity;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.FanOut;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+
+/**
+ * Example of sending the same event to many webhooks and SSE subscribers, serializing it only once.
+ * <p>
+ * The event is serialized into a {@link SerializedEntity}; the requests to all webhooks, their retries and the
+ * broadcast SSE event all write the same bytes. A webhook is notified by a {@code 2xx} response. Failed requests
+ * and {@code 5xx} or {@code 429 Too Many Requests} responses are retried with an exponentially growing delay,
+ * starting at one second; other responses, e.g. {@code 404 Not Found}, are not retried.
+ * </p>
+ */
+public class WebhookNotifier {
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000;
+
+    private final Client client;
+    private final EntitySerializer serializer;
+    private final ScheduledExecutorService scheduler;
+    private final int maxAttempts;
+
+    public WebhookNotifier(final Client client,
+                           final EntitySerializer serializer,
+                           final ScheduledExecutorService scheduler,
+                           final int maxAttempts) {
+        this.client = client;
+        this.serializer = serializer;
+        this.scheduler = scheduler;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Post an event to all webhooks, retrying failed deliveries.
+     *
+     * @param webhooks webhook URIs.
+     * @param event    event entity.
+     * @return stage completed with the webhooks that could not be notified.
+     * @throws IOException in case the event cannot be serialized.
+     */
+    public CompletionStage<List<URI>> notify(final List<URI> webhooks, final Entity<?> event) throws IOException {
+        final Entity<SerializedEntity> body = Entity.serialized(serializer.serialize(event));
+        final List<Invocation> deliveries = new ArrayList<>(webhooks.size());
+        for (final URI webhook : webhooks) {
+            deliveries.add(client.target(webhook).request().buildPost(body));
+        }
+        return deliver(webhooks, deliveries, 1);
+    }
+
+    /**
+     * Create an SSE event carrying the serialized bytes of an event, to be broadcast to all sinks.
+     *
+     * @param sse   SSE entry point.
+     * @param name  event name.
+     * @param event serialized event.
+     * @return outbound SSE event.
+     */
+    public static OutboundSseEvent sseEvent(final Sse sse, final String name, final SerializedEntity event) {
+        return sse.newEventBuilder()
+                .name(name)
+                .mediaType(event.getMediaType())
+                .data(SerializedEntity.class, event)
+                .build();
+    }
+
+    private CompletionStage<List<URI>> deliver(final List<URI> webhooks,
+                                               final List<Invocation> deliveries,
+                                               final int attempt) {
+        return Invocation.fanOut(deliveries)
+                .parallelism(16)
+                .callTimeout(10, TimeUnit.SECONDS)
+                .scheduler(scheduler)
+                .submit(response -> {
+                    try {
+                        return response.getStatus();
+                    } finally {
+                        response.close();
+                    }
+                })
+                .thenCompose(result -> {
+                    final List<URI> failedWebhooks = new ArrayList<>();
+                    final List<URI> retriedWebhooks = new ArrayList<>();
+                    final List<Invocation> retries = new ArrayList<>();
+                    for (int i = 0; i < result.size(); i++) {
+                        if (result.isSuccess(i) && result.get(i) / 100 == 2) {
+                            continue;
+                        }
+                        if (!result.isSuccess(i) || result.get(i) >= 500 || result.get(i) == 429) {
+                            retriedWebhooks.add(webhooks.get(i));
+                            // invocations are reusable, the retry writes the same bytes again
+                            retries.add(deliveries.get(i));
+                        } else {
+                            // rejected by the webhook, e.g. 404 or 410: retrying does not help
+                            failedWebhooks.add(webhooks.get(i));
+                        }
+                    }
+                    if (retries.isEmpty() || attempt >= maxAttempts) {
+                        failedWebhooks.addAll(retriedWebhooks);
+                        return CompletableFuture.completedFuture(failedWebhooks);
+                    }
+                    return retryLater(retriedWebhooks, retries, attempt).thenApply(failed -> {
+                        failedWebhooks.addAll(failed);
+                        return failedWebhooks;
+                    });
+                });
+    }
+
+    private CompletionStage<List<URI>> retryLater(final List<URI> webhooks,
+                                                  final List<Invocation> deliveries,
+                                                  final int attempt) {
+        final long delay = Math.min(INITIAL_RETRY_DELAY_MILLIS << Math.min(attempt - 1, 16), MAX_RETRY_DELAY_MILLIS);
+        final CompletableFuture<List<URI>> retried = new CompletableFuture<>();
+        scheduler.schedule(() -> deliver(webhooks, deliveries, attempt + 1).whenComplete((failed, throwable) -> {
+            if (throwable != null) {
+                retried.completeExceptionally(throwable);
+            } else {
+                retried.complete(failed);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+        return retried;
+    }
+}
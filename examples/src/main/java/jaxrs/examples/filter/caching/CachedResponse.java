@@ -0,0 +1,166 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.caching;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Response stored by a {@link ResponseCache}: status, headers and serialized entity, together with the
+ * {@code Vary} request header values and principal the response was selected for.
+ */
+final class CachedResponse {
+
+    private final int status;
+    private final MultivaluedMap<String, String> headers;
+    private final byte[] entity;
+    private final EntityTag entityTag;
+    private final Date lastModified;
+    private final Map<String, List<String>> vary;
+    private final String principal;
+    private final long storedNanos;
+    private final long expiresNanos;
+
+    /**
+     * Create a new cached response.
+     *
+     * @param status       response status code.
+     * @param headers      response headers to replay, without {@code Content-Length}.
+     * @param entity       serialized entity, not copied.
+     * @param entityTag    entity tag of the response, may be {@code null}.
+     * @param lastModified last modification date of the response, may be {@code null}.
+     * @param vary         values of the request headers named by {@code Vary}, by lower case header name.
+     * @param principal    name of the principal the response is private to, {@code null} if shared.
+     * @param maxAge       freshness lifetime in seconds.
+     */
+    CachedResponse(final int status,
+                   final MultivaluedMap<String, String> headers,
+                   final byte[] entity,
+                   final EntityTag entityTag,
+                   final Date lastModified,
+                   final Map<String, List<String>> vary,
+                   final String principal,
+                   final int maxAge) {
+        this.status = status;
+        this.headers = headers;
+        this.entity = entity;
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.vary = vary;
+        this.principal = principal;
+        this.storedNanos = System.nanoTime();
+        this.expiresNanos = storedNanos + TimeUnit.SECONDS.toNanos(maxAge);
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    MultivaluedMap<String, String> getHeaders() {
+        return headers;
+    }
+
+    byte[] getEntity() {
+        return entity;
+    }
+
+    EntityTag getEntityTag() {
+        return entityTag;
+    }
+
+    Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Get the age of the response.
+     *
+     * @return seconds since the response was stored.
+     */
+    long getAge() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - storedNanos);
+    }
+
+    boolean isFresh() {
+        return System.nanoTime() - expiresNanos < 0;
+    }
+
+    /**
+     * Check whether the response was selected for a request with the given headers and principal.
+     *
+     * @param requestHeaders request headers.
+     * @param requestPrincipal name of the request principal, {@code null} if not authenticated.
+     * @return {@code true} if the response matches the request.
+     */
+    boolean matches(final MultivaluedMap<String, String> requestHeaders, final String requestPrincipal) {
+        if (principal != null && !principal.equals(requestPrincipal)) {
+            return false;
+        }
+        for (Map.Entry<String, List<String>> header : vary.entrySet()) {
+            if (!header.getValue().equals(valuesOf(requestHeaders, header.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long size() {
+        // the entity dominates; headers are approximated by a fixed overhead
+        return entity.length + 512;
+    }
+
+    /**
+     * Get the values of a request header as compared for {@code Vary}.
+     *
+     * @param requestHeaders request headers.
+     * @param name header name.
+     * @return header values, empty if the header is absent.
+     */
+    static List<String> valuesOf(final MultivaluedMap<String, String> requestHeaders, final String name) {
+        final List<String> values = requestHeaders.get(name);
+        return values != null ? values : Collections.<String>emptyList();
+    }
+}
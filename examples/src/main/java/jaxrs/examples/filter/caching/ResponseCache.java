@@ -0,0 +1,261 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.caching;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Server-side store of serialized responses, used by the {@link ServerCachingFilter}.
+ * <p>
+ * Responses are stored by request URI, each URI having one response per combination of {@code Vary} request
+ * header values and principal. The cache is bounded by the number of stored bytes; the responses of the least
+ * recently used URIs are evicted first. Responses larger than the entry limit are not stored, which also bounds
+ * the memory used to capture each response entity before it is stored. Hits, misses and evictions are counted.
+ * </p>
+ */
+public final class ResponseCache {
+
+    /**
+     * Default maximum number of stored bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes of a single stored response.
+     */
+    public static final long DEFAULT_MAX_ENTRY_BYTES = 256 * 1024;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, List<CachedResponse>> responses = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a new cache bounded to {@link #DEFAULT_MAX_BYTES}, storing responses up to
+     * {@link #DEFAULT_MAX_ENTRY_BYTES}.
+     */
+    public ResponseCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a new cache storing responses up to {@link #DEFAULT_MAX_ENTRY_BYTES}, or up to the maximum number of
+     * stored bytes if lower.
+     *
+     * @param maxBytes maximum number of stored bytes.
+     */
+    public ResponseCache(final long maxBytes) {
+        this(maxBytes, Math.min(maxBytes, DEFAULT_MAX_ENTRY_BYTES));
+    }
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxBytes      maximum number of stored bytes.
+     * @param maxEntryBytes maximum number of bytes of a single stored response.
+     */
+    public ResponseCache(final long maxBytes, final long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+    }
+
+    /**
+     * Get the maximum number of stored bytes.
+     *
+     * @return maximum number of stored bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the maximum number of bytes of a single stored response.
+     *
+     * @return maximum number of bytes of a stored response.
+     */
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Look up a fresh response, counting a hit or a miss. Stale responses of the URI are removed.
+     *
+     * @param uri            request URI.
+     * @param requestHeaders request headers.
+     * @param principal      name of the request principal, {@code null} if not authenticated.
+     * @return matching fresh response, or {@code null}.
+     */
+    synchronized CachedResponse get(final String uri,
+                                    final MultivaluedMap<String, String> requestHeaders,
+                                    final String principal) {
+        final List<CachedResponse> variants = responses.get(uri);
+        if (variants != null) {
+            final Iterator<CachedResponse> iterator = variants.iterator();
+            while (iterator.hasNext()) {
+                final CachedResponse response = iterator.next();
+                if (!response.isFresh()) {
+                    bytes -= response.size();
+                    iterator.remove();
+                } else if (response.matches(requestHeaders, principal)) {
+                    hits++;
+                    return response;
+                }
+            }
+            if (variants.isEmpty()) {
+                responses.remove(uri);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Store a response, replacing a stored response selected for the same request headers and principal.
+     *
+     * @param uri            request URI.
+     * @param requestHeaders headers of the request the response was selected for.
+     * @param principal      name of the request principal, {@code null} if not authenticated.
+     * @param response       response to store.
+     */
+    synchronized void put(final String uri,
+                          final MultivaluedMap<String, String> requestHeaders,
+                          final String principal,
+                          final CachedResponse response) {
+        if (response.size() > maxEntryBytes) {
+            return;
+        }
+        List<CachedResponse> variants = responses.get(uri);
+        if (variants == null) {
+            variants = new ArrayList<>(1);
+            responses.put(uri, variants);
+        }
+        final Iterator<CachedResponse> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            final CachedResponse stored = iterator.next();
+            if (stored.matches(requestHeaders, principal) || !stored.isFresh()) {
+                bytes -= stored.size();
+                iterator.remove();
+            }
+        }
+        variants.add(response);
+        bytes += response.size();
+
+        final Iterator<List<CachedResponse>> eldest = responses.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            final List<CachedResponse> evicted = eldest.next();
+            if (evicted == variants) {
+                continue;
+            }
+            for (CachedResponse stored : evicted) {
+                bytes -= stored.size();
+                evictions++;
+            }
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Remove all stored responses of a request URI, e.g. after the resource has been modified.
+     *
+     * @param uri request URI.
+     */
+    public synchronized void invalidate(final String uri) {
+        final List<CachedResponse> variants = responses.remove(uri);
+        if (variants != null) {
+            for (CachedResponse stored : variants) {
+                bytes -= stored.size();
+            }
+        }
+    }
+
+    /**
+     * Get the number of stored bytes.
+     *
+     * @return stored bytes.
+     */
+    public synchronized long size() {
+        return bytes;
+    }
+
+    /**
+     * Get the number of lookups answered with a stored response.
+     *
+     * @return number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups not answered with a stored response.
+     *
+     * @return number of misses.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Get the number of responses evicted to stay within the byte bound.
+     *
+     * @return number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Get the ratio of hits to lookups.
+     *
+     * @return hit ratio between {@code 0} and {@code 1}, {@code 0} before the first lookup.
+     */
+    public synchronized double getHitRatio() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
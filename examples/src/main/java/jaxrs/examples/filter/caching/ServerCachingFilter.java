@@ -40,37 +40,391 @@
 
 package jaxrs.examples.filter.caching;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.Priorities;
-import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
 
 import javax.annotation.Priority;
 
 /**
- * ServerCachingFilter class.
+ * Server-side response cache.
+ * <p>
+ * Responses to {@code GET} requests that carry a {@code Cache-Control} header with a positive {@code s-maxage}
+ * or {@code max-age} are stored in a {@link ResponseCache}, unless marked {@code no-store} or {@code no-cache},
+ * or setting a cookie. The entity is stored as the bytes written by the message body writer, captured by the
+ * writer interceptor role of this filter. Since the interceptor has a lower priority than entity coders (its
+ * priority value is higher), it runs inside them: the identity bytes are stored and a content coding is applied
+ * again when the stored response is replayed.
+ * </p>
+ * <p>
+ * Stored responses are selected by request URI, the values of the request headers named by {@code Vary} and,
+ * where needed, the principal: responses marked {@code private}, and responses to authenticated requests that
+ * are not explicitly shareable by {@code s-maxage} or {@code must-revalidate}, are only replayed to the same
+ * principal. Matching {@code GET} and {@code HEAD} requests are answered by
+ * {@link ContainerRequestContext#abortWith(Response) aborting} the request with the stored response, or with
+ * {@code 304 Not Modified} in case the preconditions of a conditional request are not met. Requests with a
+ * {@code no-cache} directive skip the lookup; requests with a {@code no-store} directive skip the cache.
+ * </p>
+ * <p>
+ * A successful or redirected response to an unsafe request, e.g. {@code PUT}, {@code POST} or {@code DELETE},
+ * invalidates the stored responses of the request URI and of the same-origin URIs in its {@code Location} and
+ * {@code Content-Location} headers.
+ * </p>
  *
  * @author Santiago Pericas-Geertsen
  */
 @Provider
 @Priority(Priorities.USER)
-public class ServerCachingFilter implements ContainerRequestFilter {
+public class ServerCachingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String HIT_PROPERTY = ServerCachingFilter.class.getName() + ".hit";
+    private static final String PENDING_PROPERTY = ServerCachingFilter.class.getName() + ".pending";
+    private static final Set<String> UNCACHED_HEADERS = new HashSet<>(Arrays.asList(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.DATE.toLowerCase(), "age"));
+    private static final Set<String> SAFE_METHODS = new HashSet<>(Arrays.asList(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, "TRACE"));
+    private static final String[] NOT_MODIFIED_HEADERS = {
+            HttpHeaders.CACHE_CONTROL, HttpHeaders.CONTENT_LOCATION, HttpHeaders.EXPIRES, HttpHeaders.VARY
+    };
+
+    private final ResponseCache cache;
+
+    public ServerCachingFilter() {
+        this(new ResponseCache());
+    }
+
+    public ServerCachingFilter(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get the cache storing the responses, e.g. to read its hit ratio.
+     *
+     * @return response cache.
+     */
+    public ResponseCache getCache() {
+        return cache;
+    }
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
-        Response.ResponseBuilder res = getCachedResponse(requestContext);
-        if (res != null) {
+        final String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)
+                || hasDirective(requestContext.getHeaders(), "no-store")
+                || hasDirective(requestContext.getHeaders(), "no-cache")) {
+            return;
+        }
+        final CachedResponse cached = cache.get(requestContext.getUriInfo().getRequestUri().toString(),
+                requestContext.getHeaders(), principal(requestContext));
+        if (cached != null) {
+            requestContext.setProperty(HIT_PROPERTY, Boolean.TRUE);
             // stop the filter chain
-            throw new WebApplicationException(res.build());
+            requestContext.abortWith(replay(requestContext.getRequest(), cached).build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        if (!SAFE_METHODS.contains(requestContext.getMethod())) {
+            final Response.Status.Family family = responseContext.getStatusInfo().getFamily();
+            if (family == Response.Status.Family.SUCCESSFUL || family == Response.Status.Family.REDIRECTION) {
+                invalidate(requestContext, responseContext);
+            }
+            return;
+        }
+        if (requestContext.getProperty(HIT_PROPERTY) != null
+                || !HttpMethod.GET.equals(requestContext.getMethod())
+                || responseContext.getStatus() != Response.Status.OK.getStatusCode()
+                || hasDirective(requestContext.getHeaders(), "no-store")) {
+            return;
+        }
+        final MultivaluedMap<String, String> responseHeaders = responseContext.getStringHeaders();
+        final CacheControl cacheControl =
+                cacheControl(responseContext.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+        if (cacheControl == null || cacheControl.isNoStore() || cacheControl.isNoCache()
+                || responseHeaders.containsKey(HttpHeaders.SET_COOKIE)) {
+            return;
+        }
+        final int maxAge = cacheControl.getSMaxAge() >= 0 ? cacheControl.getSMaxAge() : cacheControl.getMaxAge();
+        final Map<String, List<String>> vary = vary(responseHeaders.get(HttpHeaders.VARY), requestContext);
+        if (maxAge <= 0 || vary == null) {
+            return;
+        }
+
+        final String principal = principal(requestContext);
+        final boolean shared = !cacheControl.isPrivate()
+                && (principal == null || cacheControl.getSMaxAge() >= 0 || cacheControl.isMustRevalidate());
+        if (!shared && principal == null) {
+            return;
+        }
+
+        final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            if (!UNCACHED_HEADERS.contains(header.getKey().toLowerCase())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        final Pending pending = new Pending(requestContext, shared ? null : principal, headers,
+                responseContext.getEntityTag(), responseContext.getLastModified(), vary, maxAge);
+        if (responseContext.hasEntity()) {
+            requestContext.setProperty(PENDING_PROPERTY, pending);
+        } else {
+            pending.store(new byte[0]);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext ctx) throws IOException {
+        final Pending pending = (Pending) ctx.getProperty(PENDING_PROPERTY);
+        if (pending == null) {
+            ctx.proceed();
+            return;
+        }
+        ctx.removeProperty(PENDING_PROPERTY);
+        final OutputStream old = ctx.getOutputStream();
+        final CapturingOutputStream capturingOutputStream = new CapturingOutputStream(old, cache.getMaxEntryBytes());
+        ctx.setOutputStream(capturingOutputStream);
+        try {
+            ctx.proceed();
+        } finally {
+            ctx.setOutputStream(old);
+        }
+        final byte[] entity = capturingOutputStream.getCaptured();
+        if (entity != null) {
+            pending.store(entity);
+        }
+    }
+
+    /**
+     * Invalidate the stored responses of the request URI and of the URIs in the {@code Location} and
+     * {@code Content-Location} headers, as required by RFC 7234, section 4.4. Header URIs of other origins are
+     * ignored, so that a response cannot invalidate the responses of another host.
+     */
+    private void invalidate(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        final URI requestUri = requestContext.getUriInfo().getRequestUri();
+        cache.invalidate(requestUri.toString());
+        final MultivaluedMap<String, String> headers = responseContext.getStringHeaders();
+        for (String name : new String[] {HttpHeaders.LOCATION, HttpHeaders.CONTENT_LOCATION}) {
+            final String value = headers.getFirst(name);
+            if (value == null) {
+                continue;
+            }
+            final URI uri;
+            try {
+                uri = requestUri.resolve(value.trim());
+            } catch (IllegalArgumentException e) {
+                // invalid URIs are ignored
+                continue;
+            }
+            if (Objects.equals(uri.getScheme(), requestUri.getScheme())
+                    && Objects.equals(uri.getRawAuthority(), requestUri.getRawAuthority())) {
+                cache.invalidate(uri.toString());
+            }
+        }
+    }
+
+    private static Response.ResponseBuilder replay(Request request, CachedResponse cached) {
+        final Response.ResponseBuilder notModified = evaluatePreconditions(request, cached);
+        final Response.ResponseBuilder builder;
+        if (notModified != null) {
+            builder = notModified;
+            for (String name : NOT_MODIFIED_HEADERS) {
+                final List<String> values = cached.getHeaders().get(name);
+                if (values != null) {
+                    for (String value : values) {
+                        builder.header(name, value);
+                    }
+                }
+            }
+            if (cached.getEntityTag() != null) {
+                builder.tag(cached.getEntityTag());
+            }
+        } else {
+            builder = Response.status(cached.getStatus()).entity(cached.getEntity());
+            for (Map.Entry<String, List<String>> header : cached.getHeaders().entrySet()) {
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), value);
+                }
+            }
         }
+        return builder.header("Age", cached.getAge());
     }
 
-    private Response.ResponseBuilder getCachedResponse(ContainerRequestContext requestContext) {
-        // implemetation goes here
+    private static Response.ResponseBuilder evaluatePreconditions(Request request, CachedResponse cached) {
+        final EntityTag eTag = cached.getEntityTag();
+        final Date lastModified = cached.getLastModified();
+        if (eTag != null && lastModified != null) {
+            return request.evaluatePreconditions(lastModified, eTag);
+        } else if (eTag != null) {
+            return request.evaluatePreconditions(eTag);
+        } else if (lastModified != null) {
+            return request.evaluatePreconditions(lastModified);
+        }
         return null;
     }
+
+    private static CacheControl cacheControl(Object value) {
+        if (value == null || value instanceof CacheControl) {
+            return (CacheControl) value;
+        }
+        try {
+            return CacheControl.valueOf(value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the request header values the response varies by.
+     *
+     * @return values by header name, or {@code null} if the response varies by {@code *}.
+     */
+    private static Map<String, List<String>> vary(List<String> varyHeaders, ContainerRequestContext requestContext) {
+        final Map<String, List<String>> vary = new LinkedHashMap<>();
+        if (varyHeaders != null) {
+            for (String value : varyHeaders) {
+                for (String name : value.split(",")) {
+                    final String trimmed = name.trim();
+                    if ("*".equals(trimmed)) {
+                        return null;
+                    } else if (!trimmed.isEmpty()) {
+                        vary.put(trimmed, CachedResponse.valuesOf(requestContext.getHeaders(), trimmed));
+                    }
+                }
+            }
+        }
+        return vary;
+    }
+
+    private static boolean hasDirective(MultivaluedMap<String, String> requestHeaders, String directive) {
+        final List<String> values = requestHeaders.get(HttpHeaders.CACHE_CONTROL);
+        if (values != null) {
+            for (String value : values) {
+                for (String token : value.split(",")) {
+                    if (directive.equalsIgnoreCase(token.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return "no-cache".equals(directive) && values == null
+                && "no-cache".equalsIgnoreCase(requestHeaders.getFirst("Pragma"));
+    }
+
+    private static String principal(ContainerRequestContext requestContext) {
+        final Principal principal = requestContext.getSecurityContext() != null
+                ? requestContext.getSecurityContext().getUserPrincipal()
+                : null;
+        return principal != null ? principal.getName() : null;
+    }
+
+    /**
+     * Response waiting for its entity to be written before it is stored.
+     */
+    private final class Pending {
+
+        private final String uri;
+        private final MultivaluedMap<String, String> requestHeaders;
+        private final String principal;
+        private final MultivaluedMap<String, String> headers;
+        private final EntityTag entityTag;
+        private final Date lastModified;
+        private final Map<String, List<String>> vary;
+        private final int maxAge;
+
+        private Pending(ContainerRequestContext requestContext, String principal,
+                        MultivaluedMap<String, String> headers, EntityTag entityTag, Date lastModified,
+                        Map<String, List<String>> vary, int maxAge) {
+            this.uri = requestContext.getUriInfo().getRequestUri().toString();
+            this.requestHeaders = requestContext.getHeaders();
+            this.principal = principal;
+            this.headers = headers;
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.vary = vary;
+            this.maxAge = maxAge;
+        }
+
+        private void store(byte[] entity) {
+            cache.put(uri, requestHeaders, principal, new CachedResponse(Response.Status.OK.getStatusCode(),
+                    headers, entity, entityTag, lastModified, vary, principal, maxAge));
+        }
+    }
+
+    /**
+     * Stream copying the written bytes up to a limit.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+
+        private final long limit;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        private CapturingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (captured != null) {
+                captured.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (captured != null) {
+                captured.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        /**
+         * Get the captured bytes.
+         *
+         * @return captured bytes, or {@code null} if the limit has been exceeded.
+         */
+        private byte[] getCaptured() {
+            return captured != null ? captured.toByteArray() : null;
+        }
+
+        private void checkLimit() {
+            if (captured.size() > limit) {
+                // too large to be stored, stop copying
+                captured = null;
+            }
+        }
+    }
 }
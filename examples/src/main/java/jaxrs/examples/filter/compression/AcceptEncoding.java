@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parsed value of an {@code Accept-Encoding} request header.
+ * <p>
+ * Implements the content coding negotiation rules of HTTP: a coding is acceptable if it is listed with a non-zero
+ * quality value or matched by a non-zero {@code *}; {@code identity} is acceptable unless explicitly excluded
+ * by {@code identity;q=0} or by {@code *;q=0} without an {@code identity} entry.
+ * </p>
+ */
+public final class AcceptEncoding {
+
+    private static final AcceptEncoding ABSENT = new AcceptEncoding(null);
+
+    private final String[] codings;
+    private final double[] qualities;
+    private final boolean present;
+
+    private AcceptEncoding(final List<String> values) {
+        this.present = values != null && !values.isEmpty();
+        int count = 0;
+        if (present) {
+            for (final String value : values) {
+                count += value.split(",").length;
+            }
+        }
+        codings = new String[count];
+        qualities = new double[count];
+        int i = 0;
+        if (present) {
+            for (final String value : values) {
+                for (final String element : value.split(",")) {
+                    parseElement(element, i++);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse the values of the {@code Accept-Encoding} headers of a request.
+     *
+     * @param values header values, {@code null} or empty in case the header is absent.
+     * @return parsed header.
+     */
+    public static AcceptEncoding parse(final List<String> values) {
+        return values == null || values.isEmpty() ? ABSENT : new AcceptEncoding(values);
+    }
+
+    /**
+     * Get the quality value of a content coding.
+     *
+     * @param coding content coding, e.g. {@code gzip}.
+     * @return quality value between {@code 0} (not acceptable) and {@code 1}.
+     */
+    public double quality(final String coding) {
+        if (!present) {
+            // no header: any coding is acceptable, identity is preferred
+            return "identity".equalsIgnoreCase(coding) ? 1.0 : 0.001;
+        }
+        double wildcard = -1;
+        for (int i = 0; i < codings.length; i++) {
+            if (codings[i] == null) {
+                continue;
+            }
+            if (codings[i].equals(coding) || ("x-gzip".equals(codings[i]) && "gzip".equals(coding))) {
+                return qualities[i];
+            }
+            if ("*".equals(codings[i])) {
+                wildcard = qualities[i];
+            }
+        }
+        if (wildcard >= 0) {
+            return wildcard;
+        }
+        return "identity".equals(coding) ? 1.0 : 0;
+    }
+
+    /**
+     * Check whether the client accepts gzip and does not prefer the identity coding over it.
+     *
+     * @return {@code true} in case the response should be gzip encoded.
+     */
+    public boolean prefersGzip() {
+        final double gzip = quality("gzip");
+        return gzip > 0 && gzip >= quality("identity");
+    }
+
+    /**
+     * Check whether the client accepts the identity coding, i.e. an uncompressed response.
+     *
+     * @return {@code true} in case the identity coding is acceptable.
+     */
+    public boolean acceptsIdentity() {
+        return quality("identity") > 0;
+    }
+
+    private void parseElement(final String element, final int index) {
+        final String[] parts = element.split(";");
+        final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+        if (coding.isEmpty()) {
+            return;
+        }
+        double quality = 1.0;
+        for (int p = 1; p < parts.length; p++) {
+            final String parameter = parts[p].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    quality = Math.max(0, Math.min(1, Double.parseDouble(parameter.substring(2).trim())));
+                } catch (NumberFormatException e) {
+                    // invalid weight, ignore the element
+                    return;
+                }
+            }
+        }
+        codings[index] = coding;
+        qualities[index] = quality;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of {@link Deflater} and {@link Inflater} instances.
+ * <p>
+ * Each instance holds native zlib state that is expensive to allocate and only reclaimed on {@code end()} or
+ * finalization. A bounded pool (rather than a thread-local cache) keeps the number of instances proportional to
+ * the number of concurrently encoded messages, also when messages are processed on virtual threads. Instances
+ * returned to a full pool are ended.
+ * </p>
+ * <p>
+ * All instances use raw deflate ({@code nowrap}), the gzip framing is written by the gzip streams.
+ * </p>
+ */
+public final class CodecPool {
+
+    private static final CodecPool SHARED = new CodecPool(2 * Runtime.getRuntime().availableProcessors());
+
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+
+    /**
+     * Create a new pool.
+     *
+     * @param capacity maximum number of idle deflaters and of idle inflaters retained by the pool.
+     */
+    public CodecPool(final int capacity) {
+        deflaters = new ArrayBlockingQueue<>(capacity);
+        inflaters = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Get the pool shared by the examples.
+     *
+     * @return shared pool.
+     */
+    public static CodecPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Borrow a deflater.
+     *
+     * @param level compression level.
+     * @return reset raw deflater using the given level.
+     */
+    public Deflater acquireDeflater(final int level) {
+        final Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            return new Deflater(level, true);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * Return a deflater to the pool.
+     *
+     * @param deflater deflater borrowed from this pool.
+     */
+    public void release(final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Borrow an inflater.
+     *
+     * @return reset raw inflater.
+     */
+    public Inflater acquireInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    /**
+     * Return an inflater to the pool.
+     *
+     * @param inflater inflater borrowed from this pool.
+     */
+    public void release(final Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Compression levels per media type.
+ * <p>
+ * Levels are matched in the order they were added; media types with a level of {@link Deflater#NO_COMPRESSION}
+ * are not compressed at all. By default text and structured data (JSON, XML, JavaScript) are compressed using the
+ * default level, already compressed formats (images, audio, video, archives) are not compressed and other types
+ * are compressed using the default level.
+ * </p>
+ */
+public final class CompressionLevels {
+
+    private final List<MediaType> mediaTypes = new ArrayList<>();
+    private final List<Integer> levels = new ArrayList<>();
+    private int defaultLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Create compression levels with the defaults for common media types.
+     *
+     * @return compression levels.
+     */
+    public static CompressionLevels defaults() {
+        return new CompressionLevels()
+                .level(new MediaType("image", MediaType.MEDIA_TYPE_WILDCARD), Deflater.NO_COMPRESSION)
+                .level(new MediaType("audio", MediaType.MEDIA_TYPE_WILDCARD), Deflater.NO_COMPRESSION)
+                .level(new MediaType("video", MediaType.MEDIA_TYPE_WILDCARD), Deflater.NO_COMPRESSION)
+                .level(new MediaType("application", "zip"), Deflater.NO_COMPRESSION)
+                .level(new MediaType("application", "gzip"), Deflater.NO_COMPRESSION)
+                .level(new MediaType("application", "x-gzip"), Deflater.NO_COMPRESSION)
+                .level(new MediaType("application", "octet-stream"), Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Set the compression level of a media type, possibly with wildcards.
+     *
+     * @param mediaType media type.
+     * @param level     compression level, {@link Deflater#NO_COMPRESSION} to disable compression.
+     * @return updated compression levels.
+     */
+    public CompressionLevels level(final MediaType mediaType, final int level) {
+        checkLevel(level);
+        mediaTypes.add(mediaType);
+        levels.add(level);
+        return this;
+    }
+
+    /**
+     * Set the compression level of media types without an explicit level.
+     *
+     * @param level compression level, {@link Deflater#NO_COMPRESSION} to disable compression.
+     * @return updated compression levels.
+     */
+    public CompressionLevels defaultLevel(final int level) {
+        checkLevel(level);
+        this.defaultLevel = level;
+        return this;
+    }
+
+    /**
+     * Get the compression level of a media type.
+     *
+     * @param mediaType media type of the entity, may be {@code null}.
+     * @return compression level, {@link Deflater#NO_COMPRESSION} if the entity should not be compressed.
+     */
+    public int levelOf(final MediaType mediaType) {
+        if (mediaType != null) {
+            for (int i = 0; i < mediaTypes.size(); i++) {
+                if (mediaTypes.get(i).isCompatible(mediaType)) {
+                    return levels.get(i);
+                }
+            }
+        }
+        return defaultLevel;
+    }
+
+    private static void checkLevel(final int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+    }
+}
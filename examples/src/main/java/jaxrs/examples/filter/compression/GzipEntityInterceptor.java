@@ -43,11 +43,18 @@ package jaxrs.examples.filter.compression;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 import javax.ws.rs.ext.WriterInterceptor;
@@ -57,6 +64,18 @@ import javax.annotation.Priority;
 
 /**
  * Example of GZIP entity interceptor.
+ * <p>
+ * Entities with a {@code gzip} (or {@code x-gzip}) {@code Content-Encoding} are decoded when read. When writing a
+ * response, the entity is compressed if the client prefers {@code gzip} according to the quality values of its
+ * {@code Accept-Encoding} header, the media type is compressible according to the configured
+ * {@link CompressionLevels compression levels} and the entity is larger than the threshold. The size of the
+ * entity is taken from {@link MessageBodyWriter#getSize} where known; otherwise the first bytes of the entity are
+ * held back until the threshold is reached. A request entity (on the client) is compressed in case its
+ * {@code Content-Encoding} header has been set to {@code gzip}.
+ * </p>
+ * <p>
+ * Native zlib state is reused through a {@link CodecPool}.
+ * </p>
  *
  * @author Santiago Pericas-Geertsen
  */
@@ -65,45 +84,198 @@ import javax.annotation.Priority;
 @Priority(Priorities.ENTITY_CODER)
 public class GzipEntityInterceptor implements ReaderInterceptor, WriterInterceptor {
 
+    /**
+     * Default minimal size of compressed entities in bytes. Smaller entities hardly shrink and are not worth
+     * the CPU time.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final CodecPool pool;
+    private final CompressionLevels levels;
+    private final int threshold;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Context
+    private Providers providers;
+
+    public GzipEntityInterceptor() {
+        this(CodecPool.shared(), CompressionLevels.defaults(), DEFAULT_THRESHOLD);
+    }
+
+    public GzipEntityInterceptor(CodecPool pool, CompressionLevels levels, int threshold) {
+        this.pool = pool;
+        this.levels = levels;
+        this.threshold = threshold;
+    }
+
     @Override
     public Object aroundReadFrom(ReaderInterceptorContext ctx) throws IOException {
-        if (!gzipEncoded(ctx)) {
+        final List<String> encodings = ctx.getHeaders().get(HttpHeaders.CONTENT_ENCODING);
+        if (!gzipEncoded(encodings)) {
             return ctx.proceed();
         } else {
+            final List<String> original = new ArrayList<>(encodings);
             InputStream old = ctx.getInputStream();
-            ctx.setInputStream(new GZIPInputStream(old));
+            PooledGzipInputStream gzipInputStream = new PooledGzipInputStream(old, pool);
+            ctx.setInputStream(gzipInputStream);
+            // the entity is no longer gzip encoded for the following interceptors and the reader
+            final List<String> remaining = withoutLastCoding(original);
+            if (remaining.isEmpty()) {
+                ctx.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            } else {
+                ctx.getHeaders().put(HttpHeaders.CONTENT_ENCODING, remaining);
+            }
+            Object entity = null;
             try {
-                return ctx.proceed();
+                entity = ctx.proceed();
+                return entity;
             } finally {
                 ctx.setInputStream(old);
+                ctx.getHeaders().put(HttpHeaders.CONTENT_ENCODING, original);
+                if (!(entity instanceof InputStream)) {
+                    // unless the stream itself is the entity, reading is done
+                    gzipInputStream.release();
+                }
             }
         }
     }
 
     @Override
     public void aroundWriteTo(WriterInterceptorContext ctx) throws IOException {
-        if (!acceptsGzip(ctx)) {
+        if (ctx.getEntity() instanceof SerializedEntity) {
+            // already serialized, and pre-compressed where worthwhile, e.g. by a RepresentationCache
+            ctx.proceed();
+            return;
+        }
+        final MultivaluedMap<String, Object> headers = ctx.getHeaders();
+        final Object contentEncoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            if (isGzip(contentEncoding.toString())) {
+                // explicitly requested, e.g. for a client request entity
+                writeCompressed(ctx, compressionLevel(ctx));
+            } else {
+                ctx.proceed();
+            }
+            return;
+        }
+        final int level = compressionLevel(ctx);
+        if (requestHeaders == null || level == Deflater.NO_COMPRESSION) {
+            ctx.proceed();
+            return;
+        }
+
+        // the representation depends on Accept-Encoding, whether compressed or not
+        addVary(headers);
+        if (!acceptsGzip(requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING))) {
             ctx.proceed();
+            return;
+        }
+        final long size = knownSize(ctx, providers);
+        if (size >= 0 && size < threshold) {
+            ctx.proceed();
+        } else if (size >= 0) {
+            writeCompressed(ctx, level);
         } else {
             OutputStream old = ctx.getOutputStream();
-            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(old);
-            ctx.setOutputStream(gzipOutputStream);
+            ThresholdGzipOutputStream thresholdOutputStream =
+                    new ThresholdGzipOutputStream(old, headers, pool, level, threshold);
+            ctx.setOutputStream(thresholdOutputStream);
             try {
                 ctx.proceed();
+                thresholdOutputStream.finish();
             } finally {
-                gzipOutputStream.finish();
+                thresholdOutputStream.release();
                 ctx.setOutputStream(old);
             }
         }
     }
 
-    private boolean acceptsGzip(WriterInterceptorContext ctx) {
-        // implementation goes here
-        return true;
+    private void writeCompressed(WriterInterceptorContext ctx, int level) throws IOException {
+        ctx.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        ctx.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        OutputStream old = ctx.getOutputStream();
+        PooledGzipOutputStream gzipOutputStream = new PooledGzipOutputStream(old, pool, level);
+        ctx.setOutputStream(gzipOutputStream);
+        try {
+            ctx.proceed();
+            gzipOutputStream.finish();
+        } finally {
+            gzipOutputStream.release();
+            ctx.setOutputStream(old);
+        }
     }
 
-    private boolean gzipEncoded(ReaderInterceptorContext ctx) {
-        // implementation goes here
-        return true;
+    private int compressionLevel(WriterInterceptorContext ctx) {
+        return levels.levelOf(ctx.getMediaType());
+    }
+
+    @SuppressWarnings("unchecked")
+    static long knownSize(WriterInterceptorContext ctx, Providers providers) {
+        final Object contentLength = ctx.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength.toString().trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        if (providers == null) {
+            return -1;
+        }
+        final MessageBodyWriter<Object> writer = (MessageBodyWriter<Object>) providers.getMessageBodyWriter(
+                ctx.getType(), ctx.getGenericType(), ctx.getAnnotations(), ctx.getMediaType());
+        return writer == null
+                ? -1
+                : writer.getSize(ctx.getEntity(), ctx.getType(), ctx.getGenericType(), ctx.getAnnotations(),
+                        ctx.getMediaType());
+    }
+
+    private boolean acceptsGzip(List<String> acceptEncoding) {
+        return AcceptEncoding.parse(acceptEncoding).prefersGzip();
+    }
+
+    private boolean gzipEncoded(List<String> contentEncodings) {
+        // only the last applied coding can be decoded first
+        final String last = lastCoding(contentEncodings);
+        return last != null && isGzip(last);
+    }
+
+    private static boolean isGzip(String coding) {
+        final String trimmed = coding.trim();
+        return "gzip".equalsIgnoreCase(trimmed) || "x-gzip".equalsIgnoreCase(trimmed);
+    }
+
+    private static String lastCoding(List<String> contentEncodings) {
+        if (contentEncodings == null || contentEncodings.isEmpty()) {
+            return null;
+        }
+        final String value = contentEncodings.get(contentEncodings.size() - 1);
+        return value.substring(value.lastIndexOf(',') + 1);
+    }
+
+    private static List<String> withoutLastCoding(List<String> contentEncodings) {
+        final List<String> remaining = new ArrayList<>(contentEncodings);
+        final String last = remaining.remove(remaining.size() - 1);
+        final int comma = last.lastIndexOf(',');
+        if (comma > 0) {
+            remaining.add(last.substring(0, comma).trim());
+        }
+        return remaining;
+    }
+
+    static void addVary(MultivaluedMap<String, Object> headers) {
+        final List<Object> vary = headers.get(HttpHeaders.VARY);
+        if (vary != null) {
+            for (Object value : vary) {
+                for (String name : value.toString().split(",")) {
+                    if (HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name.trim()) || "*".equals(name.trim())) {
+                        return;
+                    }
+                }
+            }
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
     }
 }
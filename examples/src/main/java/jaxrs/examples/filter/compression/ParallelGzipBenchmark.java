@@ -0,0 +1,166 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares the throughput of a single-threaded {@link PooledGzipOutputStream} with that of a
+ * {@link ParallelGzipOutputStream} on an increasing number of threads, up to the number of available processors.
+ * <p>
+ * Usage: {@code ParallelGzipBenchmark [megabytes]}. The input is a generated CSV export of the given size,
+ * 256 MB by default, written in 8 KiB chunks as a {@link javax.ws.rs.core.StreamingOutput} would. The output of
+ * the parallel stream is checked to decompress to the input with {@link GZIPInputStream}.
+ */
+public final class ParallelGzipBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private ParallelGzipBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        final byte[] export = generate(megabytes * 1024 * 1024);
+        final CodecPool pool = new CodecPool(2 * Runtime.getRuntime().availableProcessors());
+
+        verify(export, pool);
+
+        run("single-threaded", export, out -> new PooledGzipOutputStream(out, pool, Deflater.DEFAULT_COMPRESSION));
+        final int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(2 * threads, processors)) {
+            final ForkJoinPool executor = new ForkJoinPool(threads);
+            final int parallelism = threads;
+            run("parallel, " + threads + " thread(s)", export, out -> new ParallelGzipOutputStream(out, executor,
+                    pool, Deflater.DEFAULT_COMPRESSION, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, 2 * parallelism));
+            executor.shutdown();
+            if (threads == processors) {
+                break;
+            }
+        }
+    }
+
+    private static void run(final String name, final byte[] export, final GzipStreamFactory factory)
+            throws IOException {
+        final CountingOutputStream counter = new CountingOutputStream();
+        final long start = System.nanoTime();
+        try (OutputStream gzip = factory.create(counter)) {
+            for (int off = 0; off < export.length; off += CHUNK_SIZE) {
+                gzip.write(export, off, Math.min(CHUNK_SIZE, export.length - off));
+            }
+        }
+        final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.out.printf("%s: %d MB in %d ms (%.0f MB/s), ratio %.3f%n", name, export.length >> 20, elapsed,
+                export.length / 1048.576 / elapsed, (double) counter.count / export.length);
+    }
+
+    private static void verify(final byte[] export, final CodecPool pool) throws IOException {
+        final int length = Math.min(export.length, 8 * 1024 * 1024);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new ParallelGzipOutputStream(compressed, pool, Deflater.DEFAULT_COMPRESSION)) {
+            gzip.write(export, 0, length / 2);
+            gzip.flush();
+            gzip.write(export, length / 2, length - length / 2);
+        }
+
+        final CRC32 expected = new CRC32();
+        expected.update(export, 0, length);
+        final CRC32 actual = new CRC32();
+        long total = 0;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            final byte[] buffer = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                actual.update(buffer, 0, n);
+                total += n;
+            }
+        }
+        if (total != length || actual.getValue() != expected.getValue()) {
+            throw new IllegalStateException("Parallel gzip output does not decompress to the input.");
+        }
+    }
+
+    private static byte[] generate(final int size) {
+        final Random random = new Random(42);
+        final byte[] export = new byte[size];
+        int off = 0;
+        long id = 0;
+        while (off < size) {
+            final byte[] line = String.format("%d,customer-%d,%s,%d.%02d,%s%n", id++, random.nextInt(100000),
+                    random.nextBoolean() ? "SHIPPED" : "PENDING", random.nextInt(10000), random.nextInt(100),
+                    Long.toHexString(random.nextLong())).getBytes(StandardCharsets.US_ASCII);
+            final int n = Math.min(line.length, size - off);
+            System.arraycopy(line, 0, export, off, n);
+            off += n;
+        }
+        return export;
+    }
+
+    private interface GzipStreamFactory {
+
+        OutputStream create(OutputStream out) throws IOException;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
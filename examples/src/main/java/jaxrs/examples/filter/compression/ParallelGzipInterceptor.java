@@ -0,0 +1,146 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Example of a response entity interceptor compressing large entities, e.g. exports written by a
+ * {@link javax.ws.rs.core.StreamingOutput}, on several cores.
+ * <p>
+ * Entities that are known to be smaller than one block are compressed by a single {@link PooledGzipOutputStream},
+ * entities of unknown size or larger by a {@link ParallelGzipOutputStream}. Negotiation follows
+ * {@link GzipEntityInterceptor}. The interceptor is not annotated as a provider: register it explicitly, in place
+ * of the {@code GzipEntityInterceptor} for the resources it applies to, since either one would compress the
+ * output of the other again.
+ * </p>
+ */
+@Priority(Priorities.ENTITY_CODER)
+public class ParallelGzipInterceptor implements WriterInterceptor {
+
+    private final ExecutorService executor;
+    private final CodecPool pool;
+    private final CompressionLevels levels;
+    private final int blockSize;
+    private final int maxInFlight;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Context
+    private Providers providers;
+
+    public ParallelGzipInterceptor() {
+        this(ParallelGzipOutputStream.sharedExecutor(), CodecPool.shared(), CompressionLevels.defaults(),
+                ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelGzipInterceptor(ExecutorService executor, CodecPool pool, CompressionLevels levels,
+                                   int blockSize, int maxInFlight) {
+        this.executor = executor;
+        this.pool = pool;
+        this.levels = levels;
+        this.blockSize = blockSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext ctx) throws IOException {
+        final MultivaluedMap<String, Object> headers = ctx.getHeaders();
+        final int level = levels.levelOf(ctx.getMediaType());
+        if (ctx.getEntity() instanceof SerializedEntity
+                || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || requestHeaders == null
+                || level == Deflater.NO_COMPRESSION) {
+            ctx.proceed();
+            return;
+        }
+
+        GzipEntityInterceptor.addVary(headers);
+        if (!AcceptEncoding.parse(requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING)).prefersGzip()) {
+            ctx.proceed();
+            return;
+        }
+        final long size = GzipEntityInterceptor.knownSize(ctx, providers);
+        if (size >= 0 && size < GzipEntityInterceptor.DEFAULT_THRESHOLD) {
+            ctx.proceed();
+            return;
+        }
+
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        final OutputStream old = ctx.getOutputStream();
+        if (size >= 0 && size < blockSize) {
+            final PooledGzipOutputStream gzipOutputStream = new PooledGzipOutputStream(old, pool, level);
+            ctx.setOutputStream(gzipOutputStream);
+            try {
+                ctx.proceed();
+                gzipOutputStream.finish();
+            } finally {
+                gzipOutputStream.release();
+                ctx.setOutputStream(old);
+            }
+        } else {
+            final ParallelGzipOutputStream gzipOutputStream =
+                    new ParallelGzipOutputStream(old, executor, pool, level, blockSize, maxInFlight);
+            ctx.setOutputStream(gzipOutputStream);
+            try {
+                ctx.proceed();
+                gzipOutputStream.finish();
+            } finally {
+                gzipOutputStream.release();
+                ctx.setOutputStream(old);
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output stream compressing blocks of the written data in parallel.
+ * <p>
+ * The data is split into blocks that are deflated independently on an executor, each primed with the last
+ * 32 KiB of the preceding block as dictionary to keep the compression ratio close to that of a single deflater.
+ * Every block but the last ends with a sync flush on a byte boundary, so the compressed blocks concatenated in
+ * order form a single valid gzip member. The CRC-32 of the uncompressed data is computed by the writing thread.
+ * The number of blocks in flight is bounded, so a slow client blocks the writer rather than buffering the whole
+ * entity.
+ * </p>
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    /**
+     * Default size of the uncompressed blocks in bytes.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final ForkJoinPool SHARED_EXECUTOR = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final ExecutorService executor;
+    private final CodecPool pool;
+    private final int level;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final ArrayDeque<Future<Block>> inFlight = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private byte[] block;
+    private int count;
+    private byte[] previous;
+    private int previousCount;
+    private long size;
+    private boolean finished;
+
+    /**
+     * Create a new stream using the {@link #sharedExecutor() shared executor} and
+     * {@link #DEFAULT_BLOCK_SIZE default block size}, and write the gzip header.
+     *
+     * @param out   underlying stream.
+     * @param pool  deflater pool.
+     * @param level compression level.
+     * @throws IOException in case writing the header fails.
+     */
+    public ParallelGzipOutputStream(final OutputStream out, final CodecPool pool, final int level)
+            throws IOException {
+        this(out, SHARED_EXECUTOR, pool, level, DEFAULT_BLOCK_SIZE, 2 * SHARED_EXECUTOR.getParallelism());
+    }
+
+    /**
+     * Create a new stream and write the gzip header.
+     *
+     * @param out         underlying stream.
+     * @param executor    executor compressing the blocks.
+     * @param pool        deflater pool.
+     * @param level       compression level.
+     * @param blockSize   size of the uncompressed blocks in bytes.
+     * @param maxInFlight maximum number of blocks being compressed or waiting to be written.
+     * @throws IOException in case writing the header fails.
+     */
+    public ParallelGzipOutputStream(final OutputStream out,
+                                    final ExecutorService executor,
+                                    final CodecPool pool,
+                                    final int level,
+                                    final int blockSize,
+                                    final int maxInFlight) throws IOException {
+        super(out);
+        if (blockSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Block size and blocks in flight must be positive.");
+        }
+        this.executor = executor;
+        this.pool = pool;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxInFlight = maxInFlight;
+        this.block = new byte[blockSize];
+        out.write(PooledGzipOutputStream.header());
+    }
+
+    /**
+     * Get the executor shared by the streams not given an executor, a fork-join pool with one thread per
+     * available processor.
+     *
+     * @return shared executor.
+     */
+    public static ExecutorService sharedExecutor() {
+        return SHARED_EXECUTOR;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (finished) {
+            throw new IOException("Stream finished.");
+        }
+        crc.update(b, off, len);
+        size += len;
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int n = Math.min(remaining, blockSize - count);
+            System.arraycopy(b, offset, block, count, n);
+            count += n;
+            offset += n;
+            remaining -= n;
+            if (count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Compress and write the data written so far, e.g. to deliver a streamed response incrementally. Flushing
+     * ends the current block early and so costs compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            if (count > 0) {
+                submit(false);
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining data, wait for all blocks to be written and write the gzip trailer without closing
+     * the underlying stream.
+     *
+     * @throws IOException in case compressing or writing fails.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            submit(true);
+            while (!inFlight.isEmpty()) {
+                writeNext();
+            }
+            PooledGzipOutputStream.writeTrailer(out, crc.getValue(), size);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Cancel the blocks in flight without finishing the compressed data, e.g. after a failure to write the
+     * entity. The stream cannot be written afterwards.
+     */
+    public void release() {
+        finished = true;
+        Future<Block> future;
+        while ((future = inFlight.poll()) != null) {
+            future.cancel(false);
+        }
+        block = null;
+        previous = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submit(final boolean last) throws IOException {
+        final byte[] input = block;
+        final int length = count;
+        final byte[] dictionary = previous;
+        final int dictionaryLength = Math.min(previousCount, DICTIONARY_SIZE);
+        final int dictionaryOffset = previousCount - dictionaryLength;
+        inFlight.add(executor.submit(
+                () -> compress(dictionary, dictionaryOffset, dictionaryLength, input, length, last)));
+
+        // the submitted block is read by its own task and by the next one as dictionary, so it is not reused
+        previous = input;
+        previousCount = length;
+        block = last ? null : new byte[blockSize];
+        count = 0;
+        while (inFlight.size() > maxInFlight) {
+            writeNext();
+        }
+    }
+
+    private Block compress(final byte[] dictionary,
+                           final int dictionaryOffset,
+                           final int dictionaryLength,
+                           final byte[] input,
+                           final int length,
+                           final boolean last) {
+        final Deflater deflater = pool.acquireDeflater(level);
+        try {
+            if (dictionaryLength > 0) {
+                deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+            }
+            deflater.setInput(input, 0, length);
+            byte[] output = new byte[length / 2 + 64];
+            int n = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (n == output.length) {
+                        output = Arrays.copyOf(output, 2 * output.length);
+                    }
+                    n += deflater.deflate(output, n, output.length - n);
+                }
+            } else {
+                do {
+                    if (n == output.length) {
+                        output = Arrays.copyOf(output, 2 * output.length);
+                    }
+                    n += deflater.deflate(output, n, output.length - n, Deflater.SYNC_FLUSH);
+                } while (n == output.length);
+            }
+            return new Block(output, n);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    private void writeNext() throws IOException {
+        final Block compressed;
+        try {
+            compressed = inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing.");
+        } catch (ExecutionException e) {
+            throw new IOException("Compressing a block failed.", e.getCause());
+        }
+        out.write(compressed.data, 0, compressed.length);
+    }
+
+    private static final class Block {
+
+        private final byte[] data;
+        private final int length;
+
+        private Block(final byte[] data, final int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Gzip input stream using a pooled {@link Inflater}.
+ * <p>
+ * Supports streams of concatenated gzip members, as produced e.g. by parallel compressors. The inflater is returned
+ * to the {@link CodecPool pool} at the end of the stream, when the stream is closed or when
+ * {@link #release()} is invoked.
+ * </p>
+ */
+public class PooledGzipInputStream extends FilterInputStream {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final CodecPool pool;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private Inflater inflater;
+    private boolean eof;
+
+    /**
+     * Create a new stream and read the gzip header.
+     *
+     * @param in   underlying stream.
+     * @param pool inflater pool.
+     * @throws IOException in case the stream does not start with a valid gzip header.
+     */
+    public PooledGzipInputStream(final InputStream in, final CodecPool pool) throws IOException {
+        super(in);
+        this.pool = pool;
+        this.inflater = pool.acquireInflater();
+        try {
+            readHeader();
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (eof) {
+            return -1;
+        }
+        if (inflater == null) {
+            throw new IOException("Stream closed.");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (inflater.needsInput()) {
+                if (position == limit && !fill()) {
+                    throw new EOFException("Unexpected end of gzip stream.");
+                }
+                inflater.setInput(buffer, position, limit - position);
+                position = limit;
+            }
+            final int n;
+            try {
+                n = inflater.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (n > 0) {
+                crc.update(b, off, n);
+                return n;
+            }
+            if (inflater.finished()) {
+                // return the bytes following the deflate data to the buffer
+                position = limit - inflater.getRemaining();
+                readTrailer();
+                if (!nextMember()) {
+                    eof = true;
+                    release();
+                    return -1;
+                }
+            } else if (inflater.needsDictionary()) {
+                throw new ZipException("Preset dictionaries are not supported.");
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return eof ? 0 : 1;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            release();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Return the inflater to the pool without closing the underlying stream. The stream cannot be read afterwards.
+     */
+    public void release() {
+        if (inflater != null) {
+            pool.release(inflater);
+            inflater = null;
+        }
+    }
+
+    private boolean nextMember() throws IOException {
+        final int next = readByte();
+        if (next < 0) {
+            return false;
+        }
+        position--;
+        inflater.reset();
+        crc.reset();
+        readHeader();
+        return true;
+    }
+
+    private void readHeader() throws IOException {
+        if (readUnsignedByte() != 0x1f || readUnsignedByte() != 0x8b) {
+            throw new ZipException("Not in gzip format.");
+        }
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported compression method.");
+        }
+        final int flags = readUnsignedByte();
+        skip(6);
+        if ((flags & FEXTRA) != 0) {
+            skip(readUnsignedByte() | (readUnsignedByte() << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            while (readUnsignedByte() != 0) {
+                // skip the file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readUnsignedByte() != 0) {
+                // skip the comment
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skip(2);
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        final long expectedCrc = readUnsignedInt();
+        final long expectedSize = readUnsignedInt();
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("Corrupt gzip trailer: CRC mismatch.");
+        }
+        if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt gzip trailer: size mismatch.");
+        }
+    }
+
+    private long readUnsignedInt() throws IOException {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (long) readUnsignedByte() << (8 * i);
+        }
+        return value;
+    }
+
+    private void skip(final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte();
+        }
+    }
+
+    private int readUnsignedByte() throws IOException {
+        final int b = readByte();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of gzip stream.");
+        }
+        return b;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        final int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
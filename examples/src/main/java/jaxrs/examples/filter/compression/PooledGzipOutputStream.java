@@ -0,0 +1,196 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output stream using a pooled {@link Deflater}.
+ * <p>
+ * Unlike {@link java.util.zip.GZIPOutputStream}, which allocates new native zlib state for every stream, the
+ * deflater is borrowed from a {@link CodecPool} and returned once the stream is {@link #finish() finished}.
+ * </p>
+ */
+public class PooledGzipOutputStream extends FilterOutputStream {
+
+    private static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, // magic
+            Deflater.DEFLATED,        // compression method
+            0,                        // flags
+            0, 0, 0, 0,               // modification time
+            0,                        // extra flags
+            (byte) 0xff               // operating system: unknown
+    };
+
+    private final CodecPool pool;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer;
+    private Deflater deflater;
+    private boolean pendingFlush;
+
+    /**
+     * Create a new stream and write the gzip header.
+     *
+     * @param out   underlying stream.
+     * @param pool  deflater pool.
+     * @param level compression level.
+     * @throws IOException in case writing the header fails.
+     */
+    public PooledGzipOutputStream(final OutputStream out, final CodecPool pool, final int level) throws IOException {
+        super(out);
+        this.pool = pool;
+        this.buffer = new byte[8192];
+        this.deflater = pool.acquireDeflater(level);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (deflater == null) {
+            throw new IOException("Stream finished.");
+        }
+        if (len == 0) {
+            return;
+        }
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+        pendingFlush = true;
+    }
+
+    /**
+     * Flush the data compressed so far, e.g. to deliver a streamed response incrementally.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (deflater != null && pendingFlush) {
+            while (deflate(Deflater.SYNC_FLUSH) == buffer.length) {
+                // more output pending
+            }
+            pendingFlush = false;
+        }
+        out.flush();
+    }
+
+    /**
+     * Finish the compressed data and write the gzip trailer without closing the underlying stream. The deflater
+     * is returned to the pool.
+     *
+     * @throws IOException in case writing fails.
+     */
+    public void finish() throws IOException {
+        if (deflater == null) {
+            return;
+        }
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            writeTrailer(out, crc.getValue(), deflater.getBytesRead());
+        } finally {
+            pool.release(deflater);
+            deflater = null;
+        }
+    }
+
+    /**
+     * Return the deflater to the pool without finishing the compressed data, e.g. after a failure to write
+     * the entity. The stream cannot be written afterwards.
+     */
+    public void release() {
+        if (deflater != null) {
+            pool.release(deflater);
+            deflater = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Write a gzip trailer.
+     *
+     * @param out   stream to write to.
+     * @param crc   CRC-32 of the uncompressed data.
+     * @param isize length of the uncompressed data.
+     * @throws IOException in case writing fails.
+     */
+    static void writeTrailer(final OutputStream out, final long crc, final long isize) throws IOException {
+        out.write(new byte[] {
+                (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24),
+                (byte) isize, (byte) (isize >> 8), (byte) (isize >> 16), (byte) (isize >> 24)
+        });
+    }
+
+    /**
+     * Get the gzip header written by this stream.
+     *
+     * @return copy of the gzip header.
+     */
+    static byte[] header() {
+        return HEADER.clone();
+    }
+
+    private int deflate(final int flush) throws IOException {
+        final int n = deflater.deflate(buffer, 0, buffer.length, flush);
+        if (n > 0) {
+            out.write(buffer, 0, n);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.core.Variant;
+
+import jaxrs.examples.entity.EntitySerializer;
+
+/**
+ * Cache of serialized and pre-compressed representations of slowly changing resources.
+ * <p>
+ * A representation is serialized and gzip compressed once per resource, {@link Variant variant} and
+ * {@link EntityTag entity tag}; matching requests are answered with the cached identity or gzip bytes as
+ * {@link SerializedEntity serialized entities}, skipping both the message body writer and the compression. A new
+ * entity tag of a resource variant replaces the cached representation. The cache is bounded by the total number
+ * of cached bytes, evicting the least recently used representations first.
+ * </p>
+ * <p>
+ * The identity form is tagged with the given entity tag, the gzip form with the same tag suffixed by
+ * {@code -gzip}, as strong validators must differ between content codings of a representation.
+ * </p>
+ * <p>
+ * Example of a resource method:
+ * <pre>
+ *   return cache.respond(request, headers, new EntitySerializer(providers), "cluster", variant, eTag, () -&gt; cluster)
+ *           .links(links)
+ *           .build();
+ * </pre>
+ * </p>
+ */
+public final class RepresentationCache {
+
+    private final long maxBytes;
+    private final CodecPool pool;
+    private final CompressionLevels levels;
+    private final LinkedHashMap<Key, Representation> representations = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Create a new cache compressing representations with the {@link CompressionLevels#defaults() default levels}.
+     *
+     * @param maxBytes maximum number of cached bytes, identity and compressed forms together.
+     */
+    public RepresentationCache(final long maxBytes) {
+        this(maxBytes, CompressionLevels.defaults());
+    }
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxBytes maximum number of cached bytes, identity and compressed forms together.
+     * @param levels   compression levels by media type; representations of media types with a level of
+     *                 {@link Deflater#NO_COMPRESSION} are cached without a gzip form.
+     */
+    public RepresentationCache(final long maxBytes, final CompressionLevels levels) {
+        this.maxBytes = maxBytes;
+        this.pool = CodecPool.shared();
+        this.levels = levels;
+    }
+
+    /**
+     * Build a response with a cached representation, serializing and compressing the entity in case no
+     * representation with the given entity tag is cached.
+     * <p>
+     * The preconditions of the request are evaluated against the entity tag of the form selected for the request.
+     * The returned builder has the {@code ETag} and {@code Vary} headers set; the entity is a serialized entity
+     * with the content coding and exact length of the selected form.
+     * </p>
+     *
+     * @param request    current request.
+     * @param headers    current request headers.
+     * @param serializer entity serializer.
+     * @param resource   resource identifier, e.g. its path.
+     * @param variant    selected variant.
+     * @param eTag       entity tag of the current state of the resource, sent with the identity form.
+     * @param entity     supplier of the entity, invoked in case the representation is not cached.
+     * @return response builder.
+     * @throws IOException in case serializing or compressing the entity fails.
+     */
+    public Response.ResponseBuilder respond(final Request request,
+                                            final HttpHeaders headers,
+                                            final EntitySerializer serializer,
+                                            final String resource,
+                                            final Variant variant,
+                                            final EntityTag eTag,
+                                            final Supplier<?> entity) throws IOException {
+        // whether there is a gzip form is only known once the representation is cached
+        final Key key = new Key(resource, variant);
+        Representation representation = get(key, eTag);
+        if (representation == null) {
+            representation = create(serializer, variant, eTag, entity.get());
+            put(key, representation);
+        }
+
+        final boolean gzip = representation.gzip != null
+                && AcceptEncoding.parse(headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING)).prefersGzip();
+        final EntityTag selectedTag = gzip ? gzipTag(eTag) : eTag;
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(selectedTag);
+        if (notModified != null) {
+            return notModified.tag(selectedTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        final SerializedEntity selected = gzip ? representation.gzip : representation.identity;
+        return Response.ok(selected, selected.getVariant())
+                .tag(selectedTag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /**
+     * Get the entity tag of the gzip form of a representation.
+     *
+     * @param eTag entity tag of the identity form.
+     * @return entity tag of the gzip form.
+     */
+    public static EntityTag gzipTag(final EntityTag eTag) {
+        return new EntityTag(eTag.getValue() + "-gzip", eTag.isWeak());
+    }
+
+    /**
+     * Remove all cached representations of a resource.
+     *
+     * @param resource resource identifier.
+     */
+    public synchronized void invalidate(final String resource) {
+        final Iterator<Map.Entry<Key, Representation>> entries = representations.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<Key, Representation> entry = entries.next();
+            if (entry.getKey().resource.equals(resource)) {
+                bytes -= entry.getValue().size();
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the number of cached bytes.
+     *
+     * @return cached bytes, identity and compressed forms together.
+     */
+    public synchronized long size() {
+        return bytes;
+    }
+
+    private synchronized Representation get(final Key key, final EntityTag eTag) {
+        final Representation representation = representations.get(key);
+        return representation != null && representation.eTag.equals(eTag) ? representation : null;
+    }
+
+    private synchronized void put(final Key key, final Representation representation) {
+        if (representation.size() > maxBytes) {
+            return;
+        }
+        final Representation replaced = representations.put(key, representation);
+        if (replaced != null) {
+            bytes -= replaced.size();
+        }
+        bytes += representation.size();
+        final Iterator<Representation> eldest = representations.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private Representation create(final EntitySerializer serializer,
+                                  final Variant variant,
+                                  final EntityTag eTag,
+                                  final Object entity) throws IOException {
+        final SerializedEntity identity = serializer.serialize(Entity.entity(entity, variant));
+        final int level = levels.levelOf(variant.getMediaType());
+        if (level == Deflater.NO_COMPRESSION) {
+            // already compressed media, e.g. images or archives
+            return new Representation(eTag, identity, null);
+        }
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) identity.getLength() / 4 + 32);
+        final PooledGzipOutputStream gzipOutputStream = new PooledGzipOutputStream(compressed, pool, level);
+        try {
+            identity.writeTo(gzipOutputStream);
+            gzipOutputStream.finish();
+        } finally {
+            gzipOutputStream.release();
+        }
+
+        // serve compressed bytes only where they are actually smaller
+        final SerializedEntity gzip = compressed.size() < identity.getLength()
+                ? SerializedEntity.of(compressed.toByteArray(),
+                        new Variant(variant.getMediaType(), variant.getLanguage(), "gzip"))
+                : null;
+        return new Representation(eTag, identity, gzip);
+    }
+
+    private static final class Key {
+
+        private final String resource;
+        private final Variant variant;
+
+        private Key(final String resource, final Variant variant) {
+            this.resource = resource;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return resource.equals(other.resource) && variant.equals(other.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resource.hashCode() + variant.hashCode();
+        }
+    }
+
+    private static final class Representation {
+
+        private final EntityTag eTag;
+        private final SerializedEntity identity;
+        private final SerializedEntity gzip;
+
+        private Representation(final EntityTag eTag, final SerializedEntity identity, final SerializedEntity gzip) {
+            this.eTag = eTag;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        private long size() {
+            return identity.getLength() + (gzip != null ? gzip.getLength() : 0);
+        }
+    }
+}
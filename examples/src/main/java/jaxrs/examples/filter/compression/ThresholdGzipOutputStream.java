@@ -0,0 +1,143 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Output stream compressing the entity only once it exceeds a threshold.
+ * <p>
+ * The first {@code threshold} bytes are held back; entities ending before reaching the threshold are written
+ * uncompressed. As nothing is written to the underlying stream before the decision, the response headers are
+ * still mutable and the {@code Content-Encoding} header is set only when the entity is actually compressed.
+ * </p>
+ */
+final class ThresholdGzipOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final MultivaluedMap<String, Object> headers;
+    private final CodecPool pool;
+    private final int level;
+    private byte[] pending;
+    private int pendingLength;
+    private OutputStream target;
+
+    ThresholdGzipOutputStream(final OutputStream out,
+                              final MultivaluedMap<String, Object> headers,
+                              final CodecPool pool,
+                              final int level,
+                              final int threshold) {
+        this.out = out;
+        this.headers = headers;
+        this.pool = pool;
+        this.level = level;
+        this.pending = new byte[threshold];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (target == null) {
+            if (pendingLength + len <= pending.length) {
+                System.arraycopy(b, off, pending, pendingLength, len);
+                pendingLength += len;
+                return;
+            }
+            compress();
+        }
+        target.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // held back bytes are written on decision, flushing them early would commit the headers
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Write the held back bytes, if any, and finish the compressed data.
+     *
+     * @throws IOException in case writing fails.
+     */
+    void finish() throws IOException {
+        if (target == null) {
+            out.write(pending, 0, pendingLength);
+            pending = null;
+        } else if (target instanceof PooledGzipOutputStream) {
+            ((PooledGzipOutputStream) target).finish();
+        }
+    }
+
+    /**
+     * Return the deflater to the pool, if compressing, without finishing the compressed data.
+     */
+    void release() {
+        if (target instanceof PooledGzipOutputStream) {
+            ((PooledGzipOutputStream) target).release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void compress() throws IOException {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        target = new PooledGzipOutputStream(out, pool, level);
+        target.write(pending, 0, pendingLength);
+        pending = null;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.etag;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+/**
+ * Entity tags computed by the {@link StreamingETagFilter}, by request URI and representation variant.
+ * <p>
+ * The entity tag of the latest representation served for a URI is kept, so that the next conditional request
+ * can be answered before the representation is produced, either by
+ * {@link #evaluatePreconditions(Request, HttpHeaders, URI)} in the resource method or by a
+ * {@link jaxrs.examples.filter.preconditions.PreconditionsFilter} bound to {@link StoredValidators}. Since the
+ * representations of a URI differ by content coding, each with its own entity tag, a URI keeps one entity tag per
+ * {@code Content-Encoding} and values of the request headers named by {@code Vary}; a request is matched to a
+ * stored entity tag by the values of its headers. A stored entity tag must be {@link #invalidate(URI) invalidated}
+ * whenever the resource changes; the filter does so for successful unsafe requests to the same URI. The number of
+ * URIs with stored entity tags is bounded, evicting the least recently used.
+ * </p>
+ */
+public final class EntityTagStore {
+
+    /**
+     * Default maximum number of URIs with stored entity tags.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final int MAX_VARIANTS = 8;
+
+    private static final EntityTagStore SHARED = new EntityTagStore(DEFAULT_CAPACITY);
+
+    private final Map<URI, List<StoredTag>> tags;
+
+    /**
+     * Create a new store.
+     *
+     * @param capacity maximum number of URIs with stored entity tags.
+     */
+    public EntityTagStore(final int capacity) {
+        this.tags = new LinkedHashMap<URI, List<StoredTag>>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<URI, List<StoredTag>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the store shared by the examples.
+     *
+     * @return shared store.
+     */
+    public static EntityTagStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the entity tag of the latest representation served for a URI to requests with the given headers.
+     *
+     * @param uri            request URI.
+     * @param requestHeaders request headers.
+     * @return entity tag, or {@code null} if not known or if more than one stored representation matches
+     * the request.
+     */
+    public synchronized EntityTag get(final URI uri, final MultivaluedMap<String, String> requestHeaders) {
+        final List<StoredTag> variants = tags.get(uri);
+        if (variants == null) {
+            return null;
+        }
+        EntityTag match = null;
+        for (StoredTag variant : variants) {
+            if (variant.matches(requestHeaders)) {
+                if (match != null) {
+                    // e.g. a representation served in two codings without Vary
+                    return null;
+                }
+                match = variant.eTag;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Store the entity tag of the representation served for a URI.
+     *
+     * @param uri             request URI.
+     * @param requestHeaders  headers of the request the representation was served for.
+     * @param responseHeaders response headers, including {@code Content-Encoding} and {@code Vary}.
+     * @param eTag            entity tag.
+     */
+    public synchronized void put(final URI uri,
+                                 final MultivaluedMap<String, String> requestHeaders,
+                                 final MultivaluedMap<String, Object> responseHeaders,
+                                 final EntityTag eTag) {
+        final Map<String, List<String>> vary = vary(responseHeaders.get(HttpHeaders.VARY), requestHeaders);
+        if (vary == null) {
+            return;
+        }
+        final Object coding = responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING);
+        final StoredTag stored = new StoredTag(coding != null ? coding.toString() : null, vary, eTag);
+
+        List<StoredTag> variants = tags.get(uri);
+        if (variants == null) {
+            variants = new ArrayList<>(2);
+            tags.put(uri, variants);
+        }
+        final Iterator<StoredTag> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().sameVariant(stored)) {
+                iterator.remove();
+            }
+        }
+        if (variants.size() == MAX_VARIANTS) {
+            variants.remove(0);
+        }
+        variants.add(stored);
+    }
+
+    /**
+     * Remove the entity tags stored for a URI, e.g. after the resource has been modified.
+     *
+     * @param uri request URI.
+     */
+    public synchronized void invalidate(final URI uri) {
+        tags.remove(uri);
+    }
+
+    /**
+     * Evaluate the preconditions of a request against the entity tag stored for its URI and headers.
+     *
+     * @param request current request.
+     * @param headers current request headers.
+     * @param uri     request URI.
+     * @return response builder as returned by {@link Request#evaluatePreconditions(EntityTag)}, or {@code null}
+     * if the preconditions are met or no entity tag is stored.
+     */
+    public Response.ResponseBuilder evaluatePreconditions(final Request request,
+                                                          final HttpHeaders headers,
+                                                          final URI uri) {
+        final EntityTag eTag = get(uri, headers.getRequestHeaders());
+        return eTag != null ? request.evaluatePreconditions(eTag) : null;
+    }
+
+    /**
+     * Get the request header values a response varies by.
+     *
+     * @return values by header name, or {@code null} if the response varies by {@code *}.
+     */
+    private static Map<String, List<String>> vary(final List<Object> varyHeaders,
+                                                  final MultivaluedMap<String, String> requestHeaders) {
+        final Map<String, List<String>> vary = new LinkedHashMap<>();
+        if (varyHeaders != null) {
+            for (Object value : varyHeaders) {
+                for (String name : value.toString().split(",")) {
+                    final String trimmed = name.trim();
+                    if ("*".equals(trimmed)) {
+                        return null;
+                    } else if (!trimmed.isEmpty()) {
+                        vary.put(trimmed, valuesOf(requestHeaders, trimmed));
+                    }
+                }
+            }
+        }
+        return vary;
+    }
+
+    private static List<String> valuesOf(final MultivaluedMap<String, String> requestHeaders, final String name) {
+        final List<String> values = requestHeaders.get(name);
+        return values != null ? new ArrayList<>(values) : Collections.<String>emptyList();
+    }
+
+    private static final class StoredTag {
+
+        private final String contentCoding;
+        private final Map<String, List<String>> vary;
+        private final EntityTag eTag;
+
+        private StoredTag(final String contentCoding, final Map<String, List<String>> vary, final EntityTag eTag) {
+            this.contentCoding = contentCoding;
+            this.vary = vary;
+            this.eTag = eTag;
+        }
+
+        private boolean matches(final MultivaluedMap<String, String> requestHeaders) {
+            for (Map.Entry<String, List<String>> header : vary.entrySet()) {
+                if (!header.getValue().equals(valuesOf(requestHeaders, header.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean sameVariant(final StoredTag other) {
+            return Objects.equals(contentCoding, other.contentCoding) && vary.equals(other.vary);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.etag;
+
+/**
+ * Incremental 128-bit MurmurHash3 (x64 variant), a fast non-cryptographic hash.
+ * <p>
+ * The data can be supplied in chunks of any size; the result equals the hash of the concatenated chunks.
+ * Instances are not thread-safe.
+ * </p>
+ */
+public final class Murmur3Hash128 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] tail = new byte[16];
+    private int tailLength;
+    private long h1;
+    private long h2;
+    private long length;
+
+    /**
+     * Create a new hash with seed {@code 0}.
+     */
+    public Murmur3Hash128() {
+    }
+
+    /**
+     * Hash the given bytes.
+     *
+     * @param b   data.
+     * @param off offset of the data.
+     * @param len length of the data.
+     */
+    public void update(final byte[] b, final int off, final int len) {
+        int offset = off;
+        int remaining = len;
+        length += len;
+        if (tailLength > 0) {
+            final int n = Math.min(remaining, 16 - tailLength);
+            System.arraycopy(b, offset, tail, tailLength, n);
+            tailLength += n;
+            offset += n;
+            remaining -= n;
+            if (tailLength < 16) {
+                return;
+            }
+            mix(getLong(tail, 0), getLong(tail, 8));
+            tailLength = 0;
+        }
+        while (remaining >= 16) {
+            mix(getLong(b, offset), getLong(b, offset + 8));
+            offset += 16;
+            remaining -= 16;
+        }
+        System.arraycopy(b, offset, tail, 0, remaining);
+        tailLength = remaining;
+    }
+
+    /**
+     * Get the hash of the data supplied so far as 32 lower case hexadecimal digits. Further data must not be
+     * supplied afterwards.
+     *
+     * @return hexadecimal hash.
+     */
+    public String toHexString() {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (tail[i] & 0xff);
+        }
+        for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (tail[i] & 0xff);
+        }
+        if (tailLength > 8) {
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        }
+        if (tailLength > 0) {
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        }
+        tailLength = 0;
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return hex(h1) + hex(h2);
+    }
+
+    private void mix(long k1, long k2) {
+        h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long getLong(final byte[] b, final int off) {
+        long value = 0;
+        for (int i = off + 7; i >= off; i--) {
+            value = (value << 8) | (b[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static String hex(final long value) {
+        // little-endian byte order, as commonly printed for MurmurHash3
+        final String digits = Long.toHexString(Long.reverseBytes(value));
+        return "0000000000000000".substring(digits.length()) + digits;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.etag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import javax.annotation.Priority;
+
+/**
+ * Filter computing strong entity tags of {@code GET} responses from the entity bytes as they are written.
+ * <p>
+ * The written bytes are hashed incrementally with a {@link Murmur3Hash128 128-bit MurmurHash3} instead of being
+ * serialized into an array first. Entities up to the threshold are held back until complete, so that the
+ * {@code ETag} header can be set before the headers are committed. Larger entities are streamed: if the client
+ * accepts trailers ({@code TE: trailers}) and the container provides {@link Trailers}, the entity tag is
+ * announced by a {@code Trailer} header and sent as a trailer; otherwise no entity tag is computed. Since the
+ * filter has a higher priority than entity coders (its priority value is lower), it wraps their output: the encoded
+ * bytes are hashed and each content coding gets its own entity tag.
+ * </p>
+ * <p>
+ * Computed entity tags are kept in an {@link EntityTagStore} by URI, content coding and {@code Vary} request
+ * header values, so that the next conditional request for the same representation can be evaluated before the
+ * resource produces it; successful unsafe requests to the URI invalidate the stored entity tags. A stored entity
+ * tag copied to the response, e.g. by a {@link jaxrs.examples.filter.preconditions.PreconditionsFilter}, is
+ * replaced by the tag computed from the entity, so that a representation changed by other means is re-tagged.
+ * </p>
+ */
+@Provider
+@HashedETag
+@Priority(Priorities.HEADER_DECORATOR)
+public class StreamingETagFilter implements ContainerResponseFilter, WriterInterceptor {
+
+    /**
+     * Default maximum size in bytes of the entities held back to send their entity tag as a header.
+     */
+    public static final int DEFAULT_THRESHOLD = 256 * 1024;
+
+    private static final String PENDING_PROPERTY = StreamingETagFilter.class.getName() + ".pending";
+
+    private final EntityTagStore store;
+    private final int threshold;
+
+    public StreamingETagFilter() {
+        this(EntityTagStore.shared(), DEFAULT_THRESHOLD);
+    }
+
+    public StreamingETagFilter(EntityTagStore store, int threshold) {
+        this.store = store;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        final String method = requestContext.getMethod();
+        final URI uri = requestContext.getUriInfo().getRequestUri();
+        if (HttpMethod.GET.equals(method)) {
+            if (responseContext.getStatus() == Response.Status.OK.getStatusCode()
+                    && responseContext.hasEntity()
+                    && !taggedByResource(responseContext.getHeaders().getFirst(HttpHeaders.ETAG), uri,
+                            requestContext.getHeaders())) {
+                final Trailers trailers = acceptsTrailers(requestContext.getHeaders().get("TE"))
+                        ? (Trailers) requestContext.getProperty(Trailers.PROPERTY)
+                        : null;
+                requestContext.setProperty(PENDING_PROPERTY, new Pending(uri, requestContext.getHeaders(), trailers));
+            }
+        } else if (!HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method)
+                && responseContext.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
+            store.invalidate(uri);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext ctx) throws IOException {
+        final Pending pending = (Pending) ctx.getProperty(PENDING_PROPERTY);
+        if (pending == null) {
+            ctx.proceed();
+            return;
+        }
+        ctx.removeProperty(PENDING_PROPERTY);
+        final OutputStream old = ctx.getOutputStream();
+        final HashingOutputStream hashingOutputStream = new HashingOutputStream(old, ctx.getHeaders(), pending);
+        ctx.setOutputStream(hashingOutputStream);
+        try {
+            ctx.proceed();
+            hashingOutputStream.finish();
+        } finally {
+            ctx.setOutputStream(old);
+        }
+    }
+
+    /**
+     * Check whether the response carries an entity tag set by the resource method. An entity tag equal to the stored
+     * one was copied from the store, e.g. by a {@link jaxrs.examples.filter.preconditions.PreconditionsFilter}, and
+     * is recomputed, since the resource may have changed without an unsafe request through this filter.
+     */
+    private boolean taggedByResource(Object eTag, URI uri, MultivaluedMap<String, String> requestHeaders) {
+        return eTag != null && !eTag.equals(store.get(uri, requestHeaders));
+    }
+
+    private static boolean acceptsTrailers(List<String> te) {
+        if (te != null) {
+            for (String value : te) {
+                for (String coding : value.split(",")) {
+                    if ("trailers".equalsIgnoreCase(coding.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class Pending {
+
+        private final URI uri;
+        private final MultivaluedMap<String, String> requestHeaders;
+        private final Trailers trailers;
+
+        private Pending(URI uri, MultivaluedMap<String, String> requestHeaders, Trailers trailers) {
+            this.uri = uri;
+            this.requestHeaders = requestHeaders;
+            this.trailers = trailers;
+        }
+    }
+
+    /**
+     * Stream hashing the written bytes, holding them back up to the threshold.
+     */
+    private final class HashingOutputStream extends FilterOutputStream {
+
+        private final MultivaluedMap<String, Object> headers;
+        private final Pending pending;
+        private Murmur3Hash128 hash = new Murmur3Hash128();
+        private ByteArrayOutputStream heldBack = new ByteArrayOutputStream();
+        private boolean finished;
+
+        private HashingOutputStream(OutputStream out, MultivaluedMap<String, Object> headers, Pending pending) {
+            super(out);
+            this.headers = headers;
+            this.pending = pending;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (hash != null) {
+                hash.update(b, off, len);
+            }
+            if (heldBack != null) {
+                if (heldBack.size() + len <= threshold) {
+                    heldBack.write(b, off, len);
+                    return;
+                }
+                stream();
+            }
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // held back bytes are written once complete, flushing them early would commit the headers
+            if (heldBack == null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // a writer closing the entity stream ends the entity: send the held back bytes first
+            try {
+                finish();
+            } finally {
+                super.close();
+            }
+        }
+
+        private void stream() throws IOException {
+            // an entity tag copied from the store is not confirmed by the entity
+            final Object eTag = headers.getFirst(HttpHeaders.ETAG);
+            if (eTag != null && eTag.equals(store.get(pending.uri, pending.requestHeaders))) {
+                headers.remove(HttpHeaders.ETAG);
+            }
+            if (pending.trailers != null) {
+                headers.add("Trailer", HttpHeaders.ETAG);
+            } else {
+                hash = null;
+            }
+            heldBack.writeTo(out);
+            heldBack = null;
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (hash == null) {
+                return;
+            }
+            final EntityTag eTag = new EntityTag(hash.toHexString());
+            if (heldBack != null) {
+                headers.putSingle(HttpHeaders.ETAG, eTag);
+                heldBack.writeTo(out);
+                heldBack = null;
+            } else {
+                pending.trailers.set(HttpHeaders.ETAG, '"' + eTag.getValue() + '"');
+            }
+            store.put(pending.uri, pending.requestHeaders, headers, eTag);
+        }
+    }
+}
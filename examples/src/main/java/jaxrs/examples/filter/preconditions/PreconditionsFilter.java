@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.filter.preconditions;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ValidatorProvider;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import javax.annotation.Priority;
+
+/**
+ * Filter evaluating the preconditions of a request against the validators supplied by a
+ * {@link ValidatorProvider} before the resource method runs.
+ * <p>
+ * The conditional request headers are evaluated in the order of RFC 7232, section 6: {@code If-Match}, or else
+ * {@code If-Unmodified-Since}, failing with {@code 412 Precondition Failed}; then {@code If-None-Match}, or else
+ * {@code If-Modified-Since} for {@code GET} and {@code HEAD}, failing with {@code 304 Not Modified} for
+ * {@code GET} and {@code HEAD} and with {@code 412 Precondition Failed} otherwise. Entity tag lists are matched
+ * with {@link EntityTag#isListedIn(CharSequence, boolean)}, without parsing the listed tags. If the provider
+ * does not know the current entity tag, e.g. for a resource that does not exist, requests with {@code If-Match}
+ * or {@code If-None-Match} are passed to the resource method unevaluated. Successful responses to requests
+ * that pass get the validators as {@code ETag} and {@code Last-Modified} headers, unless set by the resource
+ * method.
+ * </p>
+ * <p>
+ * The filter runs after authentication and authorization, so that validators are not disclosed to
+ * unauthorized clients.
+ * </p>
+ */
+@Priority(Priorities.HEADER_DECORATOR)
+public class PreconditionsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String VALIDATORS_PROPERTY = PreconditionsFilter.class.getName() + ".validators";
+
+    private final ValidatorProvider validatorProvider;
+
+    public PreconditionsFilter(ValidatorProvider validatorProvider) {
+        this.validatorProvider = validatorProvider;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        final EntityTag eTag = validatorProvider.getEntityTag(requestContext);
+        final Date lastModified = validatorProvider.getLastModified(requestContext);
+        final MultivaluedMap<String, String> headers = requestContext.getHeaders();
+        final String method = requestContext.getMethod();
+        final boolean safe = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+
+        final List<String> ifMatch = headers.get(HttpHeaders.IF_MATCH);
+        if (ifMatch != null) {
+            if (eTag == null) {
+                // current entity tag unknown: the resource method evaluates the preconditions
+                return;
+            }
+            if (!listed(eTag, ifMatch, false)) {
+                requestContext.abortWith(Response.status(Response.Status.PRECONDITION_FAILED).build());
+                return;
+            }
+        } else {
+            final Date ifUnmodifiedSince = parseDate(headers.getFirst(HttpHeaders.IF_UNMODIFIED_SINCE));
+            if (ifUnmodifiedSince != null && lastModified != null
+                    && seconds(lastModified) > seconds(ifUnmodifiedSince)) {
+                requestContext.abortWith(Response.status(Response.Status.PRECONDITION_FAILED).build());
+                return;
+            }
+        }
+
+        final List<String> ifNoneMatch = headers.get(HttpHeaders.IF_NONE_MATCH);
+        final boolean notModified;
+        if (ifNoneMatch != null) {
+            if (eTag == null) {
+                return;
+            }
+            notModified = listed(eTag, ifNoneMatch, true);
+        } else {
+            final Date ifModifiedSince = safe ? parseDate(headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE)) : null;
+            notModified = ifModifiedSince != null && lastModified != null
+                    && seconds(lastModified) <= seconds(ifModifiedSince);
+        }
+        if (notModified) {
+            final Response.ResponseBuilder builder = safe
+                    ? Response.notModified().tag(eTag).lastModified(lastModified)
+                    : Response.status(Response.Status.PRECONDITION_FAILED);
+            requestContext.abortWith(builder.build());
+            return;
+        }
+
+        requestContext.setProperty(VALIDATORS_PROPERTY, new Object[] {eTag, lastModified});
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        final Object[] validators = (Object[]) requestContext.getProperty(VALIDATORS_PROPERTY);
+        if (validators == null
+                || responseContext.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            return;
+        }
+        final MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        if (validators[0] != null && !headers.containsKey(HttpHeaders.ETAG)) {
+            headers.putSingle(HttpHeaders.ETAG, validators[0]);
+        }
+        if (validators[1] != null && !headers.containsKey(HttpHeaders.LAST_MODIFIED)) {
+            headers.putSingle(HttpHeaders.LAST_MODIFIED, validators[1]);
+        }
+    }
+
+    private static boolean listed(EntityTag eTag, List<String> values, boolean weakComparison) {
+        for (String value : values) {
+            if (eTag.isListedIn(value, weakComparison)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Date parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Date.from(ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            // invalid dates are ignored
+            return null;
+        }
+    }
+
+    private static long seconds(Date date) {
+        // HTTP dates have a resolution of one second
+        return date.getTime() / 1000;
+    }
+}
@@ -40,8 +40,13 @@
 
 package jaxrs.examples.link.clusterservice;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.FanOut;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.Response;
 
@@ -63,19 +68,29 @@ public class ClientTest {
             client.invocation(rc.getLink("onliner")).buildPost(null).invoke();
         }
 
-        // Start all machines in cluster
+        // Get all machines in cluster in parallel rather than one round-trip at a time
         Cluster c = rc.readEntity(Cluster.class);
+        List<Invocation> machineRequests = new ArrayList<>();
         for (Machine m : c.getMachines()) {
             // Machine name is need for URI template in link
             Link l = rc.getLinkBuilder("item").build(m.getName());
+            machineRequests.add(client.invocation(l).buildGet());
+        }
+        FanOut.Result<Link> starters = Invocation.fanOut(machineRequests)
+                .parallelism(8)
+                .submit(rm -> rm.hasLink("starter") ? rm.getLink("starter") : null)
+                .toCompletableFuture().join();
 
-            // Create invocation from link and call invoke()
-            Response rm = client.invocation(l).buildGet().invoke();
-
-            // Start machine if not started already
-            if (rm.hasLink("starter")) {
-                client.invocation(rm.getLink("starter")).buildPost(null).invoke();
+        // Start machines not started already
+        List<Invocation> startRequests = new ArrayList<>();
+        for (Link starter : starters.getSuccesses()) {
+            if (starter != null) {
+                startRequests.add(client.invocation(starter).buildPost(null));
             }
         }
+        Invocation.fanOut(startRequests)
+                .parallelism(8)
+                .submit(Response::getStatus)
+                .toCompletableFuture().join();
     }
 }
@@ -40,6 +40,7 @@
 
 package jaxrs.examples.link.clusterservice;
 
+import java.io.IOException;
 import java.net.URI;
 
 import javax.ws.rs.GET;
@@ -47,10 +48,18 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.Providers;
 
+import jaxrs.examples.entity.EntitySerializer;
+import jaxrs.examples.filter.compression.RepresentationCache;
 import jaxrs.examples.link.clusterservice.Cluster.Status;
 
 /**
@@ -61,15 +70,28 @@ import jaxrs.examples.link.clusterservice.Cluster.Status;
 @Path("/cluster")
 public class ClusterResource {
 
+    private static final Variant JSON = new Variant(MediaType.APPLICATION_JSON_TYPE, (String) null, null);
+    private static final RepresentationCache CACHE = new RepresentationCache(1 << 20);
+
     @Context
     private UriInfo uriInfo;
+    @Context
+    private Request request;
+    @Context
+    private HttpHeaders headers;
+    @Context
+    private Providers providers;
 
     private Cluster cluster = Model.getCluster();
 
     @GET
     @Produces({"application/json"})
-    public Response self() {
-        return Response.ok(cluster).links(getTransitionalLinks()).build();
+    public Response self() throws IOException {
+        // the representation, machines included, changes with the model version; links depend on the request URI
+        final EntityTag eTag = new EntityTag(cluster.getName() + '-' + Model.getVersion());
+        return CACHE.respond(request, headers, new EntitySerializer(providers), "cluster", JSON, eTag, () -> cluster)
+                .links(getTransitionalLinks())
+                .build();
     }
 
     @POST
@@ -77,6 +99,7 @@ public class ClusterResource {
     @Produces({"application/json"})
     public Response onliner() {
         cluster.setStatus(Status.ONLINE);
+        Model.changed();
         return Response.ok(cluster).links(getTransitionalLinks()).build();
     }
 
@@ -85,6 +108,7 @@ public class ClusterResource {
     @Produces({"application/json"})
     public Response offliner() {
         cluster.setStatus(Status.OFFLINE);
+        Model.changed();
         return Response.ok(cluster).links(getTransitionalLinks()).build();
     }
 
@@ -53,6 +53,7 @@ import javax.ws.rs.core.Link;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import jaxrs.examples.filter.preconditions.ValidatedBy;
 import jaxrs.examples.link.clusterservice.Machine.Status;
 
 /**
@@ -70,6 +71,7 @@ public class MachineResource {
 
     @GET
     @Produces({"application/json"})
+    @ValidatedBy(MachineValidators.class)
     public Response self(@PathParam("name") String name) {
         machine = getMachine(name);
         return Response.ok(machine).links(getTransitionalLinks()).build();
@@ -81,6 +83,7 @@ public class MachineResource {
     public Response starter(@PathParam("name") String name) {
         machine = getMachine(name);
         machine.setStatus(Status.STARTED);
+        Model.changed();
         return Response.ok(machine).links(getTransitionalLinks()).build();
     }
 
@@ -90,6 +93,7 @@ public class MachineResource {
     public Response stopper(@PathParam("name") String name) {
         machine = getMachine(name);
         machine.setStatus(Status.STOPPED);
+        Model.changed();
         return Response.ok(machine).links(getTransitionalLinks()).build();
     }
 
@@ -99,6 +103,7 @@ public class MachineResource {
     public Response suspender(@PathParam("name") String name) {
         machine = getMachine(name);
         machine.setStatus(Status.SUSPENDED);
+        Model.changed();
         return Response.ok(machine).links(getTransitionalLinks()).build();
     }
 
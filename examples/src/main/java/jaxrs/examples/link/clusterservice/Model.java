@@ -40,6 +40,8 @@
 
 package jaxrs.examples.link.clusterservice;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Model class.
  *
@@ -49,6 +51,8 @@ public class Model {
 
     static final Cluster cluster;
 
+    private static final AtomicLong version = new AtomicLong();
+
     static {
         cluster = new Cluster("cluster1");
         Machine m = new Machine("alpha");
@@ -78,6 +82,17 @@ public class Model {
         return null;
     }
 
+    /**
+     * Get the version of the model, incremented by each change of the cluster or machine status.
+     */
+    static long getVersion() {
+        return version.get();
+    }
+
+    static void changed() {
+        version.incrementAndGet();
+    }
+
     private Model() {
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.nio;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.AsyncMessageBodyReader;
+import javax.ws.rs.ext.AsyncMessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Example of a non-blocking reader and writer of {@code String} entities.
+ * <p>
+ * The reader decodes each chunk as it arrives, carrying over the bytes of characters split between chunks, and
+ * requests the next chunk only once the current one is decoded. The writer encodes the next chunk only when
+ * the runtime requests it.
+ * </p>
+ */
+@Provider
+public class AsyncStringProvider implements AsyncMessageBodyReader<String>, AsyncMessageBodyWriter<String> {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return String.class == type;
+    }
+
+    @Override
+    public CompletionStage<String> readFrom(Class<String> type, Type genericType, Annotation[] annotations,
+                                            MediaType mediaType, MultivaluedMap<String, String> httpHeaders,
+                                            Flow.Publisher<ByteBuffer> entity) {
+        final DecodingSubscriber subscriber = new DecodingSubscriber(charset(mediaType));
+        entity.subscribe(subscriber);
+        return subscriber.result;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return String.class == type;
+    }
+
+    @Override
+    public Flow.Publisher<ByteBuffer> writeTo(String s, Class<?> type, Type genericType, Annotation[] annotations,
+                                              MediaType mediaType, MultivaluedMap<String, Object> httpHeaders) {
+        final CharsetEncoder encoder = charset(mediaType).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final CharBuffer chars = CharBuffer.wrap(s);
+        return new ChunkPublisher() {
+            private boolean flushed;
+
+            @Override
+            protected ByteBuffer nextChunk() throws Exception {
+                if (flushed) {
+                    return null;
+                }
+                final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+                CoderResult result = encoder.encode(chars, chunk, true);
+                if (result.isUnderflow()) {
+                    result = encoder.flush(chunk);
+                    flushed = result.isUnderflow();
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                chunk.flip();
+                return chunk.hasRemaining() ? chunk : null;
+            }
+        };
+    }
+
+    private static Charset charset(final MediaType mediaType) {
+        final String name = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return name == null ? StandardCharsets.UTF_8 : Charset.forName(name);
+    }
+
+    private static final class DecodingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final CharsetDecoder decoder;
+        private final StringBuilder text = new StringBuilder();
+        private final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+        private ByteBuffer carry;
+        private Flow.Subscription subscription;
+
+        private DecodingSubscriber(final Charset charset) {
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            ByteBuffer input = chunk;
+            if (carry != null) {
+                input = ByteBuffer.allocate(carry.remaining() + chunk.remaining());
+                input.put(carry).put(chunk).flip();
+            }
+            decode(input, false);
+            // the chunk is only valid during this call, copy the bytes of an incomplete character
+            carry = input.hasRemaining() ? ByteBuffer.allocate(input.remaining()).put(input) : null;
+            if (carry != null) {
+                carry.flip();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            decode(carry != null ? carry : ByteBuffer.allocate(0), true);
+            while (decoder.flush(chars).isOverflow()) {
+                drainChars();
+            }
+            drainChars();
+            result.complete(text.toString());
+        }
+
+        private void decode(final ByteBuffer input, final boolean endOfInput) {
+            while (decoder.decode(input, chars, endOfInput).isOverflow()) {
+                drainChars();
+            }
+        }
+
+        private void drainChars() {
+            chars.flip();
+            text.append(chars);
+            chars.clear();
+        }
+    }
+}
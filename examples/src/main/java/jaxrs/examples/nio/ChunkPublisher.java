@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.Flow;
+
+/**
+ * Single-subscriber publisher producing entity chunks on demand.
+ * <p>
+ * Chunks are produced synchronously in the thread requesting them, one at a time, so a subclass does not need to
+ * be thread-safe and never produces more chunks than requested.
+ * </p>
+ */
+public abstract class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Produce the next chunk.
+     *
+     * @return next chunk or {@code null} at the end of the entity.
+     * @throws Exception in case producing the chunk fails, signalled to the subscriber.
+     */
+    protected abstract ByteBuffer nextChunk() throws Exception;
+
+    /**
+     * Release resources held by the publisher. Invoked once the entity is complete, has failed or
+     * the subscription was cancelled.
+     */
+    protected void release() {
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Entity publisher supports a single subscriber."));
+            return;
+        }
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+
+    private final class ChunkSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private ChunkSubscription(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                if (done.compareAndSet(false, true)) {
+                    release();
+                    subscriber.onError(new IllegalArgumentException("Demand must be positive: " + n));
+                }
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+            } while (current != Long.MAX_VALUE
+                    && !demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                release();
+            }
+        }
+
+        /**
+         * Emit chunks while there is demand. Re-entrant calls from {@code onNext} only update the demand.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (demand.get() > 0 && !done.get()) {
+                    final ByteBuffer chunk;
+                    try {
+                        chunk = nextChunk();
+                    } catch (Exception e) {
+                        if (done.compareAndSet(false, true)) {
+                            release();
+                            subscriber.onError(e);
+                        }
+                        break;
+                    }
+                    if (chunk == null) {
+                        if (done.compareAndSet(false, true)) {
+                            release();
+                            subscriber.onComplete();
+                        }
+                        break;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(chunk);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.AsyncReaderInterceptor;
+import javax.ws.rs.ext.AsyncReaderInterceptorContext;
+
+/**
+ * Example of a non-blocking reader interceptor rejecting request entities larger than a limit with
+ * {@code 413 Request Entity Too Large}.
+ * <p>
+ * Entities with a {@code Content-Length} above the limit are rejected before any chunk is read; chunked entities
+ * are rejected, and the rest of the entity is cancelled, as soon as the limit is exceeded.
+ * </p>
+ */
+public class EntitySizeLimitInterceptor implements AsyncReaderInterceptor {
+
+    private final long maxBytes;
+
+    public EntitySizeLimitInterceptor(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CompletionStage<Object> aroundReadFrom(final AsyncReaderInterceptorContext context) {
+        final String contentLength = context.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null && Long.parseLong(contentLength.trim()) > maxBytes) {
+            final CompletableFuture<Object> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(tooLarge());
+            return rejected;
+        }
+        context.setEntityStream(new LimitingPublisher(context.getEntityStream()));
+        return context.proceed();
+    }
+
+    private WebApplicationException tooLarge() {
+        return new WebApplicationException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    private final class LimitingPublisher implements Flow.Publisher<ByteBuffer> {
+
+        private final Flow.Publisher<ByteBuffer> upstream;
+
+        private LimitingPublisher(final Flow.Publisher<ByteBuffer> upstream) {
+            this.upstream = upstream;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            upstream.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                private Flow.Subscription subscription;
+                private long received;
+                private boolean failed;
+
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(final ByteBuffer chunk) {
+                    if (failed) {
+                        return;
+                    }
+                    received += chunk.remaining();
+                    if (received > maxBytes) {
+                        failed = true;
+                        subscription.cancel();
+                        subscriber.onError(tooLarge());
+                        return;
+                    }
+                    subscriber.onNext(chunk);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    if (!failed) {
+                        subscriber.onError(throwable);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    if (!failed) {
+                        subscriber.onComplete();
+                    }
+                }
+            });
+        }
+    }
+}
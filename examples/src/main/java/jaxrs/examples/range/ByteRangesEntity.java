@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.range;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.ws.rs.core.ByteRange;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Entity consisting of one or more ranges of a representation.
+ * <p>
+ * A single range is written as is; multiple ranges are written as a {@code multipart/byteranges} body. The exact
+ * length of the entity is known up front in both cases.
+ * </p>
+ */
+public final class ByteRangesEntity {
+
+    private final RangeSource source;
+    private final List<ByteRange> ranges;
+    private final MediaType mediaType;
+    private final String boundary;
+
+    ByteRangesEntity(final RangeSource source,
+                     final List<ByteRange> ranges,
+                     final MediaType mediaType,
+                     final String boundary) {
+        this.source = source;
+        this.ranges = ranges;
+        this.mediaType = mediaType;
+        this.boundary = boundary;
+    }
+
+    /**
+     * Get the length of the entity.
+     *
+     * @return entity length in bytes.
+     */
+    public long length() {
+        if (boundary == null) {
+            return ranges.isEmpty() ? 0 : ranges.get(0).getLength();
+        }
+        long length = 0;
+        for (final ByteRange range : ranges) {
+            length += partHeader(range).length + range.getLength();
+        }
+        return length + closeDelimiter().length;
+    }
+
+    /**
+     * Write the entity.
+     *
+     * @param out entity stream.
+     * @throws IOException in case reading the representation or writing the stream fails.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        if (boundary == null) {
+            for (final ByteRange range : ranges) {
+                source.transfer(range.getFirst(), range.getLength(), out);
+            }
+            return;
+        }
+        for (final ByteRange range : ranges) {
+            out.write(partHeader(range));
+            source.transfer(range.getFirst(), range.getLength(), out);
+        }
+        out.write(closeDelimiter());
+    }
+
+    private byte[] partHeader(final ByteRange range) {
+        final StringBuilder header = new StringBuilder("\r\n--").append(boundary).append("\r\n");
+        if (mediaType != null) {
+            header.append(HttpHeaders.CONTENT_TYPE).append(": ").append(mediaType).append("\r\n");
+        }
+        header.append(HttpHeaders.CONTENT_RANGE).append(": ").append(range.toContentRange(source.length()))
+                .append("\r\n\r\n");
+        return header.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closeDelimiter() {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.range;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+/**
+ * Example of a resource serving resumable downloads of large files.
+ */
+@javax.ws.rs.Path("downloads/{name}")
+public class DownloadResource {
+
+    private static final Path DOWNLOADS = Paths.get(System.getProperty("downloads.dir", "downloads"));
+
+    @PathParam("name")
+    private String name;
+
+    @GET
+    public Response get(@Context Request request, @Context HttpHeaders headers) throws IOException {
+        final Path file = DOWNLOADS.resolve(name).normalize();
+        if (!file.startsWith(DOWNLOADS) || !Files.isRegularFile(file)) {
+            throw new NotFoundException();
+        }
+        final RangeSource source = RangeSource.of(file);
+        final Date lastModified = new Date(Files.getLastModifiedTime(file).toMillis());
+        // weak validators must not be used with If-Range, derive a strong one from size and modification time
+        final EntityTag eTag = new EntityTag(Long.toHexString(source.length()) + "-"
+                + Long.toHexString(lastModified.getTime()));
+
+        return RangeResponses.evaluate(request, headers, source, MediaType.APPLICATION_OCTET_STREAM_TYPE,
+                eTag, lastModified).build();
+    }
+}
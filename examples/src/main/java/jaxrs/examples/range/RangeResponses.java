@@ -0,0 +1,198 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.range;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.ByteRange;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+/**
+ * Evaluation of range requests, in the style of {@link Request#evaluatePreconditions(Date, EntityTag)}.
+ * <p>
+ * Example of a resource method serving byte ranges of a file:
+ * <pre>
+ *   &#64;GET
+ *   public Response get(&#64;Context Request request, &#64;Context HttpHeaders headers) throws IOException {
+ *       return RangeResponses.evaluate(request, headers, RangeSource.of(file), MediaType.APPLICATION_OCTET_STREAM_TYPE,
+ *               eTag, lastModified).build();
+ *   }
+ * </pre>
+ * The {@link ByteRangesEntityWriter} has to be registered to write the produced entities.
+ * </p>
+ */
+public final class RangeResponses {
+
+    /**
+     * Maximum number of ranges served in a single multipart response after coalescing; requests for more
+     * ranges are answered with the complete representation.
+     */
+    static final int MAX_RANGES = 16;
+
+    private static final String MULTIPART_BYTERANGES = "multipart/byteranges";
+
+    private RangeResponses() {
+    }
+
+    /**
+     * Evaluate the preconditions and the {@code Range} and {@code If-Range} headers of a request.
+     * <p>
+     * The returned builder is either a {@code 304}/{@code 412} response produced by the preconditions, a
+     * {@code 416 Requested Range Not Satisfiable} response, a {@code 206 Partial Content} response with one range
+     * or with a {@code multipart/byteranges} entity, or a {@code 200 OK} response with the complete
+     * representation in case the range request does not apply.
+     * </p>
+     *
+     * @param request      current request.
+     * @param headers      current request headers.
+     * @param source       representation.
+     * @param mediaType    media type of the representation.
+     * @param eTag         entity tag of the representation, may be {@code null}.
+     * @param lastModified last modification date of the representation, may be {@code null}.
+     * @return response builder.
+     */
+    public static Response.ResponseBuilder evaluate(final Request request,
+                                                    final HttpHeaders headers,
+                                                    final RangeSource source,
+                                                    final MediaType mediaType,
+                                                    final EntityTag eTag,
+                                                    final Date lastModified) {
+        final Response.ResponseBuilder preconditions = evaluatePreconditions(request, eTag, lastModified);
+        if (preconditions != null) {
+            return preconditions;
+        }
+
+        final long length = source.length();
+        List<ByteRange> ranges = null;
+        if (HttpMethod.GET.equals(request.getMethod()) && ifRangeMatches(headers, eTag, lastModified)) {
+            ranges = ByteRange.parse(headers.getHeaderString(HttpHeaders.RANGE), length);
+        }
+
+        final Response.ResponseBuilder builder;
+        if (ranges == null) {
+            builder = Response.ok(complete(source, mediaType), mediaType);
+        } else if (ranges.isEmpty()) {
+            builder = Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, ByteRange.unsatisfiedContentRange(length));
+        } else {
+            ranges = ByteRange.coalesce(ranges);
+            if (ranges.size() == 1) {
+                builder = Response.status(Response.Status.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, ranges.get(0).toContentRange(length))
+                        .type(mediaType)
+                        .entity(new ByteRangesEntity(source, ranges, mediaType, null));
+            } else if (ranges.size() <= MAX_RANGES) {
+                final String boundary = UUID.randomUUID().toString();
+                builder = Response.status(Response.Status.PARTIAL_CONTENT)
+                        .type(MULTIPART_BYTERANGES + "; boundary=" + boundary)
+                        .entity(new ByteRangesEntity(source, ranges, mediaType, boundary));
+            } else {
+                builder = Response.ok(complete(source, mediaType), mediaType);
+            }
+        }
+        if (eTag != null) {
+            builder.tag(eTag);
+        }
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder.header(HttpHeaders.ACCEPT_RANGES, ByteRange.BYTES_UNIT);
+    }
+
+    private static Response.ResponseBuilder evaluatePreconditions(final Request request,
+                                                                  final EntityTag eTag,
+                                                                  final Date lastModified) {
+        if (eTag != null && lastModified != null) {
+            return request.evaluatePreconditions(lastModified, eTag);
+        } else if (eTag != null) {
+            return request.evaluatePreconditions(eTag);
+        } else if (lastModified != null) {
+            return request.evaluatePreconditions(lastModified);
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the representation is unchanged since the time or entity tag in the {@code If-Range} header.
+     */
+    private static boolean ifRangeMatches(final HttpHeaders headers, final EntityTag eTag, final Date lastModified) {
+        final String ifRange = headers.getHeaderString(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        final String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            // If-Range requires the strong comparison function
+            return eTag != null && !eTag.isWeak()
+                    && value.length() >= 2 && value.endsWith("\"") && !value.startsWith("W/")
+                    && value.substring(1, value.length() - 1).equals(eTag.getValue());
+        }
+        if (lastModified == null) {
+            return false;
+        }
+        final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value).getTime() / 1000 == lastModified.getTime() / 1000;
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    private static ByteRangesEntity complete(final RangeSource source, final MediaType mediaType) {
+        final long length = source.length();
+        final List<ByteRange> all = length == 0
+                ? Collections.<ByteRange>emptyList()
+                : Collections.singletonList(new ByteRange(0, length - 1));
+        return new ByteRangesEntity(source, all, mediaType, null);
+    }
+}
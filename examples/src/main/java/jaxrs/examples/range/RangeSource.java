@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.range;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.ws.rs.core.FileRegion;
+import javax.ws.rs.core.StreamingOutput;
+
+import jaxrs.examples.entity.ChannelTransfer;
+
+/**
+ * Representation that can be written in ranges.
+ */
+public interface RangeSource {
+
+    /**
+     * Get the length of the representation.
+     *
+     * @return length in bytes.
+     */
+    long length();
+
+    /**
+     * Write a region of the representation.
+     *
+     * @param position offset of the first byte of the region.
+     * @param count    number of bytes in the region.
+     * @param out      stream to write the region to.
+     * @throws IOException in case reading the representation or writing the stream fails.
+     */
+    void transfer(long position, long count, OutputStream out) throws IOException;
+
+    /**
+     * Create a seekable source transferring only the requested regions of a file.
+     *
+     * @param file file.
+     * @return range source.
+     * @throws IOException in case the size of the file cannot be determined.
+     */
+    static RangeSource of(final Path file) throws IOException {
+        final long length = Files.size(file);
+        return new RangeSource() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            public void transfer(final long position, final long count, final OutputStream out) throws IOException {
+                FileRegion.of(file, position, count).transferTo(ChannelTransfer.target(out));
+            }
+        };
+    }
+
+    /**
+     * Create a source from streaming output of a known length.
+     * <p>
+     * Streaming output is not seekable: each region is written by running the output and discarding the bytes
+     * outside of the region. Use it for representations that are cheap to produce.
+     * </p>
+     *
+     * @param output streaming output.
+     * @param length length of the output in bytes.
+     * @return range source.
+     */
+    static RangeSource of(final StreamingOutput output, final long length) {
+        return new RangeSource() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            public void transfer(final long position, final long count, final OutputStream out) throws IOException {
+                output.write(new WindowOutputStream(out, position, count));
+            }
+        };
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse;
+
+import java.lang.reflect.Type;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Load test of concurrent {@link ItemStoreResource#addItem(String)} invocations.
+ * <p>
+ * Usage: {@code ItemStoreLoadTest [threads] [items per thread]}, by default one thread per available processor
+ * adding 200000 items each. The resource is run with an in-memory {@link Sse} whose broadcaster checks that item
+ * events are broadcast in identifier order. For comparison, the same load is run against a store guarded by a
+ * read-write lock, broadcasting while holding the write lock. The throughput of adding items, and the time until
+ * all events are broadcast, are printed for both.
+ */
+public final class ItemStoreLoadTest {
+
+    private static final int ROUNDS = 3;
+
+    private ItemStoreLoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int itemsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("round " + round + ":");
+            final InMemorySse lockFreeSse = new InMemorySse();
+            final ItemStoreResource resource = new ItemStoreResource(lockFreeSse);
+            try {
+                run("lock-free", threads, itemsPerThread, lockFreeSse,
+                        item -> resource.addItem("item-" + item));
+            } finally {
+                // a ring thread left running would skew the later rounds
+                resource.close();
+            }
+
+            final InMemorySse lockedSse = new InMemorySse();
+            final LockedItemStore locked = new LockedItemStore(lockedSse);
+            run("read-write lock", threads, itemsPerThread, lockedSse,
+                    item -> locked.addItem("item-" + item));
+        }
+    }
+
+    private static void run(final String name,
+                            final int threads,
+                            final int itemsPerThread,
+                            final InMemorySse sse,
+                            final IntConsumer addItem) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch added = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int first = t * itemsPerThread;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < itemsPerThread; i++) {
+                        addItem.accept(first + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    added.countDown();
+                }
+            });
+            thread.start();
+        }
+
+        final long items = (long) threads * itemsPerThread;
+        final long begin = System.nanoTime();
+        start.countDown();
+        added.await();
+        final long addedAt = System.nanoTime();
+        sse.broadcaster.awaitEvents(2 * items);
+        final long broadcastAt = System.nanoTime();
+
+        final long addMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(addedAt - begin));
+        System.out.printf("  %s: %d items by %d thread(s) added in %d ms (%.0f items/ms), all events broadcast "
+                        + "after %d ms%n", name, items, threads, addMillis, (double) items / addMillis,
+                TimeUnit.NANOSECONDS.toMillis(broadcastAt - begin));
+    }
+
+    /**
+     * Store guarded by a read-write lock, broadcasting while holding the write lock.
+     */
+    private static final class LockedItemStore {
+
+        private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+        private final LinkedList<String> itemStore = new LinkedList<>();
+        private final Sse sse;
+        private final SseBroadcaster broadcaster;
+
+        private LockedItemStore(final Sse sse) {
+            this.sse = sse;
+            this.broadcaster = sse.newBroadcaster();
+        }
+
+        private void addItem(final String name) {
+            try {
+                storeLock.writeLock().lock();
+                final int eventId = itemStore.size();
+                itemStore.add(name);
+                broadcaster.broadcast(sse.newEventBuilder().id(Integer.toString(eventId))
+                        .data(String.class, name).build());
+                broadcaster.broadcast(sse.newEventBuilder().name("size").data(Integer.class, eventId + 1).build());
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * {@link Sse} creating plain events and a single broadcaster.
+     */
+    private static final class InMemorySse implements Sse {
+
+        private final CheckingBroadcaster broadcaster = new CheckingBroadcaster();
+
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new InMemoryEvent();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            return broadcaster;
+        }
+    }
+
+    /**
+     * Broadcaster counting the events and checking that item events are broadcast in identifier order.
+     */
+    private static final class CheckingBroadcaster implements SseBroadcaster {
+
+        private final AtomicLong events = new AtomicLong();
+        private long nextId;
+
+        @Override
+        public void onError(final BiConsumer<SseEventSink, Throwable> onError) {
+        }
+
+        @Override
+        public void onClose(final Consumer<SseEventSink> onClose) {
+        }
+
+        @Override
+        public void register(final SseEventSink sseEventSink) {
+        }
+
+        @Override
+        public CompletionStage<?> broadcast(final OutboundSseEvent event) {
+            if (event.getId() != null && Long.parseLong(event.getId()) != nextId++) {
+                throw new IllegalStateException("Event " + event.getId() + " broadcast out of order.");
+            }
+            events.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void awaitEvents(final long count) throws InterruptedException {
+            while (events.get() < count) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Event built by itself.
+     */
+    private static final class InMemoryEvent implements OutboundSseEvent, OutboundSseEvent.Builder {
+
+        private String id;
+        private String name;
+        private String comment;
+        private long reconnectDelay = RECONNECT_NOT_SET;
+        private MediaType mediaType = MediaType.TEXT_PLAIN_TYPE;
+        private Class<?> type;
+        private Type genericType;
+        private Object data;
+
+        @Override
+        public Builder id(final String id) {
+            this.id = id;
+            return this;
+        }
+
+        @Override
+        public Builder name(final String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public Builder reconnectDelay(final long milliseconds) {
+            this.reconnectDelay = milliseconds < 0 ? RECONNECT_NOT_SET : milliseconds;
+            return this;
+        }
+
+        @Override
+        public Builder mediaType(final MediaType mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+        @Override
+        public Builder comment(final String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Builder data(final Class type, final Object data) {
+            this.type = type;
+            this.genericType = type;
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Builder data(final GenericType type, final Object data) {
+            this.type = type.getRawType();
+            this.genericType = type.getType();
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public Builder data(final Object data) {
+            return data(data.getClass(), data);
+        }
+
+        @Override
+        public OutboundSseEvent build() {
+            return this;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getComment() {
+            return comment;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return reconnectDelay != RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public Object getData() {
+            return data;
+        }
+    }
+}
@@ -39,10 +39,6 @@
  */
 package jaxrs.examples.sse;
 
-import java.io.IOException;
-import java.util.LinkedList;
-import java.util.ListIterator;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,7 +47,6 @@ import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
-import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -64,11 +59,22 @@ import javax.ws.rs.sse.Sse;
 import javax.ws.rs.sse.SseBroadcaster;
 import javax.ws.rs.sse.SseEventSink;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import jaxrs.examples.sse.store.ChunkedAppendOnlyList;
+import jaxrs.examples.sse.store.SingleWriterRing;
+
 /**
  * A resource for storing named items.
+ * <p>
+ * Items are appended to a lock-free {@link ChunkedAppendOnlyList}, whose indexes are the identifiers of the item
+ * events. The events are created by the thread adding the item and published to a {@link SingleWriterRing}, whose
+ * single consumer thread broadcasts them in identifier order, so that no lock is held while adding items or
+ * broadcasting events. Reconnecting clients are registered by the same thread, after the events they missed are
+ * replayed to them, so that they receive every event once and in order.
+ * </p>
  *
  * @author Marek Potociar (marek.potociar at oracle.com)
  */
@@ -78,12 +84,15 @@ import javax.inject.Singleton;
 public class ItemStoreResource {
 
     private static final Logger LOGGER = Logger.getLogger(ItemStoreResource.class.getName());
+    private static final int RING_CAPACITY = 1024;
+    private static final OutboundSseEvent[] NO_EVENTS = new OutboundSseEvent[0];
 
-    private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
-    private final LinkedList<String> itemStore = new LinkedList<>();
+    private final ChunkedAppendOnlyList<String> itemStore = new ChunkedAppendOnlyList<>();
+    private final SingleWriterRing<OutboundSseEvent[]> broadcastRing;
 
     private final Sse sse;
     private final SseBroadcaster broadcaster;
+    private final SseAdmissionLimiter reconnects = new SseAdmissionLimiter(200, 100);
 
     @Inject
     public ItemStoreResource(Sse sse) {
@@ -93,11 +102,26 @@ public class ItemStoreResource {
         broadcaster.onError((subscriber, e) ->
                 LOGGER.log(Level.WARNING, "An exception has been thrown while broadcasting to an event output.", e));
 
-        broadcaster.onClose(subscriber -> LOGGER.log(Level.INFO, "SSE event output has been closed."));
+        broadcaster.onClose(subscriber -> LOGGER.log(Level.FINE, "SSE event output has been closed."));
+
+        this.broadcastRing = new SingleWriterRing<>(RING_CAPACITY, 0, events -> {
+            for (OutboundSseEvent event : events) {
+                broadcaster.broadcast(event);
+            }
+        }, "item-store-broadcaster");
     }
 
     private static volatile long reconnectDelay = 0;
 
+    /**
+     * Stop the broadcasting thread and close all registered event streams.
+     */
+    @PreDestroy
+    public void close() {
+        broadcastRing.close();
+        broadcaster.close();
+    }
+
     /**
      * List all stored items.
      *
@@ -106,12 +130,14 @@ public class ItemStoreResource {
     @GET
     @Produces(MediaType.TEXT_PLAIN)
     public String listItems() {
-        try {
-            storeLock.readLock().lock();
-            return itemStore.toString();
-        } finally {
-            storeLock.readLock().unlock();
-        }
+        final StringBuilder items = new StringBuilder("[");
+        itemStore.forEach(0, itemStore.size(), item -> {
+            if (items.length() > 1) {
+                items.append(", ");
+            }
+            items.append(item);
+        });
+        return items.append(']').toString();
     }
 
     /**
@@ -156,11 +182,13 @@ public class ItemStoreResource {
 
     /**
      * Connect or re-connect to SSE event stream.
+     * <p>
+     * Re-connecting clients are admitted at a limited rate; the clients exceeding it are told when to reconnect
+     * with the {@code retry} field of an event, and disconnected.
      *
      * @param lastEventId Value of custom SSE HTTP <tt>{@value javax.ws.rs.core.HttpHeaders#LAST_EVENT_ID_HEADER}</tt> header.
      *                    Defaults to {@code -1} if not set.
      * @param serverSink new SSE server sink stream representing the (re-)established SSE client connection.
-     * @throws InternalServerErrorException in case replaying missed events to the reconnected output stream fails.
      * @throws ServiceUnavailableException  in case the reconnect delay is set to a positive value.
      */
     @GET
@@ -171,43 +199,31 @@ public class ItemStoreResource {
             @Context SseEventSink serverSink) {
 
         if (lastEventId >= 0) {
-            LOGGER.info("Received last event id :" + lastEventId);
-
             // decide the reconnect handling strategy based on current reconnect delay value.
             final long delay = reconnectDelay;
             if (delay > 0) {
-                LOGGER.info("Non-zero reconnect delay [" + delay + "] - responding with HTTP 503.");
+                LOGGER.fine("Non-zero reconnect delay [" + delay + "] - responding with HTTP 503.");
                 throw new ServiceUnavailableException(delay);
-            } else {
-                LOGGER.info("Zero reconnect delay - reconnecting.");
-                try {
-                    replayMissedEvents(lastEventId, serverSink);
-                } catch (IOException e) {
-                    // handle I/O failure.
-                }
+            }
+            if (!reconnects.admit(serverSink, sse)) {
+                return;
             }
         }
 
-        broadcaster.register(serverSink);
+        // replayed and registered by the broadcasting thread, between two broadcast items
+        broadcastRing.execute(() -> {
+            if (lastEventId >= 0) {
+                replayMissedEvents(lastEventId, serverSink);
+            }
+            broadcaster.register(serverSink);
+        });
     }
 
-    private void replayMissedEvents(final int lastEventId, final SseEventSink eventOutput) throws IOException {
-        try {
-            storeLock.readLock().lock();
-            final int firstUnreceived = lastEventId + 1;
-            final int missingCount = itemStore.size() - firstUnreceived;
-            if (missingCount > 0) {
-                LOGGER.info("Replaying events - starting with id " + firstUnreceived);
-                final ListIterator<String> it = itemStore.subList(firstUnreceived, itemStore.size()).listIterator();
-                while (it.hasNext()) {
-                    eventOutput.send(createItemEvent(it.nextIndex() + firstUnreceived, it.next()));
-                }
-            } else {
-                LOGGER.info("No events to replay.");
-            }
-        } finally {
-            storeLock.readLock().unlock();
-        }
+    private void replayMissedEvents(final int lastEventId, final SseEventSink eventOutput) {
+        final int[] eventId = {lastEventId + 1};
+        // all the items before the next one to broadcast are stored
+        itemStore.forEach(eventId[0], (int) broadcastRing.getNextSequence(),
+                item -> eventOutput.send(createItemEvent(eventId[0]++, item)));
     }
 
     /**
@@ -224,23 +240,22 @@ public class ItemStoreResource {
             return;
         }
 
-        final int eventId;
+        final int eventId = itemStore.append(name);
+        OutboundSseEvent[] events = NO_EVENTS;
         try {
-            storeLock.writeLock().lock();
-            eventId = itemStore.size();
-            itemStore.add(name);
-            // Broadcasting an un-named event with the name of the newly added item in data
-            broadcaster.broadcast(createItemEvent(eventId, name));
-            // Broadcasting a named "size" event with the current size of the items collection in data
-            broadcaster.broadcast(sse.newEventBuilder().name("size").data(Integer.class, eventId + 1).build());
+            events = new OutboundSseEvent[] {
+                    // an un-named event with the name of the newly added item in data
+                    createItemEvent(eventId, name),
+                    // a named "size" event with the size of the items collection at that event in data
+                    sse.newEventBuilder().name("size").data(Integer.class, eventId + 1).build()
+            };
         } finally {
-            storeLock.writeLock().unlock();
+            // every identifier is published, or the broadcasting thread would wait for it forever
+            broadcastRing.publish(eventId, events);
         }
     }
 
     private OutboundSseEvent createItemEvent(final int eventId, final String name) {
-        Logger.getLogger(ItemStoreResource.class.getName())
-              .info("Creating event id [" + eventId + "] name [" + name + "]");
-        return sse.newEventBuilder().id("" + eventId).data(String.class, name).build();
+        return sse.newEventBuilder().id(Integer.toString(eventId)).data(String.class, name).build();
     }
 }
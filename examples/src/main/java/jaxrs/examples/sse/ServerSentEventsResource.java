@@ -40,6 +40,7 @@
 package jaxrs.examples.sse;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -57,6 +58,8 @@ import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import jaxrs.examples.timer.HashedWheelTimer;
+
 /**
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
@@ -67,6 +70,7 @@ public class ServerSentEventsResource {
     private final Object outputLock = new Object();
     private final Sse sse;
     private volatile SseEventSink eventSink;
+    private HashedWheelTimer.Timeout keepAlive;
 
     @Resource
     private ManagedExecutorService executorService;
@@ -84,6 +88,7 @@ public class ServerSentEventsResource {
                 throw new IllegalStateException("Server sink already served.");
             }
             this.eventSink = eventSink;
+            this.keepAlive = SseKeepAlive.start(eventSink, 30, TimeUnit.SECONDS);
         }
     }
 
@@ -99,6 +104,7 @@ public class ServerSentEventsResource {
     public void close() throws IOException {
         synchronized (outputLock) {
             if (eventSink != null) {
+                keepAlive.cancel();
                 eventSink.close();
                 eventSink = null;
             }
@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Limiter of the rate at which SSE connections are admitted, spreading the reconnects of a storm of clients, such as
+ * all the clients of a restarted server, over time.
+ * <p>
+ * Connections are admitted as long as a token bucket, refilled at the admission rate, has tokens left. Clients
+ * arriving when the bucket is empty are given the next free slot of a schedule advancing at the admission rate, and
+ * are told to reconnect when their slot comes with the {@code retry} field of an event, in milliseconds, before
+ * their connection is closed. The clients turned away thus come back one by one at the admission rate, instead of
+ * all at once after a fixed {@code Retry-After} delay.
+ * </p>
+ */
+public final class SseAdmissionLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    // time at which the bucket is full, in the past when it is
+    private long bucketFullAt;
+    // last reconnect slot given to a client that was turned away
+    private long lastSlot;
+
+    /**
+     * Create a limiter.
+     *
+     * @param connectionsPerSecond admission rate.
+     * @param burst                number of connections admitted at once when no connection was admitted recently.
+     */
+    public SseAdmissionLimiter(final double connectionsPerSecond, final int burst) {
+        if (connectionsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Admission rate and burst must be positive.");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / connectionsPerSecond));
+        this.burstNanos = burst * intervalNanos;
+        final long now = System.nanoTime();
+        this.bucketFullAt = now;
+        this.lastSlot = now;
+    }
+
+    /**
+     * Admit a connection.
+     *
+     * @return {@code 0} if the connection is admitted, otherwise the delay in milliseconds after which the client
+     * should reconnect.
+     */
+    public synchronized long admit() {
+        final long now = System.nanoTime();
+        final long tokensSpentUntil = Math.max(bucketFullAt, now) + intervalNanos;
+        if (tokensSpentUntil - now <= burstNanos) {
+            bucketFullAt = tokensSpentUntil;
+            return 0;
+        }
+        // the first slot is when a token is available again
+        final long firstFreeSlot = tokensSpentUntil - burstNanos;
+        lastSlot = Math.max(lastSlot + intervalNanos, firstFreeSlot);
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(lastSlot - now));
+    }
+
+    /**
+     * Admit a connection, or tell the client when to reconnect and close its connection.
+     *
+     * @param sink event sink of the connection.
+     * @param sse  server-sent events factory.
+     * @return {@code true} if the connection is admitted.
+     */
+    public boolean admit(final SseEventSink sink, final Sse sse) {
+        final long delay = admit();
+        if (delay == 0) {
+            return true;
+        }
+        sink.send(sse.newEventBuilder()
+                     .comment("server busy")
+                     .reconnectDelay(delay)
+                     .build())
+            .whenComplete((result, error) -> sink.close());
+        return false;
+    }
+}
@@ -39,11 +39,16 @@
  */
 package jaxrs.examples.sse;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.sse.InboundSseEvent;
 import javax.ws.rs.sse.SseEventSource;
 
+import jaxrs.examples.sse.client.BatchingSseConsumer;
+
 /**
  * Examples of Client-side Server-sent events processing.
  *
@@ -55,6 +60,7 @@ public class SseClient {
 
     public static void main(String[] args) {
         consumeAllEvents();
+        consumeEventBatches();
     }
 
     private static void consumeAllEvents() {
@@ -113,4 +119,30 @@ public class SseClient {
             e.printStackTrace();
         }
     }
+
+    private static void consumeEventBatches() {
+
+        // BatchingSseConsumer#register(SseEventSource, Consumer<Throwable>)
+        // consumes events in batches of up to 100 events, delivered at most 50 ms after their first event,
+        // keeping only the latest event of every name; writes the batch sizes on standard out.
+        try (final SseEventSource eventSource = SseEventSource.target(target).build();
+             final BatchingSseConsumer batches = BatchingSseConsumer
+                     .builder(events -> System.out.println(events.size() + " event(s)"))
+                     .maxBatchSize(100)
+                     .maxDelay(50, TimeUnit.MILLISECONDS)
+                     .coalesceBy(InboundSseEvent::getName)
+                     .build()) {
+
+            batches.register(eventSource, Throwable::printStackTrace);
+            eventSource.open();
+
+            for (int counter = 0; counter < 5; counter++) {
+                target.request().post(Entity.text("message " + counter));
+            }
+
+            Thread.sleep(500); // make sure all the events have time to arrive
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.SerializedEntity;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseEventSink;
+
+import jaxrs.examples.entity.EntitySerializer;
+
+/**
+ * Encoder of outbound events into the {@code text/event-stream} wire format, e.g. to
+ * {@link SseEventSink#sendEncoded(ByteBuffer) send} an event to many sinks or to store it in a log.
+ * <p>
+ * Event data of type {@code String} is encoded as UTF-8, {@link SerializedEntity serialized entities} are used
+ * as they are and any other data is serialized by the message body writers of the runtime. Line breaks in the
+ * comment and data are encoded as separate lines.
+ * </p>
+ */
+public final class SseEventEncoder {
+
+    private static final byte[] COMMENT = ": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT = "event: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID = "id: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RETRY = "retry: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final EntitySerializer serializer;
+
+    /**
+     * Create a new encoder.
+     *
+     * @param serializer serializer of event data other than strings and serialized entities.
+     */
+    public SseEventEncoder(final EntitySerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Encode an event.
+     *
+     * @param event event to encode.
+     * @return read-only buffer holding the encoded event, terminated by an empty line.
+     * @throws IOException in case serializing the event data fails.
+     */
+    public ByteBuffer encode(final OutboundSseEvent event) throws IOException {
+        final byte[] data = data(event);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(64 + (data != null ? data.length : 0));
+        if (event.getComment() != null) {
+            writeLines(out, COMMENT, event.getComment().getBytes(StandardCharsets.UTF_8));
+        }
+        if (event.getName() != null) {
+            writeLine(out, EVENT, event.getName());
+        }
+        if (event.getId() != null) {
+            writeLine(out, ID, event.getId());
+        }
+        if (event.isReconnectDelaySet()) {
+            writeLine(out, RETRY, Long.toString(event.getReconnectDelay()));
+        }
+        if (data != null) {
+            writeLines(out, DATA, data);
+        }
+        out.write('\n');
+        return ByteBuffer.wrap(out.toByteArray()).asReadOnlyBuffer();
+    }
+
+    private byte[] data(final OutboundSseEvent event) throws IOException {
+        final Object data = event.getData();
+        if (data == null) {
+            return null;
+        }
+        final MediaType mediaType = event.getMediaType() != null ? event.getMediaType() : MediaType.TEXT_PLAIN_TYPE;
+        if (data instanceof String && MediaType.TEXT_PLAIN_TYPE.isCompatible(mediaType)) {
+            return ((String) data).getBytes(StandardCharsets.UTF_8);
+        }
+        final SerializedEntity serialized = data instanceof SerializedEntity
+                ? (SerializedEntity) data
+                : serializer.serialize(Entity.entity(event.getGenericType() != event.getType()
+                        ? new GenericEntity<>(data, event.getGenericType())
+                        : data, mediaType));
+        final ByteBuffer bytes = serialized.asByteBuffer();
+        final byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        return array;
+    }
+
+    private static void writeLine(final ByteArrayOutputStream out, final byte[] field, final String value) {
+        writeLines(out, field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeLines(final ByteArrayOutputStream out, final byte[] field, final byte[] value) {
+        int start = 0;
+        while (true) {
+            int end = start;
+            while (end < value.length && value[end] != '\n' && value[end] != '\r') {
+                end++;
+            }
+            out.write(field, 0, field.length);
+            out.write(value, start, end - start);
+            out.write('\n');
+            if (end == value.length) {
+                return;
+            }
+            // a line ends with CRLF, LF or CR
+            start = value[end] == '\r' && end + 1 < value.length && value[end + 1] == '\n' ? end + 2 : end + 1;
+        }
+    }
+}
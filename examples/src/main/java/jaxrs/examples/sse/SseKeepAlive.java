@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.sse.SseEventSink;
+
+import jaxrs.examples.timer.HashedWheelTimer;
+
+/**
+ * Periodic heartbeats keeping idle SSE connections open through proxies and load balancers.
+ * <p>
+ * A heartbeat is an empty comment, which clients ignore. The heartbeats of all sinks are scheduled on
+ * a {@link HashedWheelTimer}, and all of them send the same encoded bytes. They stop once the sink is closed or
+ * a heartbeat cannot be sent.
+ * </p>
+ */
+public final class SseKeepAlive {
+
+    private static final ByteBuffer HEARTBEAT = ByteBuffer.wrap(":\n\n".getBytes(StandardCharsets.US_ASCII))
+            .asReadOnlyBuffer();
+
+    private SseKeepAlive() {
+    }
+
+    /**
+     * Start sending heartbeats to a sink using the {@link HashedWheelTimer#shared() shared timer}.
+     *
+     * @param sink   event sink.
+     * @param period period between heartbeats.
+     * @param unit   unit of the period.
+     * @return handle stopping the heartbeats.
+     */
+    public static HashedWheelTimer.Timeout start(final SseEventSink sink, final long period, final TimeUnit unit) {
+        return start(HashedWheelTimer.shared(), sink, period, unit);
+    }
+
+    /**
+     * Start sending heartbeats to a sink.
+     *
+     * @param timer  timer scheduling the heartbeats.
+     * @param sink   event sink.
+     * @param period period between heartbeats.
+     * @param unit   unit of the period.
+     * @return handle stopping the heartbeats.
+     */
+    public static HashedWheelTimer.Timeout start(final HashedWheelTimer timer,
+                                                 final SseEventSink sink,
+                                                 final long period,
+                                                 final TimeUnit unit) {
+        final Heartbeat heartbeat = new Heartbeat(sink);
+        heartbeat.timeout = timer.schedulePeriodically(heartbeat, period, unit);
+        return heartbeat.timeout;
+    }
+
+    private static final class Heartbeat implements Runnable {
+
+        private final SseEventSink sink;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private Heartbeat(final SseEventSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void run() {
+            if (sink.isClosed()) {
+                stop();
+                return;
+            }
+            try {
+                sink.sendEncoded(HEARTBEAT.duplicate()).whenComplete((result, error) -> {
+                    if (error != null) {
+                        stop();
+                        sink.close();
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // closed concurrently
+                stop();
+            }
+        }
+
+        private void stop() {
+            final HashedWheelTimer.Timeout scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.broadcast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+import jaxrs.examples.sse.SseEventEncoder;
+
+/**
+ * Broadcaster for large numbers of sinks, encoding each event once and writing it to the sinks from a fixed set
+ * of shard threads.
+ * <p>
+ * A broadcast event is encoded into the {@code text/event-stream} format by an {@link SseEventEncoder} and the
+ * same bytes are {@link SseEventSink#sendEncoded(ByteBuffer) sent} to all sinks. The sinks are spread over the
+ * shards round robin; all state of a sink is confined to the thread of its shard, so no locks are taken. Each
+ * sink has a bounded queue of events and at most one send in flight: a sink that does not keep up is handled
+ * according to the {@link SlowConsumerPolicy}, without slowing down the other sinks or the broadcasting thread.
+ * </p>
+ */
+public class ShardedSseBroadcaster implements SseBroadcaster {
+
+    /**
+     * Default capacity of the event queue of a sink.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final SseEventEncoder encoder;
+    private final Shard[] shards;
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final List<BiConsumer<SseEventSink, Throwable>> onError = new CopyOnWriteArrayList<>();
+    private final List<Consumer<SseEventSink>> onClose = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Create a new broadcaster with one shard per available processor, queues of
+     * {@link #DEFAULT_QUEUE_CAPACITY} events and the {@link SlowConsumerPolicy#DROP_OLDEST} policy.
+     *
+     * @param encoder event encoder.
+     */
+    public ShardedSseBroadcaster(final SseEventEncoder encoder) {
+        this(encoder, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY,
+                SlowConsumerPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Create a new broadcaster.
+     *
+     * @param encoder       event encoder.
+     * @param shards        number of shard threads.
+     * @param queueCapacity capacity of the event queue of a sink.
+     * @param policy        policy applied when the queue of a sink is full.
+     */
+    public ShardedSseBroadcaster(final SseEventEncoder encoder,
+                                 final int shards,
+                                 final int queueCapacity,
+                                 final SlowConsumerPolicy policy) {
+        if (shards <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Shards and queue capacity must be positive.");
+        }
+        this.encoder = encoder;
+        this.queueCapacity = queueCapacity;
+        this.policy = Objects.requireNonNull(policy);
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard("sse-broadcaster-shard-" + i);
+        }
+    }
+
+    @Override
+    public void onError(final BiConsumer<SseEventSink, Throwable> onError) {
+        this.onError.add(onError);
+    }
+
+    @Override
+    public void onClose(final Consumer<SseEventSink> onClose) {
+        this.onClose.add(onClose);
+    }
+
+    @Override
+    public void register(final SseEventSink sseEventSink) {
+        checkOpen();
+        final Shard shard = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        shard.execute(() -> shard.add(new Slot(shard, sseEventSink)));
+    }
+
+    /**
+     * Encode the event and queue it for all registered sinks.
+     *
+     * @param event SSE event to be published.
+     * @return completion stage that completes when all shards have queued the event for their sinks, or completes
+     * exceptionally if the event cannot be encoded.
+     */
+    @Override
+    public CompletionStage<?> broadcast(final OutboundSseEvent event) {
+        checkOpen();
+        final Frame frame;
+        try {
+            frame = new Frame(encoder.encode(event), event.getName());
+        } catch (IOException | RuntimeException e) {
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        final CompletableFuture<?>[] accepted = new CompletableFuture<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            final Shard shard = shards[i];
+            final CompletableFuture<Void> shardAccepted = new CompletableFuture<>();
+            accepted[i] = shardAccepted;
+            shard.execute(() -> {
+                shard.dispatch(frame);
+                shardAccepted.complete(null);
+            });
+        }
+        return CompletableFuture.allOf(accepted);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard shard : shards) {
+            shard.execute(shard::closeAll);
+            shard.executor.shutdown();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Broadcaster closed.");
+        }
+    }
+
+    private void notifyError(final SseEventSink sink, final Throwable error) {
+        for (BiConsumer<SseEventSink, Throwable> listener : onError) {
+            listener.accept(sink, error);
+        }
+    }
+
+    private void notifyClose(final SseEventSink sink) {
+        for (Consumer<SseEventSink> listener : onClose) {
+            listener.accept(sink);
+        }
+    }
+
+    /**
+     * Encoded event.
+     */
+    private static final class Frame {
+
+        private final ByteBuffer bytes;
+        private final String name;
+
+        private Frame(final ByteBuffer bytes, final String name) {
+            this.bytes = bytes;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Thread owning a set of sinks.
+     */
+    private final class Shard {
+
+        private final ExecutorService executor;
+        private final List<Slot> slots = new ArrayList<>();
+
+        private Shard(final String name) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void execute(final Runnable task) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // closed, the sinks have been closed already
+            }
+        }
+
+        private void add(final Slot slot) {
+            slot.index = slots.size();
+            slots.add(slot);
+        }
+
+        private void remove(final Slot slot) {
+            if (slot.index < 0) {
+                return;
+            }
+            // swap with the last slot to remove in constant time
+            final Slot last = slots.remove(slots.size() - 1);
+            if (last != slot) {
+                last.index = slot.index;
+                slots.set(slot.index, last);
+            }
+            slot.index = -1;
+        }
+
+        private void dispatch(final Frame frame) {
+            for (int i = slots.size() - 1; i >= 0; i--) {
+                final Slot slot = slots.get(i);
+                if (slot.sink.isClosed()) {
+                    remove(slot);
+                    notifyClose(slot.sink);
+                } else if (!slot.offer(frame)) {
+                    remove(slot);
+                    slot.sink.close();
+                    notifyClose(slot.sink);
+                } else {
+                    slot.pump();
+                }
+            }
+        }
+
+        private void sent(final Slot slot, final Throwable error) {
+            slot.sending = false;
+            if (slot.index < 0) {
+                return;
+            }
+            if (error != null) {
+                remove(slot);
+                notifyError(slot.sink, error);
+                slot.sink.close();
+                notifyClose(slot.sink);
+            } else {
+                slot.pump();
+            }
+        }
+
+        private void closeAll() {
+            for (Slot slot : slots) {
+                slot.index = -1;
+                slot.sink.close();
+                notifyClose(slot.sink);
+            }
+            slots.clear();
+        }
+    }
+
+    /**
+     * Registered sink with its queue, confined to the thread of its shard.
+     */
+    private final class Slot {
+
+        private final Shard shard;
+        private final SseEventSink sink;
+        private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+        private boolean sending;
+        private int index = -1;
+
+        private Slot(final Shard shard, final SseEventSink sink) {
+            this.shard = shard;
+            this.sink = sink;
+        }
+
+        /**
+         * Queue an event, applying the slow consumer policy if the queue is full.
+         *
+         * @return {@code false} if the sink is to be disconnected.
+         */
+        private boolean offer(final Frame frame) {
+            if (queue.size() >= queueCapacity) {
+                switch (policy) {
+                    case DISCONNECT:
+                        return false;
+                    case COALESCE:
+                        if (!removeOldestNamed(frame.name)) {
+                            queue.poll();
+                        }
+                        break;
+                    default:
+                        queue.poll();
+                }
+            }
+            queue.add(frame);
+            return true;
+        }
+
+        private boolean removeOldestNamed(final String name) {
+            final Iterator<Frame> frames = queue.iterator();
+            while (frames.hasNext()) {
+                if (Objects.equals(frames.next().name, name)) {
+                    frames.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void pump() {
+            if (sending || queue.isEmpty()) {
+                return;
+            }
+            final Frame frame = queue.poll();
+            sending = true;
+            final CompletionStage<?> sent;
+            try {
+                sent = sink.sendEncoded(frame.bytes.duplicate());
+            } catch (RuntimeException e) {
+                shard.sent(this, e);
+                return;
+            }
+            sent.whenComplete((result, error) -> shard.execute(() -> shard.sent(this, error)));
+        }
+    }
+}
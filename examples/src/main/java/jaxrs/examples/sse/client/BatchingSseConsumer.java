@@ -0,0 +1,353 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.sse.InboundSseEvent;
+import javax.ws.rs.sse.SseEventSource;
+
+/**
+ * Event consumer handing the events received by a {@link SseEventSource} or a {@link SseStreamParser} to a batch
+ * consumer, in lists bounded by size and by the delay since the first event of the batch.
+ * <p>
+ * Events are queued in a bounded queue and delivered by a single delivery task, so that the thread reading the
+ * events only queues them and is blocked when the consumer cannot keep up, instead of running the consumer once per
+ * event. In the coalescing mode, a queued event is replaced by any later event with the same key, e.g. the latest
+ * quote of every symbol, so that a slow consumer skips stale events instead of falling behind.
+ * </p>
+ * <pre>
+ * BatchingSseConsumer batches = BatchingSseConsumer.builder(quotes -&gt; book.update(quotes))
+ *         .maxBatchSize(512)
+ *         .maxDelay(20, TimeUnit.MILLISECONDS)
+ *         .coalesceBy(InboundSseEvent::getName)
+ *         .build();
+ * batches.register(eventSource, Throwable::printStackTrace);
+ * eventSource.open();
+ * </pre>
+ */
+public final class BatchingSseConsumer implements Consumer<InboundSseEvent>, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchingSseConsumer.class.getName());
+
+    private final Consumer<List<InboundSseEvent>> onBatch;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final Function<InboundSseEvent, ?> coalescingKey;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final List<InboundSseEvent> queue;
+    private final Map<Object, InboundSseEvent> coalesced;
+    private long firstQueuedAt;
+    private boolean closed;
+
+    private BatchingSseConsumer(final Builder builder) {
+        this.onBatch = builder.onBatch;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxDelayNanos = builder.maxDelayNanos;
+        this.capacity = builder.capacity;
+        this.coalescingKey = builder.coalescingKey;
+        this.queue = coalescingKey == null ? new ArrayList<>() : null;
+        this.coalesced = coalescingKey != null ? new LinkedHashMap<>() : null;
+        final Runnable delivery = this::deliver;
+        if (builder.executor != null) {
+            builder.executor.execute(delivery);
+        } else {
+            final Thread thread = new Thread(delivery, "sse-batch-delivery");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Create a builder of a consumer delivering events to a batch consumer.
+     *
+     * @param onBatch consumer of the batches, invoked by a single thread at a time, with lists it may keep.
+     * @return new builder.
+     */
+    public static Builder builder(final Consumer<List<InboundSseEvent>> onBatch) {
+        return new Builder(onBatch);
+    }
+
+    /**
+     * Register this consumer with an event source, closing it when the source completes.
+     *
+     * @param source  event source.
+     * @param onError consumer of the errors of the source.
+     */
+    public void register(final SseEventSource source, final Consumer<Throwable> onError) {
+        source.register(this, onError, this::close);
+    }
+
+    /**
+     * Queue an event, waiting while the queue is full.
+     *
+     * @param event received event.
+     * @throws IllegalStateException if the consumer is closed.
+     */
+    @Override
+    public void accept(final InboundSseEvent event) {
+        final Object key = coalescingKey != null ? coalescingKey.apply(event) : null;
+        lock.lock();
+        try {
+            while (!closed && size() >= capacity && (key == null || !coalesced.containsKey(key))) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("Batching consumer is closed.");
+            }
+            if (coalesced != null) {
+                // events without a key are never coalesced
+                if (coalesced.put(key != null ? key : new Object(), event) != null) {
+                    return;
+                }
+            } else {
+                queue.add(event);
+            }
+            final int size = size();
+            if (size == 1) {
+                firstQueuedAt = System.nanoTime();
+                batchReady.signal();
+            } else if (size == maxBatchSize) {
+                batchReady.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting events. The events already queued are still delivered.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deliver() {
+        List<InboundSseEvent> batch;
+        while ((batch = nextBatch()) != null) {
+            try {
+                onBatch.accept(batch);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Batch consumer failed, " + batch.size() + " event(s) lost.", e);
+            }
+        }
+    }
+
+    /**
+     * Wait for the next batch.
+     *
+     * @return next batch, or {@code null} once the consumer is closed and all events were delivered.
+     */
+    private List<InboundSseEvent> nextBatch() {
+        lock.lock();
+        try {
+            while (true) {
+                final int size = size();
+                if (size == 0) {
+                    if (closed) {
+                        return null;
+                    }
+                    batchReady.awaitUninterruptibly();
+                    continue;
+                }
+                final long remaining = maxDelayNanos - (System.nanoTime() - firstQueuedAt);
+                if (size >= maxBatchSize || remaining <= 0 || closed) {
+                    return take();
+                }
+                try {
+                    batchReady.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // the batch is delivered early
+                    Thread.currentThread().interrupt();
+                    return take();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<InboundSseEvent> take() {
+        final List<InboundSseEvent> batch;
+        if (coalesced != null) {
+            batch = new ArrayList<>(Math.min(coalesced.size(), maxBatchSize));
+            final Iterator<InboundSseEvent> events = coalesced.values().iterator();
+            while (events.hasNext() && batch.size() < maxBatchSize) {
+                batch.add(events.next());
+                events.remove();
+            }
+        } else if (queue.size() <= maxBatchSize) {
+            batch = new ArrayList<>(queue);
+            queue.clear();
+        } else {
+            final List<InboundSseEvent> head = queue.subList(0, maxBatchSize);
+            batch = new ArrayList<>(head);
+            head.clear();
+        }
+        // the events left over form the next batch, which is already due
+        firstQueuedAt = System.nanoTime() - maxDelayNanos;
+        notFull.signalAll();
+        return batch;
+    }
+
+    private int size() {
+        return coalesced != null ? coalesced.size() : queue.size();
+    }
+
+    /**
+     * Builder of a {@link BatchingSseConsumer}.
+     */
+    public static final class Builder {
+
+        private final Consumer<List<InboundSseEvent>> onBatch;
+        private int maxBatchSize = 256;
+        private long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int capacity = 8192;
+        private Function<InboundSseEvent, ?> coalescingKey;
+        private Executor executor;
+
+        private Builder(final Consumer<List<InboundSseEvent>> onBatch) {
+            this.onBatch = Objects.requireNonNull(onBatch, "onBatch");
+        }
+
+        /**
+         * Set the maximum number of events of a batch, 256 by default.
+         *
+         * @param maxBatchSize maximum batch size.
+         * @return updated builder.
+         */
+        public Builder maxBatchSize(final int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("Maximum batch size must be positive.");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum delay between the arrival of the first event of a batch and its delivery, 10 ms by
+         * default.
+         *
+         * @param maxDelay maximum delay.
+         * @param unit     unit of the delay.
+         * @return updated builder.
+         */
+        public Builder maxDelay(final long maxDelay, final TimeUnit unit) {
+            if (maxDelay < 0) {
+                throw new IllegalArgumentException("Maximum delay must not be negative.");
+            }
+            this.maxDelayNanos = unit.toNanos(maxDelay);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of queued events, or of distinct keys in the coalescing mode, 8192 by default.
+         *
+         * @param capacity queue capacity.
+         * @return updated builder.
+         */
+        public Builder capacity(final int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Capacity must be positive.");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Keep only the latest of the queued events with the same key, such as
+         * {@code InboundSseEvent::getName} or {@code InboundSseEvent::getId}. Events with a {@code null} key are
+         * not coalesced.
+         *
+         * @param key function computing the key of an event.
+         * @return updated builder.
+         */
+        public Builder coalesceBy(final Function<InboundSseEvent, ?> key) {
+            this.coalescingKey = key;
+            return this;
+        }
+
+        /**
+         * Set the executor running the delivery task, which runs until the consumer is closed. By default, the
+         * task runs on a new daemon thread.
+         *
+         * @param executor delivery executor.
+         * @return updated builder.
+         */
+        public Builder executor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Build the consumer and start its delivery task.
+         *
+         * @return new consumer.
+         */
+        public BatchingSseConsumer build() {
+            return new BatchingSseConsumer(this);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.InboundSseEvent;
+import javax.ws.rs.sse.ReconnectPolicy;
+import javax.ws.rs.sse.SseEvent;
+
+import jaxrs.examples.timer.HashedWheelTimer;
+
+/**
+ * Client multiplexing many logical event streams of a host over a small, fixed set of SSE connections.
+ * <p>
+ * Every logical stream is assigned to one of the connections by its name. A connection requests all the streams
+ * assigned to it in a single {@code GET} of the multiplexing endpoint, with one {@value #STREAM_PARAMETER} query
+ * parameter per stream, whose value is the stream name, followed by {@code ':'} and the last event identifier
+ * received from the stream, if any. The endpoint sends the events of all these streams in one event stream, the
+ * identifier of each event being the name of its stream, followed by {@code ':'} and the identifier of the event
+ * within the stream, e.g. {@code id: orders-42:1187}. Events are routed to the subscriptions of their streams with
+ * the stream name removed from their identifier; events without an identifier are not routed.
+ * </p>
+ * <p>
+ * Each subscription keeps its own last event identifier, so that when a connection is re-established, because
+ * it failed or because the set of its streams changed, every stream resumes where it stopped. Connections share one
+ * executor, on which each open connection occupies a thread reading its events, and one timer scheduling their
+ * reconnections. A connection being re-established is closed before its new reader task is submitted, so the old
+ * reader returns shortly; an executor with one thread per connection therefore has to queue tasks rather than
+ * reject them, while an executor that does not queue tasks needs two threads per connection. When the client
+ * connector supports HTTP/2, the connections are themselves multiplexed over a single TCP connection.
+ * </p>
+ * <p>
+ * A failed connection is re-established after the delay decided by the {@link #reconnectingWith(ReconnectPolicy)
+ * reconnect policy}, given the delay requested by the endpoint with the {@code retry} field of an event or the
+ * {@code Retry-After} header of a {@code 503} response.
+ * </p>
+ */
+public final class MultiplexedSseClient implements AutoCloseable {
+
+    /**
+     * Name of the query parameter identifying a stream, and the last event received from it.
+     */
+    public static final String STREAM_PARAMETER = "stream";
+
+    private static final char SEPARATOR = ':';
+
+    private final WebTarget target;
+    private final Providers providers;
+    private final Executor executor;
+    private final Connection[] connections;
+    private volatile ReconnectPolicy reconnectPolicy = ReconnectPolicy.exponentialBackoff(1, 30, TimeUnit.SECONDS);
+    private volatile boolean closed;
+
+    /**
+     * Create a client.
+     *
+     * @param target      multiplexing endpoint.
+     * @param connections number of connections.
+     * @param executor    executor reading the connections, see the {@link MultiplexedSseClient class documentation}.
+     */
+    public MultiplexedSseClient(final WebTarget target, final int connections, final Executor executor) {
+        this(target, connections, executor, null);
+    }
+
+    /**
+     * Create a client.
+     *
+     * @param target      multiplexing endpoint.
+     * @param connections number of connections.
+     * @param executor    executor reading the connections, see the {@link MultiplexedSseClient class documentation}.
+     * @param providers   providers used to read event data as other types than {@code String} or {@code byte[]},
+     *                    may be {@code null}.
+     */
+    public MultiplexedSseClient(final WebTarget target,
+                                final int connections,
+                                final Executor executor,
+                                final Providers providers) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("Number of connections must be positive.");
+        }
+        this.target = target;
+        this.providers = providers;
+        this.executor = executor;
+        this.connections = new Connection[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = new Connection();
+        }
+    }
+
+    /**
+     * Set the policy deciding the delay before re-establishing a failed connection, by default an exponential
+     * backoff with full jitter from 1 up to 30 seconds.
+     *
+     * @param policy reconnect policy.
+     * @return this client.
+     */
+    public MultiplexedSseClient reconnectingWith(final ReconnectPolicy policy) {
+        this.reconnectPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Subscribe to a stream from its next event.
+     *
+     * @param stream  name of the stream, not containing {@code ':'}.
+     * @param onEvent consumer of the events of the stream, invoked on the thread reading its connection.
+     * @param onError consumer of the errors of the connection of the stream, which is re-established afterwards.
+     * @return subscription.
+     */
+    public Subscription subscribe(final String stream,
+                                  final Consumer<InboundSseEvent> onEvent,
+                                  final Consumer<Throwable> onError) {
+        return subscribe(stream, null, onEvent, onError);
+    }
+
+    /**
+     * Subscribe to a stream.
+     *
+     * @param stream      name of the stream, not containing {@code ':'}.
+     * @param lastEventId identifier of the last event already received from the stream, or {@code null} to
+     *                    receive the events from the next one.
+     * @param onEvent     consumer of the events of the stream, invoked on the thread reading its connection.
+     * @param onError     consumer of the errors of the connection of the stream, which is re-established
+     *                    afterwards.
+     * @return subscription.
+     * @throws IllegalStateException if the stream is already subscribed to, or the client is closed.
+     */
+    public Subscription subscribe(final String stream,
+                                  final String lastEventId,
+                                  final Consumer<InboundSseEvent> onEvent,
+                                  final Consumer<Throwable> onError) {
+        if (stream.isEmpty() || stream.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid stream name: " + stream);
+        }
+        if (closed) {
+            throw new IllegalStateException("Client is closed.");
+        }
+        final Connection connection = connections[Math.floorMod(stream.hashCode(), connections.length)];
+        final Subscription subscription = new Subscription(connection, stream, lastEventId, onEvent, onError);
+        if (connection.subscriptions.putIfAbsent(stream, subscription) != null) {
+            throw new IllegalStateException("Stream " + stream + " is already subscribed to.");
+        }
+        connection.restart();
+        return subscription;
+    }
+
+    /**
+     * Close all the connections and subscriptions.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Connection connection : connections) {
+            connection.subscriptions.clear();
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Subscription to a logical stream.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Connection connection;
+        private final String stream;
+        private final Consumer<InboundSseEvent> onEvent;
+        private final Consumer<Throwable> onError;
+        private volatile String lastEventId;
+
+        private Subscription(final Connection connection,
+                             final String stream,
+                             final String lastEventId,
+                             final Consumer<InboundSseEvent> onEvent,
+                             final Consumer<Throwable> onError) {
+            this.connection = connection;
+            this.stream = stream;
+            this.lastEventId = lastEventId;
+            this.onEvent = onEvent;
+            this.onError = onError;
+        }
+
+        /**
+         * Get the name of the stream.
+         *
+         * @return stream name.
+         */
+        public String getStream() {
+            return stream;
+        }
+
+        /**
+         * Get the identifier of the last event received from the stream.
+         *
+         * @return last event identifier, or {@code null} if none was received yet.
+         */
+        public String getLastEventId() {
+            return lastEventId;
+        }
+
+        /**
+         * Stop receiving the events of the stream.
+         */
+        @Override
+        public void close() {
+            if (connection.subscriptions.remove(stream, this)) {
+                connection.restart();
+            }
+        }
+
+        private String parameter() {
+            final String id = lastEventId;
+            return id != null ? stream + SEPARATOR + id : stream;
+        }
+    }
+
+    /**
+     * Connection carrying the streams assigned to it, re-established whenever these change.
+     */
+    private final class Connection {
+
+        private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+        // delay requested with the retry field of an event, used for all later attempts
+        private volatile long retryDelay = SseEvent.RECONNECT_NOT_SET;
+        // delay requested with the Retry-After header of a 503 response, used for the next attempt only
+        private long retryAfter = SseEvent.RECONNECT_NOT_SET;
+        private int attempts;
+        private int generation;
+        private boolean restartPending;
+        private Response response;
+
+        /**
+         * Re-establish the connection with the current streams; subscriptions changed in the meantime are
+         * requested together.
+         */
+        private void restart() {
+            synchronized (this) {
+                if (restartPending || closed) {
+                    return;
+                }
+                restartPending = true;
+            }
+            // release the thread of the current reader, the new one may have to wait for it
+            disconnect();
+            executor.execute(this::connect);
+        }
+
+        private void disconnect() {
+            final Response current;
+            synchronized (this) {
+                generation++;
+                current = response;
+                response = null;
+            }
+            if (current != null) {
+                // fails the read of the previous connection, which then returns without reconnecting
+                current.close();
+            }
+        }
+
+        private void connect() {
+            final int connectionGeneration;
+            synchronized (this) {
+                restartPending = false;
+            }
+            disconnect();
+            synchronized (this) {
+                connectionGeneration = generation;
+            }
+            final List<Object> streams = new ArrayList<>();
+            for (Subscription subscription : subscriptions.values()) {
+                streams.add(subscription.parameter());
+            }
+            if (closed || streams.isEmpty()) {
+                return;
+            }
+            final Date requestTime = new Date();
+            Response current = null;
+            try {
+                current = target.queryParam(STREAM_PARAMETER, streams.toArray())
+                        .request(MediaType.SERVER_SENT_EVENTS_TYPE)
+                        .get();
+                synchronized (this) {
+                    if (connectionGeneration != generation) {
+                        return;
+                    }
+                    response = current;
+                }
+                if (current.getStatus() == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+                    final ServiceUnavailableException unavailable = new ServiceUnavailableException(current);
+                    if (unavailable.hasRetryAfter()) {
+                        retryAfter = Math.max(0, unavailable.getRetryTime(requestTime).getTime()
+                                - System.currentTimeMillis());
+                    }
+                    throw unavailable;
+                }
+                if (current.getStatus() != Response.Status.OK.getStatusCode()) {
+                    throw new ProcessingException("Multiplexed stream request failed with status "
+                            + current.getStatus() + ".");
+                }
+                attempts = 0;
+                final InputStream in = current.readEntity(InputStream.class);
+                new SseStreamParser(providers, this::route).parse(in);
+            } catch (ProcessingException | WebApplicationException | IOException e) {
+                if (isCurrent(connectionGeneration)) {
+                    for (Subscription subscription : subscriptions.values()) {
+                        subscription.onError.accept(e);
+                    }
+                }
+            } finally {
+                if (current != null) {
+                    current.close();
+                }
+                if (isCurrent(connectionGeneration)) {
+                    final long serverDelay = retryAfter != SseEvent.RECONNECT_NOT_SET ? retryAfter : retryDelay;
+                    retryAfter = SseEvent.RECONNECT_NOT_SET;
+                    final long delay = reconnectPolicy.nextDelay(++attempts, serverDelay);
+                    HashedWheelTimer.shared().schedule(this::restart, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        private synchronized boolean isCurrent(final int connectionGeneration) {
+            return connectionGeneration == generation && !closed;
+        }
+
+        private void route(final InboundSseEvent event) {
+            if (event.isReconnectDelaySet()) {
+                retryDelay = event.getReconnectDelay();
+            }
+            final String id = event.getId();
+            final int separator = id != null ? id.indexOf(SEPARATOR) : -1;
+            if (separator < 0) {
+                return;
+            }
+            final Subscription subscription = subscriptions.get(id.substring(0, separator));
+            if (subscription != null) {
+                final String streamEventId = id.substring(separator + 1);
+                subscription.lastEventId = streamEventId;
+                try {
+                    subscription.onEvent.accept(new StreamEvent(event, streamEventId));
+                } catch (RuntimeException e) {
+                    // a failing consumer must not interrupt the other streams of the connection
+                    subscription.onError.accept(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Event of a logical stream, identified within its stream.
+     */
+    private static final class StreamEvent implements InboundSseEvent {
+
+        private final InboundSseEvent event;
+        private final String id;
+
+        private StreamEvent(final InboundSseEvent event, final String id) {
+            this.event = event;
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return event.getName();
+        }
+
+        @Override
+        public String getComment() {
+            return event.getComment();
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return event.getReconnectDelay();
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return event.isReconnectDelaySet();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return event.isEmpty();
+        }
+
+        @Override
+        public String readData() {
+            return event.readData();
+        }
+
+        @Override
+        public <T> T readData(final Class<T> type) {
+            return event.readData(type);
+        }
+
+        @Override
+        public <T> T readData(final GenericType<T> type) {
+            return event.readData(type);
+        }
+
+        @Override
+        public <T> T readData(final Class<T> messageType, final MediaType mediaType) {
+            return event.readData(messageType, mediaType);
+        }
+
+        @Override
+        public <T> T readData(final GenericType<T> type, final MediaType mediaType) {
+            return event.readData(type, mediaType);
+        }
+
+        @Override
+        public String toString() {
+            return event.toString();
+        }
+    }
+}
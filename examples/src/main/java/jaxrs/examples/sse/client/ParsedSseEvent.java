@@ -0,0 +1,384 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.InboundSseEvent;
+
+/**
+ * Event parsed by a {@link SseStreamParser}, keeping its field values as ranges of the bytes it was parsed from.
+ * <p>
+ * The data is decoded when it is read, and the identifier, name and comment are materialized on first access.
+ * Multi-line values are joined with {@code '\n'} as they are decoded.
+ * </p>
+ */
+final class ParsedSseEvent implements InboundSseEvent {
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final byte[] bytes;
+    private final Providers providers;
+
+    private int idStart = -1;
+    private int idEnd;
+    private int nameStart = -1;
+    private int nameEnd;
+    private Lines comment;
+    private Lines data;
+    private long reconnectDelay = RECONNECT_NOT_SET;
+    private boolean hasFields;
+
+    private String id;
+    private String name;
+    private String commentText;
+
+    ParsedSseEvent(final byte[] bytes, final Providers providers) {
+        this.bytes = bytes;
+        this.providers = providers;
+    }
+
+    /**
+     * Add a field line of the event.
+     *
+     * @param start start of the line.
+     * @param end   end of the line, excluding the line terminator.
+     */
+    void field(final int start, final int end) {
+        int colon = start;
+        while (colon < end && bytes[colon] != ':') {
+            colon++;
+        }
+        int valueStart = colon;
+        if (colon < end) {
+            valueStart++;
+            if (valueStart < end && bytes[valueStart] == ' ') {
+                valueStart++;
+            }
+        }
+        final int fieldLength = colon - start;
+        if (fieldLength == 0) {
+            comment = Lines.add(comment, valueStart, end);
+        } else if (is("data", start, fieldLength)) {
+            data = Lines.add(data, valueStart, end);
+        } else if (is("id", start, fieldLength)) {
+            if (!contains((byte) 0, valueStart, end)) {
+                idStart = valueStart;
+                idEnd = end;
+            }
+        } else if (is("event", start, fieldLength)) {
+            nameStart = valueStart;
+            nameEnd = end;
+        } else if (is("retry", start, fieldLength)) {
+            retry(valueStart, end);
+        } else {
+            // unknown fields are ignored
+            return;
+        }
+        hasFields = true;
+    }
+
+    boolean hasFields() {
+        return hasFields;
+    }
+
+    boolean hasId() {
+        return idStart >= 0;
+    }
+
+    @Override
+    public String getId() {
+        if (id == null && idStart >= 0) {
+            id = decode(idStart, idEnd);
+        }
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        if (name == null && nameStart >= 0) {
+            name = decode(nameStart, nameEnd);
+        }
+        return name;
+    }
+
+    @Override
+    public String getComment() {
+        if (commentText == null && comment != null) {
+            commentText = comment.decode(bytes);
+        }
+        return commentText;
+    }
+
+    @Override
+    public long getReconnectDelay() {
+        return reconnectDelay;
+    }
+
+    @Override
+    public boolean isReconnectDelaySet() {
+        return reconnectDelay != RECONNECT_NOT_SET;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data == null;
+    }
+
+    @Override
+    public String readData() {
+        return data != null ? data.decode(bytes) : null;
+    }
+
+    @Override
+    public <T> T readData(final Class<T> type) {
+        return readData(type, type, MediaType.TEXT_PLAIN_TYPE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readData(final GenericType<T> type) {
+        return (T) readData(type.getRawType(), type.getType(), MediaType.TEXT_PLAIN_TYPE);
+    }
+
+    @Override
+    public <T> T readData(final Class<T> messageType, final MediaType mediaType) {
+        return readData(messageType, messageType, mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readData(final GenericType<T> type, final MediaType mediaType) {
+        return (T) readData(type.getRawType(), type.getType(), mediaType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readData(final Class<T> type, final Type genericType, final MediaType mediaType) {
+        if (type == String.class) {
+            return (T) readData();
+        }
+        if (type == byte[].class) {
+            return data != null ? (T) data.toByteArray(bytes) : null;
+        }
+        final MessageBodyReader<T> reader = providers != null
+                ? providers.getMessageBodyReader(type, genericType, NO_ANNOTATIONS, mediaType)
+                : null;
+        if (reader == null) {
+            throw new ProcessingException("No message body reader for " + genericType + " and " + mediaType + ".");
+        }
+        try {
+            return reader.readFrom(type, genericType, NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(),
+                    new DataInputStream());
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InboundSseEvent{id=" + getId() + ", name=" + getName() + ", comment=" + getComment()
+                + ", data=" + readData() + "}";
+    }
+
+    private void retry(final int start, final int end) {
+        if (start == end) {
+            return;
+        }
+        long delay = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = bytes[i];
+            if (b < '0' || b > '9' || delay > (Long.MAX_VALUE - 9) / 10) {
+                // ignored as required by the event stream format
+                return;
+            }
+            delay = delay * 10 + (b - '0');
+        }
+        reconnectDelay = delay;
+    }
+
+    private boolean is(final String field, final int start, final int length) {
+        if (field.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[start + i] != field.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(final byte b, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String decode(final int start, final int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ranges of the lines of a field; the first line is kept inline as most fields have a single line.
+     */
+    private static final class Lines {
+
+        private int count;
+        private int firstStart;
+        private int firstEnd;
+        private int[] more;
+
+        private static Lines add(final Lines lines, final int start, final int end) {
+            if (lines == null) {
+                final Lines first = new Lines();
+                first.firstStart = start;
+                first.firstEnd = end;
+                first.count = 1;
+                return first;
+            }
+            final int index = 2 * (lines.count - 1);
+            if (lines.more == null) {
+                lines.more = new int[4];
+            } else if (index == lines.more.length) {
+                lines.more = Arrays.copyOf(lines.more, 2 * lines.more.length);
+            }
+            lines.more[index] = start;
+            lines.more[index + 1] = end;
+            lines.count++;
+            return lines;
+        }
+
+        private int start(final int line) {
+            return line == 0 ? firstStart : more[2 * (line - 1)];
+        }
+
+        private int end(final int line) {
+            return line == 0 ? firstEnd : more[2 * (line - 1) + 1];
+        }
+
+        private int length() {
+            int length = count - 1;
+            for (int line = 0; line < count; line++) {
+                length += end(line) - start(line);
+            }
+            return length;
+        }
+
+        private String decode(final byte[] bytes) {
+            if (count == 1) {
+                return new String(bytes, firstStart, firstEnd - firstStart, StandardCharsets.UTF_8);
+            }
+            return new String(toByteArray(bytes), StandardCharsets.UTF_8);
+        }
+
+        private byte[] toByteArray(final byte[] bytes) {
+            final byte[] joined = new byte[length()];
+            int off = 0;
+            for (int line = 0; line < count; line++) {
+                if (line > 0) {
+                    joined[off++] = '\n';
+                }
+                System.arraycopy(bytes, start(line), joined, off, end(line) - start(line));
+                off += end(line) - start(line);
+            }
+            return joined;
+        }
+    }
+
+    /**
+     * Stream of the data lines, joined with {@code '\n'}, read straight from the parsed bytes.
+     */
+    private final class DataInputStream extends InputStream {
+
+        private int line;
+        private int position = data != null ? data.start(0) : 0;
+
+        @Override
+        public int read() {
+            while (data != null && line < data.count) {
+                if (position < data.end(line)) {
+                    return bytes[position++] & 0xFF;
+                }
+                if (++line < data.count) {
+                    position = data.start(line);
+                    return '\n';
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (data == null || line >= data.count) {
+                return -1;
+            }
+            final int available = data.end(line) - position;
+            if (available == 0) {
+                final int next = read();
+                if (next < 0) {
+                    return -1;
+                }
+                b[off] = (byte) next;
+                return 1;
+            }
+            final int n = Math.min(len, available);
+            System.arraycopy(bytes, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
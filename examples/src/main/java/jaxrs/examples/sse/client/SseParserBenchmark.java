@@ -0,0 +1,176 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.client;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the {@link SseStreamParser} with a line-based parser reading every line into a {@code String} and every
+ * event into a {@code StringBuilder}, on a stream of small, frequent events such as market data quotes.
+ * <p>
+ * Usage: {@code SseParserBenchmark [events]}, 5 million events by default. The consumer reads the data of every
+ * event as a {@code String}, as a listener dispatching on the data would. Throughput and, on JVMs that report it,
+ * the number of bytes allocated per event are printed for both parsers.
+ */
+public final class SseParserBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private SseParserBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int events = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final byte[] stream = generate(events);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("round " + round + ":");
+            run("line-based", stream, events, LineParser::parse);
+            run("incremental", stream, events, (in, consumer) ->
+                    new SseStreamParser(event -> consumer.accept(event.readData())).parse(in));
+        }
+    }
+
+    private static void run(final String name, final byte[] stream, final int events, final StreamParser parser)
+            throws IOException {
+        final long[] checksum = new long[2];
+        final Consumer<String> consumer = data -> {
+            checksum[0]++;
+            checksum[1] += data.length();
+        };
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        parser.parse(new ByteArrayInputStream(stream), consumer);
+        final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        final long allocated = allocatedBytes() - allocatedBefore;
+        if (checksum[0] != events) {
+            throw new IllegalStateException(name + " parsed " + checksum[0] + " events instead of " + events + ".");
+        }
+        System.out.printf("  %s: %d events in %d ms (%.0f events/ms, %s bytes allocated per event)%n", name,
+                events, elapsed, (double) events / elapsed,
+                allocatedBefore < 0 ? "?" : String.valueOf(allocated / events));
+    }
+
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static byte[] generate(final int events) {
+        final String[] symbols = {"AAPL", "MSFT", "GOOG", "AMZN", "NVDA", "META", "TSLA", "ORCL"};
+        final Random random = new Random(42);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(events * 64);
+        final StringBuilder event = new StringBuilder();
+        for (int i = 0; i < events; i++) {
+            event.setLength(0);
+            event.append("event: quote\nid: ").append(i)
+                    .append("\ndata: {\"s\":\"").append(symbols[random.nextInt(symbols.length)])
+                    .append("\",\"b\":").append(100 + random.nextInt(100)).append('.').append(random.nextInt(100))
+                    .append(",\"a\":").append(100 + random.nextInt(100)).append('.').append(random.nextInt(100))
+                    .append("}\n\n");
+            final byte[] bytes = event.toString().getBytes(StandardCharsets.UTF_8);
+            stream.write(bytes, 0, bytes.length);
+        }
+        return stream.toByteArray();
+    }
+
+    private interface StreamParser {
+
+        void parse(InputStream in, Consumer<String> consumer) throws IOException;
+    }
+
+    /**
+     * Parser materializing all fields of every event, as a naive event source would.
+     */
+    private static final class LineParser {
+
+        private static void parse(final InputStream in, final Consumer<String> consumer) throws IOException {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String id = null;
+            String name = null;
+            StringBuilder data = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data != null) {
+                        // the identifier and name would be handed to the event as well
+                        consumer.accept(data.toString());
+                    }
+                    id = null;
+                    name = null;
+                    data = null;
+                    continue;
+                }
+                final int colon = line.indexOf(':');
+                final String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + 1);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                switch (field) {
+                    case "id":
+                        id = value;
+                        break;
+                    case "event":
+                        name = value;
+                        break;
+                    case "data":
+                        data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                        break;
+                    default:
+                        // comments, retry and unknown fields
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.InboundSseEvent;
+
+/**
+ * Incremental parser of a {@code text/event-stream} byte stream.
+ * <p>
+ * The stream is fed in chunks as it arrives, and every complete event is passed to the consumer as an
+ * {@link InboundSseEvent} holding views of the chunk it was parsed from: no line is decoded into a {@code String}
+ * and no field is copied. The data of an event is decoded only when {@link InboundSseEvent#readData() read}, and its
+ * identifier, name and comment when first requested. Only an event split across chunks is copied, once, when it is
+ * complete, and so are chunks that are not backed by an array.
+ * </p>
+ * <p>
+ * As events keep views of the chunks, the parser takes ownership of every chunk fed to it: a chunk must not be
+ * modified afterwards. {@link #parse(InputStream)} reads the stream into fresh chunks accordingly, so that the cost
+ * of a chunk is shared by all the events it contains.
+ * </p>
+ * <p>
+ * Events consisting of comments only are delivered, events with no known field at all are not. Instances are not
+ * thread-safe.
+ * </p>
+ */
+public final class SseStreamParser {
+
+    /**
+     * Default size of the chunks read by {@link #parse(InputStream)}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final Providers providers;
+    private final Consumer<InboundSseEvent> consumer;
+
+    private byte[] partial;
+    private int partialLength;
+    private boolean skipLineFeed;
+    private boolean streamStart = true;
+    private InboundSseEvent lastEventWithId;
+
+    /**
+     * Create a parser of events whose data can be read as {@code String} or {@code byte[]}.
+     *
+     * @param consumer consumer of the parsed events.
+     */
+    public SseStreamParser(final Consumer<InboundSseEvent> consumer) {
+        this(null, consumer);
+    }
+
+    /**
+     * Create a parser.
+     *
+     * @param providers providers used to read event data as other types than {@code String} or {@code byte[]},
+     *                  may be {@code null}.
+     * @param consumer  consumer of the parsed events.
+     */
+    public SseStreamParser(final Providers providers, final Consumer<InboundSseEvent> consumer) {
+        this.providers = providers;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Parse the next chunk of the stream, from its position to its limit.
+     *
+     * @param chunk next bytes of the stream, which must not be modified afterwards.
+     */
+    public void feed(final ByteBuffer chunk) {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.arrayOffset() + chunk.limit());
+        } else {
+            final byte[] bytes = new byte[chunk.remaining()];
+            chunk.duplicate().get(bytes);
+            feed(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Read and parse a stream until its end.
+     *
+     * @param in event stream.
+     * @throws IOException in case of an I/O error.
+     */
+    public void parse(final InputStream in) throws IOException {
+        byte[] chunk = new byte[DEFAULT_CHUNK_SIZE];
+        int length = 0;
+        int fed = 0;
+        int n;
+        while ((n = in.read(chunk, length, chunk.length - length)) >= 0) {
+            length += n;
+            // bytes are handed over when the chunk is full, or when the stream has nothing more to read for now;
+            // the rest of the chunk is filled afterwards, leaving the bytes handed over untouched
+            if (length > fed && (length == chunk.length || in.available() == 0)) {
+                feed(chunk, fed, length);
+                fed = length;
+            }
+            if (length == chunk.length) {
+                chunk = new byte[DEFAULT_CHUNK_SIZE];
+                length = 0;
+                fed = 0;
+            }
+        }
+        if (length > fed) {
+            feed(chunk, fed, length);
+        }
+    }
+
+    /**
+     * Get the identifier of the last event that had one, to be sent as {@code Last-Event-ID} when reconnecting.
+     *
+     * @return last event identifier, or {@code null} if none was received yet.
+     */
+    public String getLastEventId() {
+        return lastEventWithId != null ? lastEventWithId.getId() : null;
+    }
+
+    private void feed(final byte[] bytes, final int start, final int limit) {
+        int position = start;
+        if (streamStart) {
+            if (partialLength + limit - position < BYTE_ORDER_MARK.length) {
+                // too short to tell whether the stream starts with a byte order mark
+                append(bytes, position, limit);
+                return;
+            }
+            streamStart = false;
+            if (partialLength > 0) {
+                append(bytes, position, limit);
+                final byte[] first = partial;
+                final int firstLength = partialLength;
+                partial = null;
+                partialLength = 0;
+                feed(first, skipByteOrderMark(first, 0), firstLength);
+                return;
+            }
+            position = skipByteOrderMark(bytes, position);
+        }
+        if (skipLineFeed && position < limit) {
+            skipLineFeed = false;
+            if (bytes[position] == '\n') {
+                position++;
+            }
+        }
+        if (partialLength > 0) {
+            final int end = endOfEvent(bytes, position, limit);
+            if (end < 0) {
+                append(bytes, position, limit);
+                return;
+            }
+            append(bytes, position, end);
+            position = end;
+            final byte[] event = partial;
+            final int eventLength = partialLength;
+            partial = null;
+            partialLength = 0;
+            parse(event, 0, eventLength);
+            // a carriage return ending the event is followed by a line feed only if the chunk ends with it
+            skipLineFeed = skipLineFeed && end == limit;
+        }
+        final int incomplete = parse(bytes, position, limit);
+        append(bytes, incomplete, limit);
+    }
+
+    /**
+     * Parse the complete events of a range of bytes.
+     *
+     * @return position of the first byte of the incomplete event at the end of the range.
+     */
+    private int parse(final byte[] bytes, final int position, final int limit) {
+        ParsedSseEvent event = new ParsedSseEvent(bytes, providers);
+        int eventStart = position;
+        int lineStart = position;
+        for (int i = position; i < limit; i++) {
+            final byte b = bytes[i];
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (i == lineStart) {
+                if (event.hasFields()) {
+                    dispatch(event);
+                    event = new ParsedSseEvent(bytes, providers);
+                }
+                eventStart = i + 1;
+            } else {
+                event.field(lineStart, i);
+            }
+            // a line ends with CRLF, LF or CR
+            if (b == '\r') {
+                if (i + 1 < limit) {
+                    if (bytes[i + 1] == '\n') {
+                        i++;
+                        eventStart = eventStart == i ? i + 1 : eventStart;
+                    }
+                } else if (eventStart == limit) {
+                    skipLineFeed = true;
+                }
+            }
+            lineStart = i + 1;
+        }
+        return eventStart;
+    }
+
+    /**
+     * Find the end of the event continuing the partial one.
+     *
+     * @return position following the empty line ending the event, or {@code -1} if the event does not end in the
+     * given range.
+     */
+    private int endOfEvent(final byte[] bytes, final int position, final int limit) {
+        final byte last = partial[partialLength - 1];
+        boolean lineStart = last == '\n' || last == '\r';
+        boolean carriageReturn = last == '\r';
+        for (int i = position; i < limit; i++) {
+            final byte b = bytes[i];
+            if (b == '\n' && carriageReturn) {
+                carriageReturn = false;
+                continue;
+            }
+            carriageReturn = b == '\r';
+            if (b != '\n' && b != '\r') {
+                lineStart = false;
+            } else if (lineStart) {
+                return carriageReturn && i + 1 < limit && bytes[i + 1] == '\n' ? i + 2 : i + 1;
+            } else {
+                lineStart = true;
+            }
+        }
+        return -1;
+    }
+
+    private void dispatch(final ParsedSseEvent event) {
+        if (event.hasId()) {
+            lastEventWithId = event;
+        }
+        consumer.accept(event);
+    }
+
+    private static int skipByteOrderMark(final byte[] bytes, final int position) {
+        for (int i = 0; i < BYTE_ORDER_MARK.length; i++) {
+            if (bytes[position + i] != BYTE_ORDER_MARK[i]) {
+                return position;
+            }
+        }
+        return position + BYTE_ORDER_MARK.length;
+    }
+
+    private void append(final byte[] bytes, final int start, final int end) {
+        final int length = end - start;
+        if (length == 0) {
+            return;
+        }
+        if (partial == null) {
+            partial = new byte[Math.max(length, 256)];
+        } else if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partialLength + length, 2 * partial.length));
+        }
+        System.arraycopy(bytes, start, partial, partialLength, length);
+        partialLength += length;
+    }
+}
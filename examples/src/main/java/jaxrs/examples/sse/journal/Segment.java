@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Segment of an {@link SseEventJournal}: a memory-mapped log file of encoded events and a memory-mapped index file.
+ * <p>
+ * The events are stored back to back, so any run of consecutive events is a single region of the log. The index
+ * holds one 16-byte entry per event: its id, and the start and end offsets of the event in the log. Unused
+ * entries are zero; since an event is never empty, an end offset of zero terminates the index when the segment
+ * is reopened.
+ * </p>
+ */
+final class Segment {
+
+    static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int ENTRY_SIZE = 16;
+
+    private final Path logFile;
+    private final Path indexFile;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private int count;
+    private int end;
+    private long lastAppendMillis;
+
+    private Segment(final Path logFile,
+                    final Path indexFile,
+                    final MappedByteBuffer log,
+                    final MappedByteBuffer index) {
+        this.logFile = logFile;
+        this.indexFile = indexFile;
+        this.log = log;
+        this.index = index;
+    }
+
+    /**
+     * Create a new segment.
+     *
+     * @param directory     journal directory.
+     * @param firstId       id of the first event to be appended, used as file name.
+     * @param logCapacity   capacity of the log in bytes.
+     * @param indexCapacity capacity of the index in events.
+     * @return new segment.
+     * @throws IOException in case creating or mapping the files fails.
+     */
+    static Segment create(final Path directory, final long firstId, final int logCapacity, final int indexCapacity)
+            throws IOException {
+        final String name = String.format("%020d", firstId);
+        final Path logFile = directory.resolve(name + LOG_SUFFIX);
+        final Path indexFile = directory.resolve(name + INDEX_SUFFIX);
+        final Segment segment = new Segment(logFile, indexFile,
+                map(logFile, logCapacity), map(indexFile, indexCapacity * ENTRY_SIZE));
+        segment.lastAppendMillis = System.currentTimeMillis();
+        return segment;
+    }
+
+    /**
+     * Reopen a segment of a previous run.
+     *
+     * @param logFile log file of the segment.
+     * @return reopened segment.
+     * @throws IOException in case mapping the files fails.
+     */
+    static Segment open(final Path logFile) throws IOException {
+        final String name = logFile.getFileName().toString();
+        final Path indexFile = logFile.resolveSibling(name.substring(0, name.length() - LOG_SUFFIX.length())
+                + INDEX_SUFFIX);
+        final Segment segment = new Segment(logFile, indexFile,
+                map(logFile, (int) Files.size(logFile)), map(indexFile, (int) Files.size(indexFile)));
+        while ((segment.count + 1) * ENTRY_SIZE <= segment.index.capacity()) {
+            final int entryEnd = segment.index.getInt(segment.count * ENTRY_SIZE + 12);
+            if (entryEnd == 0) {
+                break;
+            }
+            segment.end = entryEnd;
+            segment.count++;
+        }
+        segment.lastAppendMillis = Files.getLastModifiedTime(logFile).toMillis();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(final Path file, final int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Append an event.
+     *
+     * @param id    event id, greater than the id of the last event.
+     * @param event encoded event; its position is not changed.
+     * @return {@code false} if the segment has no room for the event.
+     */
+    boolean append(final long id, final ByteBuffer event) {
+        final int length = event.remaining();
+        if (length > log.capacity() - end || (count + 1) * ENTRY_SIZE > index.capacity()) {
+            return false;
+        }
+        final ByteBuffer target = log.duplicate();
+        target.position(end);
+        target.put(event.duplicate());
+        final int entry = count * ENTRY_SIZE;
+        index.putLong(entry, id);
+        index.putInt(entry + 8, end);
+        index.putInt(entry + 12, end + length);
+        end += length;
+        count++;
+        lastAppendMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long id(final int entry) {
+        return index.getLong(entry * ENTRY_SIZE);
+    }
+
+    /**
+     * Find the first event following an event id.
+     *
+     * @param lastEventId event id.
+     * @return index of the first event with a greater id, {@link #count()} if there is none.
+     */
+    int after(final long lastEventId) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (id(middle) <= lastEventId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the region of the log holding the events from an index entry to the last event.
+     *
+     * @param from index of the first event.
+     * @return read-only buffer sharing the mapped log.
+     */
+    ByteBuffer eventsFrom(final int from) {
+        final ByteBuffer events = log.asReadOnlyBuffer();
+        events.limit(end);
+        events.position(index.getInt(from * ENTRY_SIZE + 8));
+        return events.slice();
+    }
+
+    /**
+     * Get the disk space used by the segment.
+     *
+     * @return size of the log and index files in bytes.
+     */
+    long size() {
+        return log.capacity() + (long) index.capacity();
+    }
+
+    long lastAppendMillis() {
+        return lastAppendMillis;
+    }
+
+    /**
+     * Delete the files of the segment. Buffers returned by {@link #eventsFrom(int)} stay readable as long as they
+     * are referenced, on platforms that allow mapped files to be deleted.
+     *
+     * @throws IOException in case deleting fails.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(indexFile);
+    }
+}
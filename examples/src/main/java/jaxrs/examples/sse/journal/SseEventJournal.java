@@ -0,0 +1,232 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.sse.SseEventSink;
+
+import jaxrs.examples.sse.SseEventEncoder;
+
+/**
+ * Append-only journal of encoded SSE events, for replaying the events a reconnecting client missed since
+ * the event identified by its {@code Last-Event-ID} header.
+ * <p>
+ * The events are stored as encoded by an {@link SseEventEncoder}, in memory-mapped segment files together with
+ * a memory-mapped index by event id, so neither the events nor the index occupy the heap. A replay finds the
+ * first missed event by binary search and {@link SseEventSink#sendEncoded(ByteBuffer) sends} the following
+ * events of each segment as a single region of the mapped file, without copying them. Old segments are deleted
+ * once the journal exceeds its maximum size or their last event is older than the maximum age; the segment being
+ * appended to is always retained. Segments of a previous run in the same directory are reopened, so clients
+ * reconnecting after a restart can still replay.
+ * </p>
+ * <p>
+ * Event ids are non-negative numbers, increasing with every appended event.
+ * </p>
+ */
+public final class SseEventJournal implements Closeable {
+
+    /**
+     * Default capacity of a segment log in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long lastId = -1;
+    private boolean closed;
+
+    /**
+     * Open a journal, reopening the segments found in the directory.
+     *
+     * @param directory    directory of the segment files.
+     * @param segmentSize  capacity of a segment log in bytes.
+     * @param maxBytes     maximum disk space of the segments in bytes.
+     * @param maxAge       maximum age of the last event of a segment.
+     * @param maxAgeUnit   unit of the maximum age.
+     * @throws IOException in case the directory cannot be read or a segment cannot be reopened.
+     */
+    public SseEventJournal(final Path directory,
+                           final int segmentSize,
+                           final long maxBytes,
+                           final long maxAge,
+                           final TimeUnit maxAgeUnit) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeUnit.toMillis(maxAge);
+
+        final List<Path> logFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Segment.LOG_SUFFIX)) {
+            for (Path file : files) {
+                logFiles.add(file);
+            }
+        }
+        // the zero-padded first event ids sort as numbers
+        Collections.sort(logFiles);
+        for (Path logFile : logFiles) {
+            final Segment segment = Segment.open(logFile);
+            if (segment.count() == 0) {
+                segment.delete();
+            } else {
+                segments.addLast(segment);
+                lastId = segment.id(segment.count() - 1);
+            }
+        }
+        enforceRetention();
+    }
+
+    /**
+     * Append an event.
+     *
+     * @param id    id of the event, greater than the id of the last appended event.
+     * @param event event encoded by an {@link SseEventEncoder}, including its {@code id} field; the position of
+     *              the buffer is not changed.
+     * @throws IOException              in case a new segment cannot be created.
+     * @throws IllegalArgumentException in case the id is not greater than the last id.
+     * @throws IllegalStateException    in case the journal is closed.
+     */
+    public synchronized void append(final long id, final ByteBuffer event) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Journal closed.");
+        }
+        if (id <= lastId || id < 0) {
+            throw new IllegalArgumentException("Event id " + id + " not greater than last event id " + lastId + ".");
+        }
+        final Segment current = segments.peekLast();
+        if (current == null || !current.append(id, event)) {
+            final int logCapacity = Math.max(segmentSize, event.remaining());
+            final Segment segment = Segment.create(directory, id, logCapacity, Math.max(1024, logCapacity / 64));
+            segment.append(id, event);
+            segments.addLast(segment);
+            enforceRetention();
+        }
+        lastId = id;
+    }
+
+    /**
+     * Get the id of the last appended event.
+     *
+     * @return last event id, {@code -1} if the journal is empty.
+     */
+    public synchronized long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Get the id of the first retained event. A client that reconnects with an older {@code Last-Event-ID} has
+     * missed events that can no longer be replayed.
+     *
+     * @return first event id, {@code -1} if the journal is empty.
+     */
+    public synchronized long getFirstId() {
+        final Segment first = segments.peekFirst();
+        return first != null ? first.id(0) : -1;
+    }
+
+    /**
+     * Send the events following an event to a sink.
+     *
+     * @param lastEventId id of the last event received by the client.
+     * @param sink        sink of the reconnected client.
+     * @return completion stage that completes when all events have been sent, or completes exceptionally if
+     * sending fails.
+     */
+    public CompletionStage<?> replay(final long lastEventId, final SseEventSink sink) {
+        final List<ByteBuffer> regions = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : segments) {
+                if (segment.count() > 0 && segment.id(segment.count() - 1) > lastEventId) {
+                    regions.add(segment.eventsFrom(segment.after(lastEventId)));
+                }
+            }
+        }
+        CompletionStage<?> sent = CompletableFuture.completedFuture(null);
+        for (ByteBuffer region : regions) {
+            sent = sent.thenCompose(previous -> sink.sendEncoded(region));
+        }
+        return sent;
+    }
+
+    /**
+     * Delete the oldest segments exceeding the maximum size or age. Retention is enforced whenever a segment is
+     * added; journals with rare events may call it periodically.
+     *
+     * @throws IOException in case deleting a segment fails.
+     */
+    public synchronized void enforceRetention() throws IOException {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        final long oldest = System.currentTimeMillis() - maxAgeMillis;
+        while (segments.size() > 1
+                && (size > maxBytes || segments.peekFirst().lastAppendMillis() < oldest)) {
+            final Segment expired = segments.removeFirst();
+            size -= expired.size();
+            expired.delete();
+        }
+    }
+
+    /**
+     * Close the journal, keeping its segments for the next run.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        segments.clear();
+    }
+}
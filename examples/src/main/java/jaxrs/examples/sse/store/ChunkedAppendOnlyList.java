@@ -0,0 +1,143 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free, append-only list of elements indexed by the order in which they were appended.
+ * <p>
+ * Appending reserves the next index with an atomic counter and stores the element in a chunk of fixed size,
+ * allocated by the first thread that needs it; existing elements are never copied or moved. An index is reserved
+ * before its element is stored, so a reader may see a reserved index whose element is not stored yet:
+ * {@link #get(int)} returns {@code null} for it, and {@link #forEach(int, int, Consumer)} stops before it.
+ * </p>
+ *
+ * @param <E> element type.
+ */
+public final class ChunkedAppendOnlyList<E> {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 14;
+
+    /**
+     * Maximum number of elements of a list.
+     */
+    public static final int MAX_SIZE = MAX_CHUNKS * CHUNK_SIZE;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<E>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Append an element.
+     *
+     * @param element element, not {@code null}.
+     * @return index of the element.
+     * @throws IllegalStateException if the list is full.
+     */
+    public int append(final E element) {
+        if (element == null) {
+            throw new NullPointerException("Element must not be null.");
+        }
+        final int index = size.getAndIncrement();
+        if (index >= MAX_SIZE || index < 0) {
+            size.set(MAX_SIZE);
+            throw new IllegalStateException("List is full.");
+        }
+        chunk(index >>> CHUNK_BITS).set(index & CHUNK_MASK, element);
+        return index;
+    }
+
+    /**
+     * Get an element.
+     *
+     * @param index index of the element.
+     * @return element, or {@code null} if its index is not reserved or the element is not stored yet.
+     */
+    public E get(final int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        final AtomicReferenceArray<E> chunk = chunks.get(index >>> CHUNK_BITS);
+        return chunk != null ? chunk.get(index & CHUNK_MASK) : null;
+    }
+
+    /**
+     * Get the number of reserved indexes, which includes elements that are about to be stored.
+     *
+     * @return number of reserved indexes.
+     */
+    public int size() {
+        return Math.min(size.get(), MAX_SIZE);
+    }
+
+    /**
+     * Pass the stored elements of a range to a consumer, stopping at the first element that is not stored yet.
+     *
+     * @param from     first index.
+     * @param to       index following the last index.
+     * @param consumer consumer of the elements.
+     * @return index following the last element passed to the consumer.
+     */
+    public int forEach(final int from, final int to, final Consumer<? super E> consumer) {
+        final int end = Math.min(to, size());
+        for (int index = Math.max(0, from); index < end; index++) {
+            final E element = get(index);
+            if (element == null) {
+                return index;
+            }
+            consumer.accept(element);
+        }
+        return Math.max(from, end);
+    }
+
+    private AtomicReferenceArray<E> chunk(final int index) {
+        AtomicReferenceArray<E> chunk = chunks.get(index);
+        if (chunk == null) {
+            final AtomicReferenceArray<E> allocated = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunk = chunks.compareAndSet(index, null, allocated) ? allocated : chunks.get(index);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.sse.store;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded ring buffer handing values published by any number of threads to a single consumer thread, in the order
+ * of their sequence numbers.
+ * <p>
+ * Sequence numbers are claimed by the publishers beforehand, e.g. as the indexes of a
+ * {@link ChunkedAppendOnlyList}, and each of them must be published exactly once. A publisher stores its value in
+ * the slot of its sequence number and then marks the slot with it; no lock is taken. The consumer thread takes the
+ * values in sequence order as soon as their slots are marked, so it is the only thread acting on them, e.g. writing
+ * them to event sinks. A publisher more than the capacity ahead of the consumer waits for it to catch up.
+ * </p>
+ * <p>
+ * Tasks {@link #execute(Runnable) executed} on the consumer thread run between two values, when all the values
+ * before a sequence number have been consumed and none after it.
+ * </p>
+ *
+ * @param <T> value type.
+ */
+public final class SingleWriterRing<T> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(SingleWriterRing.class.getName());
+    private static final int SPINS = 100;
+    private static final long PUBLISHER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<T> values;
+    private final Consumer<? super T> consumer;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+
+    private volatile long next;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+
+    /**
+     * Create a ring and start its consumer thread.
+     *
+     * @param capacity      capacity, a power of two.
+     * @param firstSequence sequence number of the first value.
+     * @param consumer      consumer of the values.
+     * @param threadName    name of the consumer thread.
+     */
+    public SingleWriterRing(final int capacity,
+                            final long firstSequence,
+                            final Consumer<? super T> consumer,
+                            final String threadName) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, -1);
+        }
+        this.values = new AtomicReferenceArray<>(capacity);
+        this.consumer = consumer;
+        this.next = firstSequence;
+        this.thread = new Thread(this::consume, threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Publish a value, waiting while the consumer is more than the capacity behind.
+     *
+     * @param sequence sequence number of the value.
+     * @param value    value.
+     */
+    public void publish(final long sequence, final T value) {
+        for (int spins = 0; sequence - next > mask && !closed; spins++) {
+            LockSupport.unpark(thread);
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PUBLISHER_PARK_NANOS);
+            }
+        }
+        final int slot = (int) sequence & mask;
+        values.set(slot, value);
+        sequences.set(slot, sequence);
+        if (consumerParked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Run a task on the consumer thread, after the values it is currently consuming.
+     *
+     * @param task task.
+     */
+    public void execute(final Runnable task) {
+        tasks.add(task);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Get the sequence number of the next value to be consumed.
+     *
+     * @return next sequence number.
+     */
+    public long getNextSequence() {
+        return next;
+    }
+
+    /**
+     * Stop the consumer thread. The values not consumed yet are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (!closed) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                run(task);
+            }
+            final long sequence = next;
+            final int slot = (int) sequence & mask;
+            if (sequences.get(slot) == sequence) {
+                final T value = values.get(slot);
+                values.lazySet(slot, null);
+                try {
+                    consumer.accept(value);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Consumer failed on value " + sequence + ".", e);
+                }
+                next = sequence + 1;
+                idle = 0;
+            } else if (++idle < SPINS) {
+                Thread.yield();
+            } else {
+                consumerParked = true;
+                // re-checked after announcing the park, as a publisher may have missed the flag; publish, execute
+                // and close unpark the thread, so it parks without a timeout
+                if (sequences.get(slot) != sequence && tasks.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+            }
+        }
+    }
+
+    private static void run(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ring task failed.", e);
+        }
+    }
+}
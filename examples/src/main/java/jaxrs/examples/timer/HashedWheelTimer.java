@@ -0,0 +1,382 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package jaxrs.examples.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timer for large numbers of pending timeouts, e.g. of suspended requests or SSE heartbeats, with constant time
+ * scheduling and cancellation.
+ * <p>
+ * Timeouts are kept in a wheel of buckets, each covering one tick; a timeout due in more than one revolution of
+ * the wheel waits for the remaining rounds in its bucket. A single worker thread advances the wheel once per tick
+ * and hands the expired tasks to an executor, so timeouts fire up to one tick late. Scheduling and cancellation
+ * only enqueue the timeout for the worker, from any thread, without locks.
+ * </p>
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancel the task, unless it has run or has been cancelled already.
+         *
+         * @return {@code true} if the task has been cancelled by this call.
+         */
+        boolean cancel();
+
+        /**
+         * Check whether the task has been cancelled.
+         *
+         * @return {@code true} if cancelled.
+         */
+        boolean isCancelled();
+    }
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static final HashedWheelTimer SHARED =
+            new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 512, ForkJoinPool.commonPool());
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<WheelTimeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean stopped;
+
+    /**
+     * Create a new timer and start its worker thread.
+     *
+     * @param tickDuration duration of a tick, the resolution of the timer.
+     * @param unit         unit of the tick duration.
+     * @param wheelSize    number of buckets, rounded up to a power of two.
+     * @param executor     executor running the expired tasks.
+     */
+    public HashedWheelTimer(final long tickDuration,
+                            final TimeUnit unit,
+                            final int wheelSize,
+                            final Executor executor) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        final int size = Integer.highestOneBit(wheelSize - 1 == 0 ? 1 : wheelSize - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, "hashed-wheel-timer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Get the timer shared by the examples, with a tick of 100 ms, running expired tasks on the common
+     * fork-join pool.
+     *
+     * @return shared timer.
+     */
+    public static HashedWheelTimer shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedule a task to run once after a delay.
+     *
+     * @param task  task to run, which should not block.
+     * @param delay delay.
+     * @param unit  unit of the delay.
+     * @return handle of the scheduled task.
+     * @throws IllegalStateException in case the timer has been closed.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timer closed.");
+        }
+        final WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() - startNanos + unit.toNanos(delay));
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Schedule a task to run periodically, e.g. to send heartbeats. The next run is scheduled once a run has been
+     * handed to the executor.
+     *
+     * @param task   task to run, which should not block.
+     * @param period period between runs.
+     * @param unit   unit of the period.
+     * @return handle cancelling all future runs.
+     * @throws IllegalStateException in case the timer has been closed.
+     */
+    public Timeout schedulePeriodically(final Runnable task, final long period, final TimeUnit unit) {
+        final Periodic periodic = new Periodic(task, period, unit);
+        periodic.next = schedule(periodic, period, unit);
+        return periodic;
+    }
+
+    /**
+     * Get the number of scheduled tasks that have neither run nor been cancelled.
+     *
+     * @return number of pending timeouts.
+     */
+    public long pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Stop the worker thread. Pending tasks do not run.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            if (!waitForTick(tick)) {
+                return;
+            }
+            removeCancelled();
+            transferScheduled(tick);
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private boolean waitForTick(final long tick) {
+        final long deadline = startNanos + (tick + 1) * tickNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void removeCancelled() {
+        WheelTimeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled(final long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            final WheelTimeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != WheelTimeout.INIT) {
+                continue;
+            }
+            // timeouts already due expire with the current tick
+            final long dueTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(final Bucket bucket) {
+        final List<WheelTimeout> expired = new ArrayList<>();
+        WheelTimeout timeout = bucket.head;
+        while (timeout != null) {
+            final WheelTimeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                if (timeout.state.compareAndSet(WheelTimeout.INIT, WheelTimeout.EXPIRED)) {
+                    expired.add(timeout);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+        for (WheelTimeout e : expired) {
+            pending.decrementAndGet();
+            try {
+                executor.execute(e.task);
+            } catch (RejectedExecutionException ex) {
+                // the executor has been shut down, as the application is
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts of one tick, accessed by the worker thread only.
+     */
+    private static final class Bucket {
+
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        private void add(final WheelTimeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(final WheelTimeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    private final class WheelTimeout implements Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Bucket bucket;
+        private WheelTimeout previous;
+        private WheelTimeout next;
+
+        private WheelTimeout(final Runnable task, final long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            // removed from its bucket by the worker
+            cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    private final class Periodic implements Timeout, Runnable {
+
+        private final Runnable task;
+        private final long period;
+        private final TimeUnit unit;
+        private volatile Timeout next;
+        private volatile boolean cancelled;
+
+        private Periodic(final Runnable task, final long period, final TimeUnit unit) {
+            this.task = task;
+            this.period = period;
+            this.unit = unit;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled || stopped) {
+                return;
+            }
+            next = schedule(this, period, unit);
+            task.run();
+        }
+
+        @Override
+        public boolean cancel() {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            next.cancel();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs;
+
+/**
+ * Interrelated interfaces for establishing flow-controlled components in which {@link Publisher Publishers}
+ * produce items consumed by one or more {@link Subscriber Subscribers}, each managed by a {@link Subscription}.
+ * <p>
+ * The interfaces mirror, method for method and with the same contract, the {@code java.util.concurrent.Flow}
+ * interfaces introduced in Java SE 9, which are not available on the Java SE 8 platform targeted by this API.
+ * On Java SE 9 and newer, adapting between the two is a matter of trivial delegating wrappers.
+ * </p>
+ * <p>
+ * Items are pushed to a subscriber only in response to its {@link Subscription#request(long) demand}, which lets
+ * the subscriber bound the number of items, and hence the memory, in flight.
+ * </p>
+ *
+ * @since 2.2
+ */
+public final class Flow {
+
+    private Flow() {
+        // prevents instantiation
+    }
+
+    /**
+     * A producer of items (and related control messages) received by subscribers.
+     *
+     * @param <T> the published item type.
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Add the given subscriber if possible. If already subscribed, or the attempt to subscribe fails due to
+         * policy violations or errors, the subscriber's {@link Subscriber#onError(Throwable)} method is invoked
+         * with an {@link IllegalStateException}. Otherwise, the subscriber's
+         * {@link Subscriber#onSubscribe(Subscription)} method is invoked with a new {@link Subscription}.
+         *
+         * @param subscriber the subscriber.
+         * @throws NullPointerException if subscriber is {@code null}.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of messages. The methods in this interface are invoked in strict sequential order for each
+     * subscription.
+     *
+     * @param <T> the subscribed item type.
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Method invoked prior to invoking any other subscriber methods for the given subscription. If this method
+         * throws an exception, resulting behavior is not guaranteed, but may cause the subscription not to be
+         * established or to be cancelled.
+         * <p>
+         * Typically, implementations of this method invoke {@link Subscription#request(long)} to enable receiving
+         * items.
+         * </p>
+         *
+         * @param subscription a new subscription.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Method invoked with a subscription's next item. If this method throws an exception, resulting behavior
+         * is not guaranteed, but may cause the subscription to be cancelled.
+         *
+         * @param item the item.
+         */
+        void onNext(T item);
+
+        /**
+         * Method invoked upon an unrecoverable error encountered by a publisher or subscription, after which no
+         * other subscriber methods are invoked by the subscription.
+         *
+         * @param throwable the exception.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Method invoked when it is known that no additional subscriber method invocations will occur for
+         * a subscription that is not already terminated by error, after which no other subscriber methods are
+         * invoked by the subscription.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Message control linking a {@link Publisher} and a {@link Subscriber}. Subscribers receive items only when
+     * requested, and may cancel at any time.
+     */
+    public interface Subscription {
+
+        /**
+         * Add the given number {@code n} of items to the current unfulfilled demand for this subscription.
+         * If {@code n} is less than or equal to zero, the subscriber will receive an {@code onError} signal with
+         * an {@link IllegalArgumentException} argument. Otherwise, the subscriber will receive up to {@code n}
+         * additional {@code onNext} invocations (or fewer if terminated).
+         *
+         * @param n the increment of demand; a value of {@link Long#MAX_VALUE} may be considered as effectively
+         *          unbounded.
+         */
+        void request(long n);
+
+        /**
+         * Cause the subscriber to (eventually) stop receiving messages. Implementation is best-effort &ndash;
+         * additional messages may be received after invoking this method. A cancelled subscription need not ever
+         * receive an {@code onComplete} or {@code onError} signal.
+         */
+        void cancel();
+    }
+
+    /**
+     * A component that acts as both a {@link Subscriber} and {@link Publisher}.
+     *
+     * @param <T> the subscribed item type.
+     * @param <R> the published item type.
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
@@ -76,6 +76,75 @@ public abstract class ClientBuilder implements Configurable<ClientBuilder> {
     private static final String JAXRS_DEFAULT_CLIENT_BUILDER =
             "org.glassfish.jersey.client.JerseyClientBuilder";
 
+    /**
+     * Name of the configuration property identifying the {@link HttpVersion HTTP protocol version}
+     * the client should use for its connections.
+     * <p>
+     * The value MUST be an instance of {@link HttpVersion} or its {@link HttpVersion#name() name}.
+     * When not set, the protocol version is implementation-specific.
+     * </p>
+     *
+     * @see #httpVersion(HttpVersion)
+     * @since 2.2
+     */
+    public static final String HTTP_VERSION_PROPERTY =
+            "javax.ws.rs.client.httpVersion";
+
+    /**
+     * Name of the configuration property limiting the number of concurrent HTTP/2 streams the client
+     * opens on a single connection. Invocations exceeding the limit either wait for a stream to become
+     * available or open an additional connection, depending on the implementation.
+     * <p>
+     * The value MUST be a positive {@link Integer}. The limit is further capped by the
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS} value advertised by the server.
+     * </p>
+     *
+     * @see #http2MaxConcurrentStreams(int)
+     * @since 2.2
+     */
+    public static final String HTTP2_MAX_CONCURRENT_STREAMS_PROPERTY =
+            "javax.ws.rs.client.http2.maxConcurrentStreams";
+
+    /**
+     * Name of the configuration property defining the initial HTTP/2 flow-control window of each
+     * stream, in bytes (advertised as {@code SETTINGS_INITIAL_WINDOW_SIZE}).
+     * <p>
+     * The value MUST be a positive {@link Integer}.
+     * </p>
+     *
+     * @see #http2WindowSize(int, int)
+     * @since 2.2
+     */
+    public static final String HTTP2_STREAM_WINDOW_SIZE_PROPERTY =
+            "javax.ws.rs.client.http2.streamWindowSize";
+
+    /**
+     * Name of the configuration property defining the HTTP/2 flow-control window of the whole
+     * connection, in bytes, i.e. the amount of response data that may be in flight across all
+     * multiplexed streams.
+     * <p>
+     * The value MUST be a positive {@link Integer}.
+     * </p>
+     *
+     * @see #http2WindowSize(int, int)
+     * @since 2.2
+     */
+    public static final String HTTP2_CONNECTION_WINDOW_SIZE_PROPERTY =
+            "javax.ws.rs.client.http2.connectionWindowSize";
+
+    /**
+     * Name of the boolean configuration property enabling the execution of asynchronous and reactive
+     * invocations on virtual threads.
+     * <p>
+     * The value MUST be a {@link Boolean} or its {@link String} representation. Defaults to {@code false}.
+     * </p>
+     *
+     * @see #virtualThreads(boolean)
+     * @since 2.2
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY =
+            "javax.ws.rs.client.virtualThreads";
+
     /**
      * Allows custom implementations to extend the {@code ClientBuilder} class.
      */
@@ -306,6 +375,115 @@ public abstract class ClientBuilder implements Configurable<ClientBuilder> {
      */
     public abstract ClientBuilder readTimeout(long timeout, TimeUnit unit);
 
+    /**
+     * Set the HTTP protocol version to be used for the client connections.
+     * <p>
+     * With {@link HttpVersion#HTTP_2} or {@link HttpVersion#H2C}, concurrent {@link AsyncInvoker asynchronous}
+     * and {@link RxInvoker reactive} invocations against the same host are multiplexed over a single connection
+     * instead of each requiring a connection of its own. The number of concurrent streams and the flow-control
+     * windows can be tuned using {@link #http2MaxConcurrentStreams(int)} and {@link #http2WindowSize(int, int)}.
+     * </p>
+     * <p>
+     * Calling this method is equivalent to setting the {@value #HTTP_VERSION_PROPERTY} property.
+     * </p>
+     *
+     * @param version HTTP protocol version. Must not be {@code null}.
+     * @return an updated client builder instance.
+     * @throws NullPointerException in case the {@code version} parameter is {@code null}.
+     * @since 2.2
+     */
+    public ClientBuilder httpVersion(final HttpVersion version) {
+        if (version == null) {
+            throw new NullPointerException("HTTP version must not be null.");
+        }
+        return property(HTTP_VERSION_PROPERTY, version);
+    }
+
+    /**
+     * Set the maximum number of concurrent HTTP/2 streams opened on a single connection.
+     * <p>
+     * Calling this method is equivalent to setting the {@value #HTTP2_MAX_CONCURRENT_STREAMS_PROPERTY}
+     * property. The value is ignored unless HTTP/2 is {@link #httpVersion(HttpVersion) in use}.
+     * </p>
+     *
+     * @param maxStreams the maximum number of concurrent streams per connection.
+     * @return an updated client builder instance.
+     * @throws IllegalArgumentException when the value is not positive.
+     * @since 2.2
+     */
+    public ClientBuilder http2MaxConcurrentStreams(final int maxStreams) {
+        if (maxStreams <= 0) {
+            throw new IllegalArgumentException("Maximum number of concurrent streams must be positive.");
+        }
+        return property(HTTP2_MAX_CONCURRENT_STREAMS_PROPERTY, maxStreams);
+    }
+
+    /**
+     * Set the HTTP/2 flow-control windows.
+     * <p>
+     * The stream window bounds the amount of unacknowledged response data per invocation, while the connection
+     * window bounds it across all invocations multiplexed over the connection. Larger windows favor throughput
+     * of large responses, smaller ones limit the memory buffered for slow consumers.
+     * </p>
+     * <p>
+     * Calling this method is equivalent to setting the {@value #HTTP2_STREAM_WINDOW_SIZE_PROPERTY} and
+     * {@value #HTTP2_CONNECTION_WINDOW_SIZE_PROPERTY} properties. The values are ignored unless HTTP/2 is
+     * {@link #httpVersion(HttpVersion) in use}.
+     * </p>
+     *
+     * @param streamWindow     initial flow-control window of each stream, in bytes.
+     * @param connectionWindow flow-control window of the connection, in bytes.
+     * @return an updated client builder instance.
+     * @throws IllegalArgumentException when any of the values is not positive.
+     * @since 2.2
+     */
+    public ClientBuilder http2WindowSize(final int streamWindow, final int connectionWindow) {
+        if (streamWindow <= 0 || connectionWindow <= 0) {
+            throw new IllegalArgumentException("Flow-control window sizes must be positive.");
+        }
+        return property(HTTP2_STREAM_WINDOW_SIZE_PROPERTY, streamWindow)
+                .property(HTTP2_CONNECTION_WINDOW_SIZE_PROPERTY, connectionWindow);
+    }
+
+    /**
+     * Enable or disable the execution of asynchronous and reactive invocations on virtual threads.
+     * <p>
+     * When enabled, each {@link AsyncInvoker asynchronous} or {@link Invocation#submit() submitted} invocation
+     * and each invocation of a {@link RxInvoker reactive invoker} is executed in a new virtual thread, so that
+     * blocking I/O does not hold a platform thread and no thread pool needs to be sized. The executor service
+     * passed to {@link RxInvokerProvider#getRxInvoker(SyncInvoker, ExecutorService)} then likewise starts
+     * a new virtual thread per task. The mode only applies when no {@link #executorService(ExecutorService)
+     * executor service} has been set explicitly, and implementations running on a Java platform without
+     * virtual thread support fall back to their default executor service. Scheduled tasks, such as
+     * {@link SseEventSource} reconnects, keep using the {@link #scheduledExecutorService(ScheduledExecutorService)
+     * scheduled executor service}.
+     * </p>
+     * <p>
+     * Client providers, in particular {@link ClientRequestFilter filters} and {@link javax.ws.rs.ext.ReaderInterceptor
+     * reader} and {@link javax.ws.rs.ext.WriterInterceptor writer} interceptors, are subject to the following
+     * contract in this mode:
+     * </p>
+     * <ul>
+     * <li>All providers processing the request and the response of a single invocation are called in the virtual
+     * thread dedicated to that invocation. A {@link ThreadLocal} value set by a request filter is thus visible to
+     * the response filters and interceptors of the same invocation, and to no other invocation.</li>
+     * <li>Thread-local state is discarded together with the thread when the invocation completes. Providers must
+     * not use thread-local variables to cache or pool objects across invocations.</li>
+     * <li>Providers should guard blocking operations with {@link java.util.concurrent.locks.Lock locks} rather
+     * than {@code synchronized} blocks, which may pin the carrier thread of a blocked virtual thread.</li>
+     * </ul>
+     * <p>
+     * Calling this method is equivalent to setting the {@value #VIRTUAL_THREADS_PROPERTY} property.
+     * </p>
+     *
+     * @param enabled {@code true} to run asynchronous and reactive invocations on virtual threads.
+     * @return an updated client builder instance.
+     * @since 2.2
+     */
+    public ClientBuilder virtualThreads(final boolean enabled) {
+        return property(VIRTUAL_THREADS_PROPERTY, enabled);
+    }
+
     /**
      * Build a new client instance using all the configuration previously specified
      * in this client builder.
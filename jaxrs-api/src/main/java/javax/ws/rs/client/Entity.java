@@ -47,6 +47,7 @@ import java.util.Locale;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SerializedEntity;
 import javax.ws.rs.core.Variant;
 
 /**
@@ -126,6 +127,22 @@ public final class Entity<T> {
         return new Entity<T>(entity, variant, annotations);
     }
 
+    /**
+     * Create an entity sending already serialized bytes.
+     * <p>
+     * The entity uses the variant of the serialized entity and is written without invoking a
+     * {@link javax.ws.rs.ext.MessageBodyWriter}, so the same serialized entity may be sent repeatedly
+     * without being serialized again.
+     * </p>
+     *
+     * @param entity serialized entity.
+     * @return entity instance.
+     * @since 2.2
+     */
+    public static Entity<SerializedEntity> serialized(final SerializedEntity entity) {
+        return new Entity<SerializedEntity>(entity, entity.getVariant());
+    }
+
     /**
      * Create a {@value javax.ws.rs.core.MediaType#TEXT_PLAIN} entity.
      *
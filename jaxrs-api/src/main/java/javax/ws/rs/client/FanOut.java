@@ -0,0 +1,609 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Scatter-gather execution of a group of {@link Invocation invocations}.
+ * <p>
+ * A fan-out submits the invocations {@link Invocation#submit(InvocationCallback) asynchronously}, i.e. using
+ * the executor service of the client that created them, keeping at most {@link #parallelism(int) a given number}
+ * of them in flight, and aggregates their outcomes into a single {@link CompletionStage}:
+ * <pre>
+ * CompletionStage&lt;FanOut.Result&lt;Machine&gt;&gt; machines =
+ *         Invocation.fanOut(invocations)
+ *                   .parallelism(8)
+ *                   .callTimeout(2, SECONDS)
+ *                   .timeout(10, SECONDS)
+ *                   .scheduler(scheduledExecutorService)
+ *                   .submit(response -&gt; response.readEntity(Machine.class));
+ * </pre>
+ * Each received {@link Response} is passed to the response handler supplied to {@link #submit(Function)} and
+ * is closed once the handler returns, therefore the handler is expected to read the response entity or any
+ * other response data it needs.
+ * <p>
+ * By default, the returned stage completes once all invocations have finished. It completes earlier if
+ * {@link #completeAfter(int) enough invocations} have succeeded, if the {@link #timeout(long, TimeUnit) overall
+ * deadline} elapses or, under the {@link FailurePolicy#FAIL_FAST fail-fast} policy, once any invocation fails.
+ * Invocations still in flight at that point are cancelled and invocations not yet submitted are never submitted.
+ * </p>
+ * <p>
+ * A fan-out instance is meant to be configured and submitted by a single thread and can be submitted only once.
+ * </p>
+ *
+ * @see Invocation#fanOut(Collection)
+ * @since 2.2
+ */
+public final class FanOut {
+
+    /**
+     * Policy governing how a fan-out reacts to a failed invocation.
+     */
+    public enum FailurePolicy {
+
+        /**
+         * Collect failures in the {@link Result} and keep going. The fan-out stage never completes exceptionally.
+         */
+        COLLECT,
+
+        /**
+         * Cancel the remaining invocations on the first failure and complete the fan-out stage exceptionally
+         * with the failure cause. An elapsed {@link FanOut#timeout(long, TimeUnit) overall deadline} completes
+         * the stage with a {@link TimeoutException}.
+         */
+        FAIL_FAST
+    }
+
+    /**
+     * Aggregated outcome of a fan-out.
+     * <p>
+     * Outcomes are indexed in the iteration order of the invocation collection the fan-out has been created
+     * for. An invocation cut short by a {@link FanOut#callTimeout(long, TimeUnit) per-call} or an
+     * {@link FanOut#timeout(long, TimeUnit) overall} deadline fails with a {@link TimeoutException}, one that has
+     * been cancelled or not submitted at all because the fan-out had already completed fails with
+     * a {@link CancellationException}.
+     * </p>
+     *
+     * @param <T> type of the values produced by the fan-out response handler.
+     */
+    public static final class Result<T> {
+
+        private final List<T> values;
+        private final List<Throwable> failures;
+
+        private Result(final List<T> values, final List<Throwable> failures) {
+            this.values = values;
+            this.failures = failures;
+        }
+
+        /**
+         * Get the number of invocations in the fan-out.
+         *
+         * @return number of invocations.
+         */
+        public int size() {
+            return values.size();
+        }
+
+        /**
+         * Check whether the invocation at the given index has succeeded.
+         *
+         * @param index invocation index.
+         * @return {@code true} if the invocation succeeded, {@code false} otherwise.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public boolean isSuccess(final int index) {
+            return failures.get(index) == null;
+        }
+
+        /**
+         * Get the value produced by the response handler for the invocation at the given index.
+         *
+         * @param index invocation index.
+         * @return handler result or {@code null} if the invocation has not succeeded.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public T get(final int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Get the failure of the invocation at the given index.
+         *
+         * @param index invocation index.
+         * @return invocation failure or {@code null} if the invocation has succeeded.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public Throwable getFailure(final int index) {
+            return failures.get(index);
+        }
+
+        /**
+         * Get the values produced by all successful invocations, in invocation order.
+         *
+         * @return unmodifiable list of successful results.
+         */
+        public List<T> getSuccesses() {
+            final List<T> successes = new ArrayList<>();
+            for (int i = 0; i < values.size(); i++) {
+                if (failures.get(i) == null) {
+                    successes.add(values.get(i));
+                }
+            }
+            return Collections.unmodifiableList(successes);
+        }
+
+        /**
+         * Get the failures of all unsuccessful invocations keyed by the invocation index.
+         *
+         * @return unmodifiable map of failures, in invocation order.
+         */
+        public Map<Integer, Throwable> getFailures() {
+            final Map<Integer, Throwable> result = new LinkedHashMap<>();
+            for (int i = 0; i < failures.size(); i++) {
+                if (failures.get(i) != null) {
+                    result.put(i, failures.get(i));
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    private final List<Invocation> invocations;
+
+    private int parallelism = Integer.MAX_VALUE;
+    private int required = -1;
+    private FailurePolicy failurePolicy = FailurePolicy.COLLECT;
+    private long callTimeoutNanos;
+    private long timeoutNanos;
+    private ScheduledExecutorService scheduler;
+    private boolean submitted;
+
+    FanOut(final Collection<? extends Invocation> invocations) {
+        if (invocations == null) {
+            throw new NullPointerException("Invocations must not be null.");
+        }
+        this.invocations = new ArrayList<>(invocations);
+        for (Invocation invocation : this.invocations) {
+            if (invocation == null) {
+                throw new NullPointerException("Invocations must not contain null elements.");
+            }
+        }
+    }
+
+    /**
+     * Set the maximum number of invocations in flight at any time.
+     * <p>
+     * By default all invocations are submitted at once.
+     * </p>
+     *
+     * @param parallelism maximum number of concurrently executed invocations.
+     * @return updated fan-out.
+     * @throws IllegalArgumentException when the value is not positive.
+     */
+    public FanOut parallelism(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Complete the fan-out as soon as the given number of invocations has succeeded ("first N of M").
+     * <p>
+     * By default the fan-out waits for all invocations.
+     * </p>
+     *
+     * @param successes number of successful invocations to wait for.
+     * @return updated fan-out.
+     * @throws IllegalArgumentException when the value is not positive or exceeds the number of invocations.
+     */
+    public FanOut completeAfter(final int successes) {
+        if (successes <= 0 || successes > invocations.size()) {
+            throw new IllegalArgumentException("Number of required successes must be between 1 and "
+                    + invocations.size() + ".");
+        }
+        this.required = successes;
+        return this;
+    }
+
+    /**
+     * Set the failure policy. Defaults to {@link FailurePolicy#COLLECT}.
+     *
+     * @param policy failure policy. Must not be {@code null}.
+     * @return updated fan-out.
+     * @throws NullPointerException in case the policy is {@code null}.
+     */
+    public FanOut failurePolicy(final FailurePolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException("Failure policy must not be null.");
+        }
+        this.failurePolicy = policy;
+        return this;
+    }
+
+    /**
+     * Set the deadline of each individual invocation, measured from its submission.
+     * <p>
+     * Value {@code 0} represents infinity, which is the default. Negative values are not allowed.
+     * Deadlines require a {@link #scheduler(ScheduledExecutorService) scheduler}.
+     * </p>
+     *
+     * @param timeout the maximum time to wait for a single invocation.
+     * @param unit    the time unit of the timeout argument.
+     * @return updated fan-out.
+     * @throws IllegalArgumentException when the value is negative.
+     */
+    public FanOut callTimeout(final long timeout, final TimeUnit unit) {
+        this.callTimeoutNanos = toNanos(timeout, unit);
+        return this;
+    }
+
+    /**
+     * Set the deadline of the whole fan-out, measured from its {@link #submit(Function) submission}.
+     * <p>
+     * Value {@code 0} represents infinity, which is the default. Negative values are not allowed.
+     * Deadlines require a {@link #scheduler(ScheduledExecutorService) scheduler}.
+     * </p>
+     *
+     * @param timeout the maximum time to wait for the fan-out.
+     * @param unit    the time unit of the timeout argument.
+     * @return updated fan-out.
+     * @throws IllegalArgumentException when the value is negative.
+     */
+    public FanOut timeout(final long timeout, final TimeUnit unit) {
+        this.timeoutNanos = toNanos(timeout, unit);
+        return this;
+    }
+
+    /**
+     * Set the scheduled executor service used to enforce the fan-out deadlines.
+     * <p>
+     * The scheduler only runs the short deadline tasks; invocations are always executed by their client.
+     * </p>
+     *
+     * @param scheduler scheduled executor service.
+     * @return updated fan-out.
+     * @see ClientBuilder#scheduledExecutorService(ScheduledExecutorService)
+     */
+    public FanOut scheduler(final ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * Submit the fan-out.
+     *
+     * @param responseHandler function invoked with each successfully received response to produce the value
+     *                        recorded in the fan-out {@link Result}. The response is closed once the handler
+     *                        returns. Any exception or error thrown by the handler fails the corresponding invocation.
+     * @param <T>             type of the values produced by the response handler.
+     * @return completion stage of the aggregated fan-out result.
+     * @throws NullPointerException  in case the response handler is {@code null}.
+     * @throws IllegalStateException in case the fan-out has already been submitted or a deadline has been
+     *                               set without a scheduler.
+     */
+    public <T> CompletionStage<Result<T>> submit(final Function<? super Response, ? extends T> responseHandler) {
+        if (responseHandler == null) {
+            throw new NullPointerException("Response handler must not be null.");
+        }
+        if (submitted) {
+            throw new IllegalStateException("Fan-out has already been submitted.");
+        }
+        if ((callTimeoutNanos > 0 || timeoutNanos > 0) && scheduler == null) {
+            throw new IllegalStateException("Fan-out deadlines require a scheduler.");
+        }
+        submitted = true;
+
+        final Execution<T> execution = new Execution<>(responseHandler);
+        execution.start();
+        return execution.result;
+    }
+
+    private static long toNanos(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Negative timeout.");
+        }
+        return unit.toNanos(timeout);
+    }
+
+    /**
+     * State of a single fan-out submission. All state is guarded by the execution instance monitor; invocations
+     * are submitted and cancelled outside of it so that runtimes completing callbacks synchronously are supported.
+     */
+    private final class Execution<T> {
+
+        private final Function<? super Response, ? extends T> responseHandler;
+        private final CompletableFuture<Result<T>> result = new CompletableFuture<>();
+
+        private final int count = invocations.size();
+        private final Object[] values = new Object[count];
+        private final Throwable[] failures = new Throwable[count];
+        private final boolean[] finished = new boolean[count];
+        private final Future<?>[] futures = new Future<?>[count];
+        private final ScheduledFuture<?>[] deadlines = new ScheduledFuture<?>[count];
+
+        private int next;
+        private int inFlight;
+        private int succeeded;
+        private int completed;
+        private boolean done;
+        private boolean launching;
+        private ScheduledFuture<?> overallDeadline;
+
+        private Execution(final Function<? super Response, ? extends T> responseHandler) {
+            this.responseHandler = responseHandler;
+        }
+
+        private void start() {
+            if (count == 0) {
+                complete(null);
+                return;
+            }
+            if (timeoutNanos > 0) {
+                final ScheduledFuture<?> deadline = scheduler.schedule(
+                        () -> complete(new TimeoutException("Fan-out deadline elapsed.")),
+                        timeoutNanos, TimeUnit.NANOSECONDS);
+                synchronized (this) {
+                    overallDeadline = deadline;
+                }
+            }
+            launchNext();
+        }
+
+        /**
+         * Submit pending invocations until the parallelism limit is reached.
+         * <p>
+         * Only one thread runs the launch loop at a time. Invocations failing or completing synchronously call back
+         * into this method from within the loop; such nested calls return immediately and the running loop picks up
+         * the freed slots, so the stack depth does not grow with the number of invocations.
+         * </p>
+         */
+        private void launchNext() {
+            synchronized (this) {
+                if (launching) {
+                    return;
+                }
+                launching = true;
+            }
+            try {
+                while (true) {
+                    final int index;
+                    synchronized (this) {
+                        if (done || next >= count || inFlight >= parallelism) {
+                            launching = false;
+                            return;
+                        }
+                        index = next++;
+                        inFlight++;
+                    }
+                    launch(index);
+                }
+            } catch (Throwable t) {
+                synchronized (this) {
+                    launching = false;
+                }
+                throw t;
+            }
+        }
+
+        private void launch(final int index) {
+            final Future<Response> future;
+            try {
+                future = invocations.get(index).submit(new Callback(index));
+            } catch (RuntimeException ex) {
+                finish(index, null, ex, null);
+                return;
+            }
+
+            ScheduledFuture<?> deadline = null;
+            if (callTimeoutNanos > 0) {
+                deadline = scheduler.schedule(
+                        () -> finish(index, null, new TimeoutException("Invocation deadline elapsed."), future),
+                        callTimeoutNanos, TimeUnit.NANOSECONDS);
+            }
+
+            final boolean cancel;
+            synchronized (this) {
+                cancel = done && !finished[index];
+                if (!finished[index] && !done) {
+                    futures[index] = future;
+                    deadlines[index] = deadline;
+                    deadline = null;
+                }
+            }
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            if (cancel) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * Record the outcome of an invocation.
+         *
+         * @param cancel future of the invocation to be cancelled once the outcome is recorded, or {@code null}.
+         */
+        private void finish(final int index, final T value, final Throwable failure, final Future<?> cancel) {
+            final ScheduledFuture<?> deadline;
+            Throwable abort = null;
+            boolean complete = false;
+            synchronized (this) {
+                if (done || finished[index]) {
+                    return;
+                }
+                finished[index] = true;
+                inFlight--;
+                completed++;
+                values[index] = value;
+                failures[index] = failure;
+                futures[index] = null;
+                deadline = deadlines[index];
+                deadlines[index] = null;
+
+                if (failure == null) {
+                    succeeded++;
+                    complete = required > 0 && succeeded >= required;
+                } else if (failurePolicy == FailurePolicy.FAIL_FAST) {
+                    abort = failure;
+                    complete = true;
+                }
+                complete = complete || completed == count;
+            }
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            if (cancel != null) {
+                cancel.cancel(true);
+            }
+            if (complete) {
+                complete(abort);
+            } else {
+                launchNext();
+            }
+        }
+
+        /**
+         * Complete the fan-out, cancelling any invocations that are still in flight.
+         *
+         * @param abort cause of an abnormal completion, or {@code null}.
+         */
+        private void complete(final Throwable abort) {
+            final List<Future<?>> cancelled = new ArrayList<>();
+            final List<ScheduledFuture<?>> timers = new ArrayList<>();
+            final Result<T> outcome;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                final boolean timedOut = abort instanceof TimeoutException;
+                for (int i = 0; i < count; i++) {
+                    if (!finished[i]) {
+                        finished[i] = true;
+                        failures[i] = timedOut && i < next
+                                ? new TimeoutException("Fan-out deadline elapsed.")
+                                : new CancellationException("Fan-out completed.");
+                        if (futures[i] != null) {
+                            cancelled.add(futures[i]);
+                            futures[i] = null;
+                        }
+                        if (deadlines[i] != null) {
+                            timers.add(deadlines[i]);
+                            deadlines[i] = null;
+                        }
+                    }
+                }
+                if (overallDeadline != null) {
+                    timers.add(overallDeadline);
+                }
+                @SuppressWarnings("unchecked")
+                final List<T> valueList = (List<T>) Arrays.asList(values.clone());
+                outcome = new Result<>(Collections.unmodifiableList(valueList),
+                        Collections.unmodifiableList(Arrays.asList(failures.clone())));
+            }
+
+            for (ScheduledFuture<?> timer : timers) {
+                timer.cancel(false);
+            }
+            for (Future<?> future : cancelled) {
+                future.cancel(true);
+            }
+            if (abort != null && failurePolicy == FailurePolicy.FAIL_FAST) {
+                result.completeExceptionally(abort);
+            } else {
+                result.complete(outcome);
+            }
+        }
+
+        private final class Callback implements InvocationCallback<Response> {
+
+            private final int index;
+
+            private Callback(final int index) {
+                this.index = index;
+            }
+
+            @Override
+            public void completed(final Response response) {
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = responseHandler.apply(response);
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    try {
+                        if (response != null) {
+                            response.close();
+                        }
+                    } finally {
+                        finish(index, value, failure, null);
+                    }
+                }
+            }
+
+            @Override
+            public void failed(final Throwable throwable) {
+                finish(index, null, throwable, null);
+            }
+        }
+    }
+}
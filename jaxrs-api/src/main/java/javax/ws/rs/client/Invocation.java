@@ -40,6 +40,7 @@
 
 package javax.ws.rs.client;
 
+import java.util.Collection;
 import java.util.Locale;
 import java.util.concurrent.Future;
 
@@ -470,4 +471,26 @@ public interface Invocation {
      *         request invocation.
      */
     public <T> Future<T> submit(InvocationCallback<T> callback);
+
+    /**
+     * Create a new {@link FanOut fan-out} that submits the given invocations in parallel and aggregates
+     * their outcomes into a single {@link java.util.concurrent.CompletionStage}.
+     * <p>
+     * For example, the following code fetches a set of resources with at most 8 requests in flight
+     * and waits for the first 3 successful responses:
+     * <pre>
+     *   CompletionStage&lt;FanOut.Result&lt;String&gt;&gt; replies = Invocation.fanOut(invocations)
+     *           .parallelism(8)
+     *           .completeAfter(3)
+     *           .submit(response -&gt; response.readEntity(String.class));
+     * </pre>
+     *
+     * @param invocations invocations to be submitted. Must not be {@code null} nor contain {@code null} elements.
+     * @return new fan-out of the invocations.
+     * @throws NullPointerException in case the invocations collection is or contains {@code null}.
+     * @since 2.2
+     */
+    public static FanOut fanOut(Collection<? extends Invocation> invocations) {
+        return new FanOut(invocations);
+    }
 }
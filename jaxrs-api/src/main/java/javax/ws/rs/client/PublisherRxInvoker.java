@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.client;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Reactive invoker streaming the response entity as a {@link Flow.Publisher} of elements.
+ * <p>
+ * Unlike a {@link CompletionStageRxInvoker}, which produces a fully materialized result, this invoker emits the
+ * response entity incrementally, so that arbitrarily large entities can be processed with memory bounded by the
+ * subscriber demand:
+ * <pre>
+ *   Flow.Publisher&lt;Item&gt; items = client.target("http://example.org/export")
+ *           .request("application/x-ndjson")
+ *           .rx(PublisherRxInvoker.class)
+ *           .get(Item.class);
+ *   items.subscribe(new ItemSubscriber());
+ * </pre>
+ * The type of the published elements is determined by the response type argument:
+ * <ul>
+ * <li>{@link java.nio.ByteBuffer} &ndash; the raw entity bytes, published as a sequence of chunks. A chunk
+ * is owned by the subscriber once published.</li>
+ * <li>{@link Response} &ndash; a single response, published once the response headers are received; its entity
+ * has not been read yet.</li>
+ * <li>any other type &ndash; elements decoded from the entity one at a time, using the
+ * {@link javax.ws.rs.ext.MessageBodyReader message body reader} applicable to the element type. The framing of
+ * the elements is determined by the response media type: each line of an {@code application/x-ndjson}
+ * entity and each top-level array item of an {@code application/json} entity is one element, read as an
+ * {@code application/json} entity of its own. Support for other media types is implementation-specific.</li>
+ * </ul>
+ * The request is sent when the first subscriber subscribes; each subscription issues a new request. The entity is
+ * read from the connection only as far as needed to satisfy the outstanding demand, and the connection is
+ * released when the entity is fully consumed, an error is signalled or the subscription is cancelled.
+ * In case the response status code is not {@link javax.ws.rs.core.Response.Status.Family#SUCCESSFUL successful}
+ * and the element type is not {@code Response}, the subscriber is signalled a
+ * {@link javax.ws.rs.WebApplicationException} via {@link Flow.Subscriber#onError(Throwable)}.
+ * </p>
+ * <p>
+ * Support for this invoker is optional; it is plugged in by registering a {@link RxInvokerProvider} providing
+ * the {@code PublisherRxInvoker} type.
+ * </p>
+ *
+ * @since 2.2
+ */
+public interface PublisherRxInvoker extends RxInvoker<Flow.Publisher<?>> {
+
+    @Override
+    public Flow.Publisher<Response> get();
+
+    @Override
+    public <T> Flow.Publisher<T> get(Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> get(GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> put(Entity<?> entity);
+
+    @Override
+    public <T> Flow.Publisher<T> put(Entity<?> entity, Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> put(Entity<?> entity, GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> post(Entity<?> entity);
+
+    @Override
+    public <T> Flow.Publisher<T> post(Entity<?> entity, Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> post(Entity<?> entity, GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> delete();
+
+    @Override
+    public <T> Flow.Publisher<T> delete(Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> delete(GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> head();
+
+    @Override
+    public Flow.Publisher<Response> options();
+
+    @Override
+    public <T> Flow.Publisher<T> options(Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> options(GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> trace();
+
+    @Override
+    public <T> Flow.Publisher<T> trace(Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> trace(GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> method(String name);
+
+    @Override
+    public <T> Flow.Publisher<T> method(String name, Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> method(String name, GenericType<T> elementType);
+
+    @Override
+    public Flow.Publisher<Response> method(String name, Entity<?> entity);
+
+    @Override
+    public <T> Flow.Publisher<T> method(String name, Entity<?> entity, Class<T> elementType);
+
+    @Override
+    public <T> Flow.Publisher<T> method(String name, Entity<?> entity, GenericType<T> elementType);
+}
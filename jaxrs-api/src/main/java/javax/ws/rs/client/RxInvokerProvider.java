@@ -72,9 +72,12 @@ public interface RxInvokerProvider<T extends RxInvoker> {
      * @param syncInvoker     {@code SyncInvoker} used to execute current request.
      * @param executorService executor service, which should be used for executing reactive callbacks invocations.
      *                        It can be {@code null}; in that case it's up to the implementation to choose the best
-     *                        {@code ExecutorService} in given environment.
+     *                        {@code ExecutorService} in given environment. When the client runs
+     *                        {@link ClientBuilder#virtualThreads(boolean) on virtual threads}, the executor
+     *                        service starts a new virtual thread per task and need not be bounded by the provider.
      * @return instance of the {@code RxInvoker} subclass.
      * @see ClientBuilder#executorService(ExecutorService)
+     * @see ClientBuilder#virtualThreads(boolean)
      */
     public T getRxInvoker(SyncInvoker syncInvoker, ExecutorService executorService);
 
@@ -0,0 +1,89 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.container;
+
+import java.util.Date;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * Contract for a provider supplying the validators of the representation a request targets, so that the
+ * preconditions of a conditional request can be evaluated before the resource method runs.
+ * <p>
+ * Validator providers are meant to be cheap: they derive the {@link EntityTag entity tag} and last modification
+ * date from a version number, a timestamp or similar metadata, rather than from the representation itself.
+ * A request whose preconditions fail, e.g. a {@code GET} with an {@code If-None-Match} header listing the current
+ * entity tag, can then be answered with {@code 304 Not Modified} or {@code 412 Precondition Failed} without
+ * loading or serializing the entity. Implementations should only depend on the request context available to
+ * a {@link PreMatching pre-matching} filter, e.g. its {@link ContainerRequestContext#getUriInfo() URI}, so that
+ * they can also be evaluated before the request is matched to a resource method.
+ * </p>
+ * <p>
+ * A validator provider is typically bound to a resource method by a {@link DynamicFeature}, which registers
+ * a request filter that evaluates the preconditions.
+ * </p>
+ *
+ * @see javax.ws.rs.core.Request#evaluatePreconditions(Date, EntityTag)
+ * @since 2.2
+ */
+public interface ValidatorProvider {
+
+    /**
+     * Get the entity tag of the current representation of the requested resource.
+     *
+     * @param requestContext request context.
+     * @return entity tag, or {@code null} if not known, e.g. if the resource does not exist. Preconditions on the
+     * entity tag are then left to the resource method.
+     */
+    EntityTag getEntityTag(ContainerRequestContext requestContext);
+
+    /**
+     * Get the last modification date of the current representation of the requested resource.
+     * <p>
+     * The default implementation returns {@code null}.
+     * </p>
+     *
+     * @param requestContext request context.
+     * @return last modification date, or {@code null} if not known.
+     */
+    default Date getLastModified(ContainerRequestContext requestContext) {
+        return null;
+    }
+}
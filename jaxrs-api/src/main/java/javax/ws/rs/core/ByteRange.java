@@ -0,0 +1,262 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes of a representation, as requested by the value of a {@link HttpHeaders#RANGE Range} header
+ * and reported in a {@link HttpHeaders#CONTENT_RANGE Content-Range} header of a
+ * {@link Response.Status#PARTIAL_CONTENT 206 Partial Content} response.
+ * <p>
+ * Ranges are always resolved against the length of the selected representation, i.e. both positions are absolute
+ * and inclusive.
+ * </p>
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7233">HTTP/1.1 Range Requests</a>
+ * @since 2.2
+ */
+public final class ByteRange {
+
+    /**
+     * The {@code "bytes"} range unit.
+     */
+    public static final String BYTES_UNIT = "bytes";
+
+    private final long first;
+    private final long last;
+
+    /**
+     * Create a new byte range.
+     *
+     * @param first position of the first byte in the range.
+     * @param last  position of the last byte in the range, inclusive.
+     * @throws IllegalArgumentException in case the first position is negative or greater than the last position.
+     */
+    public ByteRange(final long first, final long last) {
+        if (first < 0 || last < first) {
+            throw new IllegalArgumentException("Invalid byte range: " + first + "-" + last);
+        }
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parse the value of a {@code Range} header and resolve the requested ranges against the length of
+     * a representation.
+     * <p>
+     * The returned list contains the satisfiable ranges in the order they were requested; unsatisfiable ranges
+     * (i.e. starting beyond the end of the representation) are left out. An empty list therefore means the
+     * request should be answered with {@link Response.Status#REQUESTED_RANGE_NOT_SATISFIABLE 416}. In case the
+     * value is {@code null}, uses a range unit other than {@code bytes} or is not syntactically valid,
+     * {@code null} is returned and, as required by HTTP, the header should be ignored.
+     * </p>
+     *
+     * @param value  {@code Range} header value, may be {@code null}.
+     * @param length length of the representation in bytes.
+     * @return satisfiable ranges or {@code null} in case the header should be ignored.
+     * @throws IllegalArgumentException in case the length is negative.
+     */
+    public static List<ByteRange> parse(final String value, final long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Representation length must not be negative.");
+        }
+        if (value == null) {
+            return null;
+        }
+        final int equals = value.indexOf('=');
+        if (equals < 0 || !BYTES_UNIT.equalsIgnoreCase(value.substring(0, equals).trim())) {
+            return null;
+        }
+
+        final List<ByteRange> ranges = new ArrayList<>();
+        boolean specified = false;
+        for (String spec : value.substring(equals + 1).split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            final long from = parsePosition(spec.substring(0, dash).trim());
+            final long to = parsePosition(spec.substring(dash + 1).trim());
+            specified = true;
+            if (from == -2 || to == -2 || (from == -1 && to == -1) || (to >= 0 && from > to)) {
+                return null;
+            }
+            if (from == -1) {
+                // suffix range: the last "to" bytes
+                if (to > 0 && length > 0) {
+                    ranges.add(new ByteRange(Math.max(0, length - to), length - 1));
+                }
+            } else if (from < length) {
+                ranges.add(new ByteRange(from, to == -1 ? length - 1 : Math.min(to, length - 1)));
+            }
+        }
+        return specified ? ranges : null;
+    }
+
+    /**
+     * Sort the ranges and merge the overlapping and adjacent ones.
+     * <p>
+     * A server may coalesce the requested ranges before sending them, e.g. to prevent clients from requesting
+     * many small or overlapping ranges of the same representation.
+     * </p>
+     *
+     * @param ranges byte ranges.
+     * @return new list of sorted non-overlapping ranges.
+     */
+    public static List<ByteRange> coalesce(final List<ByteRange> ranges) {
+        final List<ByteRange> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted, new Comparator<ByteRange>() {
+            @Override
+            public int compare(final ByteRange r1, final ByteRange r2) {
+                return Long.compare(r1.first, r2.first);
+            }
+        });
+        final List<ByteRange> coalesced = new ArrayList<>(sorted.size());
+        for (final ByteRange range : sorted) {
+            final int lastIndex = coalesced.size() - 1;
+            final ByteRange previous = lastIndex < 0 ? null : coalesced.get(lastIndex);
+            if (previous != null && range.first <= previous.last + 1) {
+                coalesced.set(lastIndex, new ByteRange(previous.first, Math.max(previous.last, range.last)));
+            } else {
+                coalesced.add(range);
+            }
+        }
+        return coalesced;
+    }
+
+    /**
+     * Create the value of a {@code Content-Range} header reporting that no range could be satisfied.
+     *
+     * @param length length of the representation in bytes.
+     * @return {@code Content-Range} header value, e.g. <code>"bytes *&#47;1234"</code>.
+     */
+    public static String unsatisfiedContentRange(final long length) {
+        return BYTES_UNIT + " */" + length;
+    }
+
+    /**
+     * Get the position of the first byte in the range.
+     *
+     * @return first byte position.
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * Get the position of the last byte in the range.
+     *
+     * @return last byte position, inclusive.
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * Get the number of bytes in the range.
+     *
+     * @return range length in bytes.
+     */
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Create the value of a {@code Content-Range} header for this range.
+     *
+     * @param length length of the complete representation in bytes.
+     * @return {@code Content-Range} header value, e.g. {@code "bytes 0-499/1234"}.
+     */
+    public String toContentRange(final long length) {
+        return BYTES_UNIT + " " + first + "-" + last + "/" + length;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ByteRange)) {
+            return false;
+        }
+        final ByteRange other = (ByteRange) obj;
+        return first == other.first && last == other.last;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(first) + Long.hashCode(last);
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+
+    /**
+     * Parse a byte position.
+     *
+     * @return the position, {@code -1} if empty or {@code -2} if not valid.
+     */
+    private static long parsePosition(final String position) {
+        if (position.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < position.length(); i++) {
+            if (position.charAt(i) < '0' || position.charAt(i) > '9') {
+                return -2;
+            }
+        }
+        try {
+            return Long.parseLong(position);
+        } catch (NumberFormatException e) {
+            // too many digits
+            return -2;
+        }
+    }
+}
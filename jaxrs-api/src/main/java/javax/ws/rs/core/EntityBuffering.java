@@ -0,0 +1,84 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+/**
+ * Configuration properties controlling how a JAX-RS runtime buffers message entities, e.g. when
+ * {@link Response#bufferEntity()} is invoked.
+ * <p>
+ * Runtimes are encouraged to buffer entities in a chain of pooled, reference-counted buffers rather than in a
+ * single growing array, and to spill entities exceeding the {@link #MEMORY_THRESHOLD_PROPERTY memory threshold} to
+ * a temporary file, so that a buffered entity can be re-read any number of times without growing the Java heap.
+ * Filters that need to read an entity more than once (e.g. from {@link javax.ws.rs.client.ClientResponseContext}
+ * or {@link javax.ws.rs.container.ContainerRequestContext}) should use the same facility where the runtime
+ * exposes it.
+ * </p>
+ * <p>
+ * The properties are set on the {@link Configurable configurable} client, web target or application; values may be
+ * specified either as numbers or as strings.
+ * </p>
+ *
+ * @since 2.2
+ */
+public final class EntityBuffering {
+
+    /**
+     * Maximum number of bytes of a single buffered entity that are kept in memory before the remainder is spilled
+     * to a temporary file. A negative value means that buffered entities are never spilled.
+     * <p>
+     * The default value is implementation-specific.
+     * </p>
+     */
+    public static final String MEMORY_THRESHOLD_PROPERTY = "javax.ws.rs.core.entityBuffering.memoryThreshold";
+
+    /**
+     * Directory in which the temporary files of spilled entities are created.
+     * <p>
+     * Defaults to the directory denoted by the {@code java.io.tmpdir} system property.
+     * </p>
+     */
+    public static final String SPILL_DIRECTORY_PROPERTY = "javax.ws.rs.core.entityBuffering.spillDirectory";
+
+    /**
+     * Prevents instantiation.
+     */
+    private EntityBuffering() {
+    }
+}
@@ -114,6 +114,82 @@ public class EntityTag {
         return value;
     }
 
+    /**
+     * Check whether an {@link HttpHeaders#IF_MATCH If-Match} or {@link HttpHeaders#IF_NONE_MATCH If-None-Match}
+     * header value lists this entity tag.
+     * <p>
+     * The header value is scanned in place: the listed entity tags are compared with this tag without being
+     * parsed into {@code EntityTag} instances, so that long lists are matched without allocation.
+     * </p>
+     *
+     * @param header         header value, either {@code *} or a comma separated list of entity tags.
+     *                       May be {@code null}.
+     * @param weakComparison {@code true} to use the weak comparison function, which ignores the weakness of the
+     *                       tags, as for {@code If-None-Match}; {@code false} to use the strong comparison function,
+     *                       which only matches strong tags, as for {@code If-Match}.
+     * @return {@code true} if the header value is {@code *} or lists a tag matching this tag, {@code false}
+     * otherwise.
+     * @see <a href="https://tools.ietf.org/html/rfc7232#section-2.3.2">RFC 7232, section 2.3.2</a>
+     * @since 2.2
+     */
+    public boolean isListedIn(final CharSequence header, final boolean weakComparison) {
+        if (header == null) {
+            return false;
+        }
+        final int length = header.length();
+        int i = 0;
+        while (i < length) {
+            final char c = header.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            boolean listedWeak = false;
+            if ((c == 'W' || c == 'w') && i + 1 < length && header.charAt(i + 1) == '/') {
+                listedWeak = true;
+                i += 2;
+            }
+            final int start;
+            final int end;
+            if (i < length && header.charAt(i) == '"') {
+                start = ++i;
+                while (i < length && header.charAt(i) != '"') {
+                    i++;
+                }
+                end = i;
+            } else {
+                // tolerate tags sent without quotes
+                start = i;
+                while (i < length && header.charAt(i) != ',' && header.charAt(i) != ' ' && header.charAt(i) != '\t') {
+                    i++;
+                }
+                end = i;
+            }
+            if ((weakComparison || !(weak || listedWeak)) && valueEquals(header, start, end)) {
+                return true;
+            }
+            while (i < length && header.charAt(i) != ',') {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private boolean valueEquals(final CharSequence header, final int start, final int end) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (header.charAt(i) != value.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Compares {@code obj} to this tag to see if they are the same considering
      * weakness and value.
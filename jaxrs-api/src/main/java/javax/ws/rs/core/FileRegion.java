@@ -0,0 +1,227 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A region of a file that may be used as a request entity (e.g. via
+ * {@link javax.ws.rs.client.Entity#entity(Object, MediaType)}), as a resource method return value or as the entity
+ * in a {@link Response}.
+ * <p>
+ * Unlike a {@link StreamingOutput} or an {@link java.io.InputStream} entity, a file region has a known length and
+ * does not need to be copied through the Java heap. A JAX-RS runtime should report the {@link #getCount() count}
+ * of the region as the exact size of the entity, so that the message is not sent using chunked transfer coding,
+ * and should transfer the region using {@link FileChannel#transferTo(long, long, WritableByteChannel)} when the
+ * underlying connection permits it. Runtimes are likewise encouraged to write {@link Path} and
+ * {@link java.nio.channels.ReadableByteChannel} entities without intermediate heap copies.
+ * </p>
+ * <p>
+ * A region created from a {@link Path} opens (and closes) the file each time it is transferred and may therefore
+ * be written multiple times. A region created from a {@link FileChannel} hands the ownership of the channel over to
+ * the JAX-RS runtime, which closes the channel once the region has been transferred.
+ * </p>
+ *
+ * @see javax.ws.rs.ext.MessageBodyWriter#getSize(Object, Class, java.lang.reflect.Type,
+ * java.lang.annotation.Annotation[], MediaType)
+ * @since 2.2
+ */
+public final class FileRegion {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long position;
+    private final long count;
+
+    private FileRegion(final Path path, final FileChannel channel, final long position, final long count) {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("Position and count must not be negative.");
+        }
+        this.path = path;
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * Create a region spanning the whole file.
+     *
+     * @param path file path.
+     * @return file region.
+     * @throws NullPointerException in case the path is {@code null}.
+     * @throws IOException          in case the size of the file cannot be determined.
+     */
+    public static FileRegion of(final Path path) throws IOException {
+        return new FileRegion(requireNonNull(path, "path"), null, 0, Files.size(path));
+    }
+
+    /**
+     * Create a region of a file.
+     *
+     * @param path     file path.
+     * @param position offset of the first byte of the region in the file.
+     * @param count    number of bytes in the region.
+     * @return file region.
+     * @throws NullPointerException     in case the path is {@code null}.
+     * @throws IllegalArgumentException in case the position or count is negative.
+     */
+    public static FileRegion of(final Path path, final long position, final long count) {
+        return new FileRegion(requireNonNull(path, "path"), null, position, count);
+    }
+
+    /**
+     * Create a region spanning an open file channel from its current position to its end.
+     *
+     * @param channel file channel, closed by the JAX-RS runtime once transferred.
+     * @return file region.
+     * @throws NullPointerException in case the channel is {@code null}.
+     * @throws IOException          in case the position or size of the channel cannot be determined.
+     */
+    public static FileRegion of(final FileChannel channel) throws IOException {
+        final long position = requireNonNull(channel, "channel").position();
+        return new FileRegion(null, channel, position, Math.max(0, channel.size() - position));
+    }
+
+    /**
+     * Create a region of an open file channel.
+     *
+     * @param channel  file channel, closed by the JAX-RS runtime once transferred.
+     * @param position offset of the first byte of the region in the file.
+     * @param count    number of bytes in the region.
+     * @return file region.
+     * @throws NullPointerException     in case the channel is {@code null}.
+     * @throws IllegalArgumentException in case the position or count is negative.
+     */
+    public static FileRegion of(final FileChannel channel, final long position, final long count) {
+        return new FileRegion(null, requireNonNull(channel, "channel"), position, count);
+    }
+
+    /**
+     * Get the path of the file.
+     *
+     * @return file path or {@code null} in case the region was created from a file channel.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the offset of the first byte of the region in the file.
+     *
+     * @return region position.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the number of bytes in the region, i.e. the exact length of the entity.
+     *
+     * @return region length in bytes.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Open a channel to read the file.
+     * <p>
+     * Returns a new channel in case the region was created from a path and the channel the region was created
+     * from otherwise. The caller is responsible for closing the returned channel.
+     * </p>
+     *
+     * @return file channel.
+     * @throws IOException in case the file cannot be opened.
+     */
+    public FileChannel open() throws IOException {
+        return channel != null ? channel : FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Transfer all bytes of the region to the target channel and close the file channel.
+     * <p>
+     * The bytes are transferred using {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which
+     * lets the operating system move the bytes directly to the target where supported. The target must be in
+     * blocking mode: a target accepting no bytes, e.g. a non-blocking socket channel with a full send buffer,
+     * fails the transfer instead of being retried.
+     * </p>
+     *
+     * @param target target channel in blocking mode, not closed by this method.
+     * @return number of bytes transferred, equal to the {@link #getCount() count} of the region.
+     * @throws EOFException in case the file ends before the end of the region.
+     * @throws IOException  in case reading the file or writing the target fails, or the target accepts no bytes.
+     */
+    public long transferTo(final WritableByteChannel target) throws IOException {
+        try (FileChannel source = open()) {
+            long transferred = 0;
+            while (transferred < count) {
+                final long n = source.transferTo(position + transferred, count - transferred, target);
+                if (n <= 0) {
+                    if (position + transferred >= source.size()) {
+                        throw new EOFException("File ended after " + transferred + " of " + count + " bytes.");
+                    }
+                    // retrying would spin on a target that is not in blocking mode
+                    throw new IOException("Target accepted no bytes after " + transferred + " of " + count
+                            + " bytes.");
+                }
+                transferred += n;
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileRegion{" + (path != null ? path : channel) + ", position=" + position + ", count=" + count + '}';
+    }
+
+    private static <T> T requireNonNull(final T value, final String name) {
+        if (value == null) {
+            throw new NullPointerException(name + " must not be null.");
+        }
+        return value;
+    }
+}
@@ -317,6 +317,10 @@ public abstract class Response implements AutoCloseable {
      * attempts to read a message entity stream on such closed response will result in an
      * {@link IllegalStateException} being thrown.
      * </p>
+     * <p>
+     * How much of the buffered entity data is kept in memory can be configured using the
+     * {@link EntityBuffering} properties.
+     * </p>
      *
      * @return {@code true} if the message entity input stream was available and
      *         was buffered successfully, returns {@code false} if the entity stream
@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable, already serialized message entity.
+ * <p>
+ * A serialized entity is produced once and may be sent any number of times, e.g. as the entity of many requests
+ * fanned out to different targets, of retried requests or of {@link javax.ws.rs.sse.OutboundSseEvent events}
+ * broadcast to many SSE sinks. A JAX-RS runtime writes the bytes of a serialized entity as they are: it does not
+ * look up a {@link javax.ws.rs.ext.MessageBodyWriter} for it, reports its {@link #getLength() length} as the
+ * exact entity size and does not apply any content coding to it. The media type and content coding of the bytes
+ * are described by the {@link #getVariant() variant} of the entity.
+ * </p>
+ *
+ * @see javax.ws.rs.client.Entity#serialized(SerializedEntity)
+ * @since 2.2
+ */
+public final class SerializedEntity {
+
+    private final byte[] bytes;
+    private final Variant variant;
+
+    private SerializedEntity(final byte[] bytes, final Variant variant) {
+        this.bytes = bytes;
+        this.variant = variant;
+    }
+
+    /**
+     * Create a serialized entity of the given media type. The bytes are copied.
+     *
+     * @param bytes     serialized entity bytes.
+     * @param mediaType media type of the bytes.
+     * @return serialized entity.
+     * @throws NullPointerException in case the bytes or the media type is {@code null}.
+     */
+    public static SerializedEntity of(final byte[] bytes, final MediaType mediaType) {
+        if (mediaType == null) {
+            throw new NullPointerException("Media type must not be null.");
+        }
+        return of(bytes, new Variant(mediaType, (String) null, null));
+    }
+
+    /**
+     * Create a serialized entity of the given variant. The bytes are copied.
+     * <p>
+     * In case the {@link Variant#getEncoding() encoding} of the variant is set, the bytes are expected to be
+     * encoded using that content coding already.
+     * </p>
+     *
+     * @param bytes   serialized entity bytes.
+     * @param variant variant describing the media type, language and content coding of the bytes.
+     * @return serialized entity.
+     * @throws NullPointerException in case the bytes or the variant is {@code null}.
+     */
+    public static SerializedEntity of(final byte[] bytes, final Variant variant) {
+        if (bytes == null || variant == null) {
+            throw new NullPointerException("Bytes and variant must not be null.");
+        }
+        return new SerializedEntity(bytes.clone(), variant);
+    }
+
+    /**
+     * Get the variant of the entity.
+     *
+     * @return entity variant.
+     */
+    public Variant getVariant() {
+        return variant;
+    }
+
+    /**
+     * Get the media type of the entity.
+     *
+     * @return entity media type.
+     */
+    public MediaType getMediaType() {
+        return variant.getMediaType();
+    }
+
+    /**
+     * Get the content coding applied to the entity bytes.
+     *
+     * @return content coding or {@code null} in case the bytes are not encoded.
+     */
+    public String getEncoding() {
+        return variant.getEncoding();
+    }
+
+    /**
+     * Get the length of the entity.
+     *
+     * @return entity length in bytes, i.e. the value of the {@code Content-Length} header.
+     */
+    public long getLength() {
+        return bytes.length;
+    }
+
+    /**
+     * Get a read-only view of the entity bytes.
+     *
+     * @return read-only buffer positioned at the first byte of the entity.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Write the entity bytes.
+     *
+     * @param out stream to write the entity to, not closed by this method.
+     * @throws IOException in case writing fails.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SerializedEntity)) {
+            return false;
+        }
+        final SerializedEntity other = (SerializedEntity) obj;
+        return variant.equals(other.variant) && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * variant.hashCode() + Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedEntity{" + variant + ", length=" + bytes.length + '}';
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.ext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Contract for a provider that supports the non-blocking conversion of a stream of byte buffers to a Java type.
+ * <p>
+ * This is the non-blocking counterpart of {@link MessageBodyReader}. Instead of reading a blocking
+ * {@link java.io.InputStream}, the reader subscribes to a {@link Flow.Publisher publisher} of entity chunks and
+ * requests further chunks only once it is ready to process them, so that no thread is held while waiting for
+ * a slow peer. A runtime that supports non-blocking entity processing (e.g. one running on an event loop) prefers
+ * an {@code AsyncMessageBodyReader} over a {@code MessageBodyReader} for the same type and media type; other
+ * runtimes ignore it.
+ * </p>
+ * <p>
+ * The published {@link ByteBuffer} chunks are read-only and valid only until the call to
+ * {@link Flow.Subscriber#onNext(Object)} that delivered them returns, which lets the runtime reuse pooled
+ * buffers. A reader that needs to retain the bytes of a chunk must copy them. The reader must either consume the
+ * entity to its end or cancel the subscription.
+ * </p>
+ * <p>
+ * An {@code AsyncMessageBodyReader} implementation may be annotated with {@link javax.ws.rs.Consumes} to restrict
+ * the media types for which it will be considered suitable. Providers implementing {@code AsyncMessageBodyReader}
+ * contract must be either programmatically registered in a JAX-RS runtime or must be annotated with
+ * {@link javax.ws.rs.ext.Provider &#64;Provider} annotation to be automatically discovered by the JAX-RS runtime
+ * during a provider scanning phase.
+ * </p>
+ *
+ * @param <T> Java type supported by the provider
+ * @see MessageBodyReader
+ * @see AsyncReaderInterceptor
+ * @since 2.2
+ */
+public interface AsyncMessageBodyReader<T> {
+
+    /**
+     * Ascertain if the reader can produce an instance of a particular type.
+     *
+     * @param type        the class of instance to be produced.
+     * @param genericType the type of instance to be produced.
+     * @param annotations an array of the annotations on the declaration of the
+     *                    artifact that will be initialized with the produced instance.
+     * @param mediaType   the media type of the HTTP entity, if one is not
+     *                    specified in the request then {@code application/octet-stream} is
+     *                    used.
+     * @return {@code true} if the type is supported, otherwise {@code false}.
+     * @see MessageBodyReader#isReadable(Class, Type, Annotation[], MediaType)
+     */
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType);
+
+    /**
+     * Read a type from the published entity chunks.
+     * <p>
+     * The returned stage is completed with the read instance once the reader has consumed enough of the entity.
+     * In case the entity is empty and no zero-length representation is defined for the supported Java type, the
+     * stage is completed exceptionally with a {@link javax.ws.rs.core.NoContentException}. Errors reading the
+     * entity are reported by completing the stage exceptionally with a {@link java.io.IOException} or a
+     * {@link javax.ws.rs.WebApplicationException}.
+     * </p>
+     *
+     * @param type        the type that is to be read from the entity.
+     * @param genericType the type of instance to be produced.
+     * @param annotations an array of the annotations on the declaration of the
+     *                    artifact that will be initialized with the produced instance.
+     * @param mediaType   the media type of the HTTP entity.
+     * @param httpHeaders the read-only HTTP headers associated with HTTP entity.
+     * @param entity      publisher of the entity chunks, supporting a single subscriber.
+     * @return stage completed with the read instance.
+     */
+    public CompletionStage<T> readFrom(Class<T> type, Type genericType,
+                                       Annotation[] annotations, MediaType mediaType,
+                                       MultivaluedMap<String, String> httpHeaders,
+                                       Flow.Publisher<ByteBuffer> entity);
+}
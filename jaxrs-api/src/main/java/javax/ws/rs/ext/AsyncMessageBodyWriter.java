@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.ext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+import javax.ws.rs.Flow;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Contract for a provider that supports the non-blocking conversion of a Java type to a stream of byte buffers.
+ * <p>
+ * This is the non-blocking counterpart of {@link MessageBodyWriter}. Instead of writing to a blocking
+ * {@link java.io.OutputStream}, the writer returns a {@link Flow.Publisher publisher} of entity chunks; the
+ * runtime requests further chunks only as fast as the connection accepts them, so that no thread is held while
+ * waiting for a slow peer. A runtime that supports non-blocking entity processing prefers an
+ * {@code AsyncMessageBodyWriter} over a {@code MessageBodyWriter} for the same type and media type; other
+ * runtimes ignore it.
+ * </p>
+ * <p>
+ * The ownership of a published {@link ByteBuffer} chunk passes to the runtime, i.e. the writer must not modify
+ * a chunk once it has been published. The runtime writes the remaining bytes of each chunk.
+ * </p>
+ * <p>
+ * An {@code AsyncMessageBodyWriter} implementation may be annotated with {@link javax.ws.rs.Produces} to restrict
+ * the media types for which it will be considered suitable. Providers implementing {@code AsyncMessageBodyWriter}
+ * contract must be either programmatically registered in a JAX-RS runtime or must be annotated with
+ * {@link javax.ws.rs.ext.Provider &#64;Provider} annotation to be automatically discovered by the JAX-RS runtime
+ * during a provider scanning phase.
+ * </p>
+ *
+ * @param <T> the type that can be written.
+ * @see MessageBodyWriter
+ * @see AsyncWriterInterceptor
+ * @since 2.2
+ */
+public interface AsyncMessageBodyWriter<T> {
+
+    /**
+     * Ascertain if the writer supports a particular type.
+     *
+     * @param type        the class of instance that is to be written.
+     * @param genericType the type of instance to be written.
+     * @param annotations an array of the annotations attached to the message entity instance.
+     * @param mediaType   the media type of the HTTP entity.
+     * @return {@code true} if the type is supported, otherwise {@code false}.
+     * @see MessageBodyWriter#isWriteable(Class, Type, Annotation[], MediaType)
+     */
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType);
+
+    /**
+     * Get the length of the serialized entity, if known up front.
+     *
+     * @param t           the instance to write.
+     * @param type        the class of instance that is to be written.
+     * @param genericType the type of instance to be written.
+     * @param annotations an array of the annotations attached to the message entity instance.
+     * @param mediaType   the media type of the HTTP entity.
+     * @return length in bytes or -1 if the length cannot be determined in advance.
+     * @see MessageBodyWriter#getSize(Object, Class, Type, Annotation[], MediaType)
+     */
+    public default long getSize(T t, Class<?> type, Type genericType, Annotation[] annotations,
+                                MediaType mediaType) {
+        return -1;
+    }
+
+    /**
+     * Write a type as a publisher of entity chunks.
+     * <p>
+     * The writer may update the HTTP headers until the first chunk is requested. Errors are reported
+     * via {@link Flow.Subscriber#onError(Throwable)} with an {@link java.io.IOException} or, before the first chunk
+     * is published, a {@link javax.ws.rs.WebApplicationException} to produce a specific HTTP error response.
+     * </p>
+     *
+     * @param t           the instance to write.
+     * @param type        the class of instance that is to be written.
+     * @param genericType the type of instance to be written.
+     * @param annotations an array of the annotations attached to the message entity instance.
+     * @param mediaType   the media type of the HTTP entity.
+     * @param httpHeaders a mutable map of the HTTP message headers.
+     * @return publisher of the entity chunks, supporting a single subscriber.
+     */
+    public Flow.Publisher<ByteBuffer> writeTo(T t, Class<?> type, Type genericType,
+                                              Annotation[] annotations, MediaType mediaType,
+                                              MultivaluedMap<String, Object> httpHeaders);
+}
@@ -157,4 +157,52 @@ public interface Providers {
      */
     <T> ContextResolver<T> getContextResolver(Class<T> contextType,
                                               MediaType mediaType);
+
+    /**
+     * Get a non-blocking message body reader that matches a set of criteria. The reader is selected using
+     * the same algorithm as {@link #getMessageBodyReader(Class, Type, Annotation[], MediaType)}.
+     * <p>
+     * The default implementation returns {@code null}, i.e. runtimes not supporting non-blocking entity
+     * processing do not find any.
+     * </p>
+     *
+     * @param <T>         type of the the object that is to be read.
+     * @param type        the class of the object that is to be read.
+     * @param genericType the type of object to be produced.
+     * @param annotations an array of the annotations on the declaration of the
+     *                    artifact that will be initialized with the produced instance.
+     * @param mediaType   the media type of the data that will be read.
+     * @return an AsyncMessageBodyReader that matches the supplied criteria or {@code null}
+     *         if none is found.
+     * @since 2.2
+     */
+    default <T> AsyncMessageBodyReader<T> getAsyncMessageBodyReader(Class<T> type,
+                                                                    Type genericType, Annotation[] annotations,
+                                                                    MediaType mediaType) {
+        return null;
+    }
+
+    /**
+     * Get a non-blocking message body writer that matches a set of criteria. The writer is selected using
+     * the same algorithm as {@link #getMessageBodyWriter(Class, Type, Annotation[], MediaType)}.
+     * <p>
+     * The default implementation returns {@code null}, i.e. runtimes not supporting non-blocking entity
+     * processing do not find any.
+     * </p>
+     *
+     * @param <T>         type of the object that is to be written.
+     * @param type        the class of the object that is to be written.
+     * @param genericType the type of object to be written.
+     * @param annotations an array of the annotations on the declaration of the
+     *                    artifact that will be written.
+     * @param mediaType   the media type of the data that will be written.
+     * @return an AsyncMessageBodyWriter that matches the supplied criteria or {@code null}
+     *         if none is found.
+     * @since 2.2
+     */
+    default <T> AsyncMessageBodyWriter<T> getAsyncMessageBodyWriter(Class<T> type,
+                                                                    Type genericType, Annotation[] annotations,
+                                                                    MediaType mediaType) {
+        return null;
+    }
 }
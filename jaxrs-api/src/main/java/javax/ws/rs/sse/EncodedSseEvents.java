@@ -0,0 +1,199 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.sse;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Decoder of events encoded in the {@code text/event-stream} format, used by the default implementation of
+ * {@link SseEventSink#sendEncoded(ByteBuffer)}.
+ *
+ * @since 2.2
+ */
+final class EncodedSseEvents {
+
+    private EncodedSseEvents() {
+    }
+
+    /**
+     * Decode complete events. The data of the decoded events is a {@code String} of type {@code text/plain}.
+     *
+     * @param events encoded events, each terminated by an empty line; the position of the buffer is not changed.
+     * @return decoded events, without events consisting of no field at all.
+     */
+    static List<OutboundSseEvent> decode(final ByteBuffer events) {
+        final String text = StandardCharsets.UTF_8.decode(events.duplicate()).toString();
+        final List<OutboundSseEvent> decoded = new ArrayList<>();
+        Event event = new Event();
+        int start = 0;
+        while (start < text.length()) {
+            int end = start;
+            while (end < text.length() && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+                end++;
+            }
+            if (end == start) {
+                if (!event.isEmpty()) {
+                    decoded.add(event);
+                    event = new Event();
+                }
+            } else {
+                event.field(text, start, end);
+            }
+            // a line ends with CRLF, LF or CR
+            if (end + 1 < text.length() && text.charAt(end) == '\r' && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+        return decoded;
+    }
+
+    /**
+     * Decoded event.
+     */
+    private static final class Event implements OutboundSseEvent {
+
+        private String id;
+        private String name;
+        private StringBuilder comment;
+        private StringBuilder data;
+        private long reconnectDelay = RECONNECT_NOT_SET;
+
+        private void field(final String line, final int start, final int end) {
+            final int colon = line.indexOf(':', start);
+            final String field;
+            int valueStart;
+            if (colon < 0 || colon >= end) {
+                field = line.substring(start, end);
+                valueStart = end;
+            } else {
+                field = line.substring(start, colon);
+                valueStart = colon + 1;
+                if (valueStart < end && line.charAt(valueStart) == ' ') {
+                    valueStart++;
+                }
+            }
+            final String value = line.substring(valueStart, end);
+            switch (field) {
+                case "":
+                    comment = append(comment, value);
+                    break;
+                case "id":
+                    id = value;
+                    break;
+                case "event":
+                    name = value;
+                    break;
+                case "data":
+                    data = append(data, value);
+                    break;
+                case "retry":
+                    try {
+                        reconnectDelay = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        // ignored as required by the event stream format
+                    }
+                    break;
+                default:
+                    // unknown fields are ignored
+            }
+        }
+
+        private static StringBuilder append(final StringBuilder lines, final String line) {
+            return lines == null ? new StringBuilder(line) : lines.append('\n').append(line);
+        }
+
+        private boolean isEmpty() {
+            return id == null && name == null && comment == null && data == null
+                    && reconnectDelay == RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getComment() {
+            return comment != null ? comment.toString() : null;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return reconnectDelay != RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return String.class;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return String.class;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.TEXT_PLAIN_TYPE;
+        }
+
+        @Override
+        public Object getData() {
+            return data != null ? data.toString() : null;
+        }
+    }
+}
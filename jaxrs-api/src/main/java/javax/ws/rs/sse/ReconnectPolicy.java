@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.sse;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy deciding how long a {@link SseEventSource} waits before reconnecting to the SSE endpoint.
+ * <p>
+ * The policy is consulted before every reconnect attempt with the number of consecutive attempts, which is reset
+ * once a connection is established, and with the delay requested by the endpoint, either through the {@code retry}
+ * field of an event or through the {@value javax.ws.rs.core.HttpHeaders#RETRY_AFTER} header of a
+ * {@code 503 Service Unavailable} response.
+ * </p>
+ * <p>
+ * When many clients lose their connections at the same time, e.g. because the server restarted, a fixed delay makes
+ * them all reconnect at the same instant. {@link #exponentialBackoff(long, long, TimeUnit)} spreads the reconnects
+ * of these clients at random over a window that grows with every failed attempt.
+ * </p>
+ *
+ * @see SseEventSource.Builder#reconnectingWith(ReconnectPolicy)
+ * @since 2.2
+ */
+@FunctionalInterface
+public interface ReconnectPolicy {
+
+    /**
+     * Get the delay before the next reconnect attempt.
+     *
+     * @param attempt     number of the attempt, starting at {@code 1} for the first attempt after a connection loss.
+     * @param serverDelay delay requested by the SSE endpoint in milliseconds, or {@link SseEvent#RECONNECT_NOT_SET}
+     *                    if none was requested.
+     * @return delay in milliseconds.
+     */
+    long nextDelay(int attempt, long serverDelay);
+
+    /**
+     * Get the typical delay of the first reconnect attempt, without any randomization.
+     * <p>
+     * Used as a fixed reconnect delay by event sources not supporting reconnect policies. The default
+     * implementation returns the delay of the first attempt; policies randomizing their delays should override it
+     * with a deterministic bound, as a single random sample could pin such an event source to a very short delay.
+     * </p>
+     *
+     * @return delay in milliseconds.
+     */
+    default long initialDelay() {
+        return nextDelay(1, SseEvent.RECONNECT_NOT_SET);
+    }
+
+    /**
+     * Get a policy waiting for a fixed delay, unless the SSE endpoint requested another one.
+     *
+     * @param delay reconnect delay.
+     * @param unit  unit of the delay.
+     * @return fixed delay policy.
+     */
+    static ReconnectPolicy fixedDelay(final long delay, final TimeUnit unit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Reconnect delay must not be negative.");
+        }
+        final long millis = unit.toMillis(delay);
+        return (attempt, serverDelay) -> serverDelay != SseEvent.RECONNECT_NOT_SET ? serverDelay : millis;
+    }
+
+    /**
+     * Get a policy waiting for a random delay, uniformly distributed between zero and a bound doubling with every
+     * attempt, from the initial delay up to the maximum delay. A delay requested by the SSE endpoint is honoured as
+     * the minimum delay. The {@link #initialDelay() initial delay} of the policy is the bound of the first attempt.
+     *
+     * @param initialDelay bound of the delay of the first attempt.
+     * @param maxDelay     maximum bound of the delay.
+     * @param unit         unit of the delays.
+     * @return exponential backoff policy with full jitter.
+     */
+    static ReconnectPolicy exponentialBackoff(final long initialDelay, final long maxDelay, final TimeUnit unit) {
+        if (initialDelay <= 0 || maxDelay < initialDelay) {
+            throw new IllegalArgumentException("Reconnect delays must be positive, the initial one not exceeding "
+                    + "the maximum one.");
+        }
+        final long initial = unit.toMillis(initialDelay);
+        final long max = unit.toMillis(maxDelay);
+        return new ReconnectPolicy() {
+            @Override
+            public long nextDelay(final int attempt, final long serverDelay) {
+                final int doublings = Math.max(0, Math.min(attempt - 1, Long.numberOfLeadingZeros(initial) - 1));
+                final long bound = Math.min(max, initial << doublings);
+                final long delay = ThreadLocalRandom.current().nextLong(bound + 1);
+                return serverDelay != SseEvent.RECONNECT_NOT_SET ? Math.max(serverDelay, delay) : delay;
+            }
+
+            @Override
+            public long initialDelay() {
+                return initial;
+            }
+        };
+    }
+}
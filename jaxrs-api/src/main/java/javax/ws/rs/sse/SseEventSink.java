@@ -39,6 +39,8 @@
  */
 package javax.ws.rs.sse;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -88,6 +90,31 @@ public interface SseEventSink extends AutoCloseable {
      */
     public CompletionStage<?> send(OutboundSseEvent event);
 
+    /**
+     * Send events already encoded in the {@code text/event-stream} format to this sink.
+     * <p>
+     * The encoded bytes are written to the client as they are. This allows the same encoded events to be sent to
+     * many sinks, or to be replayed from a log, without serializing them again. The buffer must contain complete
+     * events encoded in UTF-8, each terminated by an empty line. The buffer is not copied: its content must not be
+     * modified until the returned completion stage completes. Its position is not changed.
+     * <p>
+     * The default implementation decodes the events and sends them one after another by
+     * {@link #send(OutboundSseEvent)}, with their data as a {@code String}. Implementations are expected to override
+     * it and write the bytes directly.
+     *
+     * @param events encoded events.
+     * @return completion stage that completes when the events have been sent. If there is a problem during sending of
+     * the events, completion stage will be completed exceptionally.
+     * @since 2.2
+     */
+    default CompletionStage<?> sendEncoded(ByteBuffer events) {
+        CompletionStage<?> sent = CompletableFuture.completedFuture(null);
+        for (OutboundSseEvent event : EncodedSseEvents.decode(events)) {
+            sent = sent.thenCompose(previous -> send(event));
+        }
+        return sent;
+    }
+
     /**
      * Close the {@link SseEventSink} instance and release all associated resources.
      * <p>
@@ -169,6 +169,28 @@ public interface SseEventSource extends AutoCloseable {
          */
         public abstract Builder reconnectingEvery(long delay, TimeUnit unit);
 
+        /**
+         * Set the policy deciding the delay before every reconnect attempt of the event source, e.g. an
+         * {@link ReconnectPolicy#exponentialBackoff(long, long, TimeUnit) exponential backoff with jitter} spreading
+         * the reconnects of many clients losing their connections at the same time.
+         * <p>
+         * The policy is given the delay requested by the SSE endpoint using either a {@code retry} SSE event field
+         * or <tt>HTTP 503 + {@value javax.ws.rs.core.HttpHeaders#RETRY_AFTER}</tt> mechanism.
+         * <p>
+         * The default implementation, for implementations not supporting reconnect policies, uses the
+         * {@link ReconnectPolicy#initialDelay() initial delay} of the policy as a fixed
+         * {@link #reconnectingEvery(long, TimeUnit) reconnect delay}; an initial delay that is not positive leaves
+         * the reconnect delay unchanged.
+         *
+         * @param policy reconnect policy.
+         * @return updated event source builder instance.
+         * @since 2.2
+         */
+        public Builder reconnectingWith(final ReconnectPolicy policy) {
+            final long delay = policy.initialDelay();
+            return delay > 0 ? reconnectingEvery(delay, TimeUnit.MILLISECONDS) : this;
+        }
+
         /**
          * Build new SSE event source pointing at a SSE streaming {@link WebTarget web target}.
          * <p>
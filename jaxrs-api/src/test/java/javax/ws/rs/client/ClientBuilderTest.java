@@ -0,0 +1,100 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.client;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * {@link javax.ws.rs.client.ClientBuilder} unit tests.
+ */
+public class ClientBuilderTest {
+
+    /**
+     * HTTP/2 configuration methods are expected to be shortcuts for the corresponding properties.
+     */
+    @Test
+    public void testHttp2ConfigurationProperties() {
+        ClientBuilderStub builder = new ClientBuilderStub();
+
+        builder.httpVersion(HttpVersion.H2C)
+               .http2MaxConcurrentStreams(100)
+               .http2WindowSize(65535, 1048576);
+
+        assertThat(builder.getProperties().get(ClientBuilder.HTTP_VERSION_PROPERTY),
+                equalTo((Object) HttpVersion.H2C));
+        assertThat(builder.getProperties().get(ClientBuilder.HTTP2_MAX_CONCURRENT_STREAMS_PROPERTY),
+                equalTo((Object) 100));
+        assertThat(builder.getProperties().get(ClientBuilder.HTTP2_STREAM_WINDOW_SIZE_PROPERTY),
+                equalTo((Object) 65535));
+        assertThat(builder.getProperties().get(ClientBuilder.HTTP2_CONNECTION_WINDOW_SIZE_PROPERTY),
+                equalTo((Object) 1048576));
+    }
+
+    /**
+     * Virtual thread mode is expected to be a shortcut for the corresponding property.
+     */
+    @Test
+    public void testVirtualThreadsProperty() {
+        ClientBuilderStub builder = new ClientBuilderStub();
+
+        builder.virtualThreads(true);
+        assertThat(builder.getProperties().get(ClientBuilder.VIRTUAL_THREADS_PROPERTY), equalTo((Object) true));
+
+        builder.virtualThreads(false);
+        assertThat(builder.getProperties().get(ClientBuilder.VIRTUAL_THREADS_PROPERTY), equalTo((Object) false));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullHttpVersion() {
+        new ClientBuilderStub().httpVersion(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveMaxConcurrentStreams() {
+        new ClientBuilderStub().http2MaxConcurrentStreams(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveWindowSize() {
+        new ClientBuilderStub().http2WindowSize(65535, -1);
+    }
+}
@@ -0,0 +1,535 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.client;
+
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link javax.ws.rs.client.FanOut} unit tests.
+ */
+public class FanOutTest {
+
+    private ScheduledExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(8);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBoundedParallelism() throws Exception {
+        final List<StubInvocation> invocations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            invocations.add(new StubInvocation(20, null));
+        }
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .parallelism(3)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.size(), equalTo(10));
+        assertThat(result.getSuccesses().size(), equalTo(10));
+        assertThat(result.getFailures().isEmpty(), equalTo(true));
+        assertTrue("parallelism exceeded: " + maxInFlight.get(), maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testResponseClosed() throws Exception {
+        final StubResponse response = new StubResponse();
+        final StubResponse failing = new StubResponse();
+        final List<StubInvocation> invocations = Arrays.asList(
+                new StubInvocation(0, null, response), new StubInvocation(0, null, failing));
+
+        final FanOut.Result<Integer> result = Invocation.fanOut(invocations)
+                .submit(r -> {
+                    if (r == failing) {
+                        throw new IllegalStateException("unreadable");
+                    }
+                    return r.getStatus();
+                })
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.get(0), equalTo(200));
+        assertThat(result.getFailure(1), instanceOf(IllegalStateException.class));
+        assertThat(response.closed, equalTo(true));
+        assertThat(failing.closed, equalTo(true));
+    }
+
+    @Test
+    public void testCollectFailures() throws Exception {
+        final ProcessingException failure = new ProcessingException("boom");
+        final List<StubInvocation> invocations = Arrays.asList(
+                new StubInvocation(10, null), new StubInvocation(10, failure), new StubInvocation(10, null));
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.isSuccess(0), equalTo(true));
+        assertThat(result.isSuccess(1), equalTo(false));
+        assertThat(result.get(1), nullValue());
+        assertThat(result.getFailure(1), equalTo((Throwable) failure));
+        assertThat(result.getFailures().keySet(), equalTo(Collections.singleton(1)));
+        assertThat(result.getSuccesses(), equalTo(Arrays.asList("ok", "ok")));
+    }
+
+    @Test
+    public void testHandlerFailure() throws Exception {
+        final FanOut.Result<String> result = Invocation.fanOut(Collections.singletonList(new StubInvocation(0, null)))
+                .<String>submit(response -> {
+                    throw new IllegalStateException("unreadable");
+                })
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getFailure(0), instanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    public void testHandlerError() throws Exception {
+        final StubResponse response = new StubResponse();
+        final FanOut.Result<String> result = Invocation.fanOut(
+                Arrays.asList(new StubInvocation(0, null, response), new StubInvocation(0, null)))
+                .<String>submit(r -> {
+                    if (r == response) {
+                        throw new AssertionError("unexpected");
+                    }
+                    return "ok";
+                })
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getFailure(0), instanceOf(AssertionError.class));
+        assertThat(result.get(1), equalTo("ok"));
+        assertThat(response.closed, equalTo(true));
+    }
+
+    @Test
+    public void testSynchronousCompletion() throws Exception {
+        final ProcessingException failure = new ProcessingException("rejected");
+        final List<StubInvocation> invocations = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            invocations.add(new StubInvocation(-1, i % 2 == 0 ? failure : null));
+        }
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .parallelism(4)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.size(), equalTo(100000));
+        assertThat(result.getSuccesses().size(), equalTo(50000));
+        assertThat(result.getFailure(0), equalTo((Throwable) failure));
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        final ProcessingException failure = new ProcessingException("boom");
+        final StubInvocation slow = new StubInvocation(10000, null);
+        final List<StubInvocation> invocations = Arrays.asList(new StubInvocation(10, failure), slow);
+
+        final CompletableFuture<FanOut.Result<String>> stage = Invocation.fanOut(invocations)
+                .failurePolicy(FanOut.FailurePolicy.FAIL_FAST)
+                .submit(response -> "ok")
+                .toCompletableFuture();
+
+        try {
+            stage.get(5, TimeUnit.SECONDS);
+            fail("Fan-out expected to fail.");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), equalTo((Throwable) failure));
+        }
+        assertThat(slow.future.isCancelled(), equalTo(true));
+    }
+
+    @Test
+    public void testFirstNOfM() throws Exception {
+        final StubInvocation slow1 = new StubInvocation(10000, null);
+        final StubInvocation slow2 = new StubInvocation(10000, null);
+        final List<StubInvocation> invocations = Arrays.asList(
+                slow1, new StubInvocation(10, null), slow2, new StubInvocation(20, null));
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .completeAfter(2)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getSuccesses().size(), equalTo(2));
+        assertThat(result.isSuccess(1), equalTo(true));
+        assertThat(result.isSuccess(3), equalTo(true));
+        assertThat(result.getFailure(0), instanceOf(CancellationException.class));
+        assertThat(result.getFailure(2), instanceOf(CancellationException.class));
+        assertThat(slow1.future.isCancelled(), equalTo(true));
+        assertThat(slow2.future.isCancelled(), equalTo(true));
+    }
+
+    @Test
+    public void testCallTimeout() throws Exception {
+        final StubInvocation slow = new StubInvocation(10000, null);
+        final List<StubInvocation> invocations = Arrays.asList(new StubInvocation(10, null), slow);
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .callTimeout(100, TimeUnit.MILLISECONDS)
+                .scheduler(executor)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.isSuccess(0), equalTo(true));
+        assertThat(result.getFailure(1), instanceOf(TimeoutException.class));
+        assertThat(slow.future.isCancelled(), equalTo(true));
+    }
+
+    @Test
+    public void testOverallTimeout() throws Exception {
+        final List<StubInvocation> invocations = Arrays.asList(
+                new StubInvocation(10, null), new StubInvocation(10000, null), new StubInvocation(10, null));
+
+        final FanOut.Result<String> result = Invocation.fanOut(invocations)
+                .parallelism(2)
+                .timeout(200, TimeUnit.MILLISECONDS)
+                .scheduler(executor)
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.isSuccess(0), equalTo(true));
+        assertThat(result.getFailure(1), instanceOf(TimeoutException.class));
+        assertThat(result.isSuccess(2), equalTo(true));
+    }
+
+    @Test
+    public void testOverallTimeoutFailFast() throws Exception {
+        final CompletableFuture<FanOut.Result<String>> stage =
+                Invocation.fanOut(Collections.singletonList(new StubInvocation(10000, null)))
+                          .failurePolicy(FanOut.FailurePolicy.FAIL_FAST)
+                          .timeout(100, TimeUnit.MILLISECONDS)
+                          .scheduler(executor)
+                          .submit(response -> "ok")
+                          .toCompletableFuture();
+        try {
+            stage.get(5, TimeUnit.SECONDS);
+            fail("Fan-out expected to time out.");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(TimeoutException.class));
+        }
+    }
+
+    @Test
+    public void testEmptyFanOut() throws Exception {
+        final FanOut.Result<String> result = Invocation.fanOut(Collections.<Invocation>emptyList())
+                .submit(response -> "ok")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(result.size(), equalTo(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeadlineRequiresScheduler() {
+        Invocation.fanOut(Collections.singletonList(new StubInvocation(0, null)))
+                  .timeout(1, TimeUnit.SECONDS)
+                  .submit(response -> "ok");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyRequiredSuccesses() {
+        Invocation.fanOut(Collections.singletonList(new StubInvocation(0, null))).completeAfter(2);
+    }
+
+    /**
+     * Invocation completing its callback after a delay on the test executor.
+     */
+    private class StubInvocation implements Invocation {
+
+        private final long delay;
+        private final Throwable failure;
+        private final Response response;
+        private volatile ScheduledFuture<?> future;
+
+        StubInvocation(long delay, Throwable failure) {
+            this(delay, failure, null);
+        }
+
+        StubInvocation(long delay, Throwable failure, Response response) {
+            this.delay = delay;
+            this.failure = failure;
+            this.response = response;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Future<T> submit(InvocationCallback<T> callback) {
+            if (delay < 0) {
+                // completes on the calling thread; a failure is thrown by submit itself
+                if (failure != null) {
+                    throw (RuntimeException) failure;
+                }
+                ((InvocationCallback<Response>) callback).completed(response);
+                return CompletableFuture.completedFuture(null);
+            }
+            final int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            future = executor.schedule(() -> {
+                inFlight.decrementAndGet();
+                if (failure == null) {
+                    ((InvocationCallback<Response>) callback).completed(response);
+                } else {
+                    callback.failed(failure);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return (Future<T>) future;
+        }
+
+        @Override
+        public Invocation property(String name, Object value) {
+            return this;
+        }
+
+        @Override
+        public Response invoke() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T invoke(Class<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T invoke(GenericType<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Response> submit() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> Future<T> submit(Class<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> Future<T> submit(GenericType<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Response with status {@code 200 OK} and no entity, recording whether it has been closed.
+     */
+    private static class StubResponse extends Response {
+
+        private volatile boolean closed;
+
+        @Override
+        public int getStatus() {
+            return 200;
+        }
+
+        @Override
+        public StatusType getStatusInfo() {
+            return Status.OK;
+        }
+
+        @Override
+        public Object getEntity() {
+            return null;
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> entityType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> entityType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> entityType, Annotation[] annotations) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> entityType, Annotation[] annotations) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasEntity() {
+            return false;
+        }
+
+        @Override
+        public boolean bufferEntity() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return null;
+        }
+
+        @Override
+        public Locale getLanguage() {
+            return null;
+        }
+
+        @Override
+        public int getLength() {
+            return -1;
+        }
+
+        @Override
+        public Set<String> getAllowedMethods() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Map<String, NewCookie> getCookies() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public EntityTag getEntityTag() {
+            return null;
+        }
+
+        @Override
+        public Date getDate() {
+            return null;
+        }
+
+        @Override
+        public Date getLastModified() {
+            return null;
+        }
+
+        @Override
+        public URI getLocation() {
+            return null;
+        }
+
+        @Override
+        public Set<Link> getLinks() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public boolean hasLink(String relation) {
+            return false;
+        }
+
+        @Override
+        public Link getLink(String relation) {
+            return null;
+        }
+
+        @Override
+        public Link.Builder getLinkBuilder(String relation) {
+            return null;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getMetadata() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getStringHeaders() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getHeaderString(String name) {
+            return null;
+        }
+    }
+}
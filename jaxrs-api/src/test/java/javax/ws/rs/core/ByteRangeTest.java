@@ -0,0 +1,111 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * {@link javax.ws.rs.core.ByteRange} unit tests.
+ */
+public class ByteRangeTest {
+
+    @Test
+    public void testParse() {
+        assertThat(ByteRange.parse("bytes=0-499", 10000), equalTo(ranges(0, 499)));
+        assertThat(ByteRange.parse("bytes=9500-", 10000), equalTo(ranges(9500, 9999)));
+        assertThat(ByteRange.parse("bytes=-500", 10000), equalTo(ranges(9500, 9999)));
+        assertThat(ByteRange.parse("bytes=500-20000", 10000), equalTo(ranges(500, 9999)));
+        assertThat(ByteRange.parse("Bytes = 0-0, -1", 10000), equalTo(ranges(0, 0, 9999, 9999)));
+        assertThat(ByteRange.parse("bytes=-20000", 10000), equalTo(ranges(0, 9999)));
+    }
+
+    @Test
+    public void testUnsatisfiable() {
+        assertThat(ByteRange.parse("bytes=10000-", 10000), equalTo(Collections.<ByteRange>emptyList()));
+        assertThat(ByteRange.parse("bytes=-0", 10000), equalTo(Collections.<ByteRange>emptyList()));
+        assertThat(ByteRange.parse("bytes=0-10", 0), equalTo(Collections.<ByteRange>emptyList()));
+        assertThat(ByteRange.parse("bytes=20000-30000, 0-1", 10000), equalTo(ranges(0, 1)));
+    }
+
+    @Test
+    public void testInvalidHeadersAreIgnored() {
+        assertThat(ByteRange.parse(null, 10), nullValue());
+        assertThat(ByteRange.parse("items=0-1", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=5-1", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=-", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=a-b", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=0-1,2", 10), nullValue());
+        assertThat(ByteRange.parse("bytes=99999999999999999999-", 10), nullValue());
+    }
+
+    @Test
+    public void testCoalesce() {
+        assertThat(ByteRange.coalesce(ranges(500, 600, 0, 99, 100, 199, 550, 700)),
+                equalTo(ranges(0, 199, 500, 700)));
+    }
+
+    @Test
+    public void testContentRange() {
+        assertThat(new ByteRange(0, 499).toContentRange(1234), equalTo("bytes 0-499/1234"));
+        assertThat(ByteRange.unsatisfiedContentRange(1234), equalTo("bytes */1234"));
+        assertThat(new ByteRange(10, 19).getLength(), equalTo(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        new ByteRange(5, 4);
+    }
+
+    private static List<ByteRange> ranges(long... positions) {
+        ByteRange[] ranges = new ByteRange[positions.length / 2];
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i] = new ByteRange(positions[2 * i], positions[2 * i + 1]);
+        }
+        return Arrays.asList(ranges);
+    }
+}
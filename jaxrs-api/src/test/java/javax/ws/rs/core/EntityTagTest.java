@@ -0,0 +1,98 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import javax.ws.rs.ext.RuntimeDelegate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link javax.ws.rs.core.EntityTag} unit tests.
+ */
+public class EntityTagTest {
+
+    @Before
+    public void setUp() throws Exception {
+        RuntimeDelegate.setInstance(new RuntimeDelegateStub());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RuntimeDelegate.setInstance(null);
+    }
+
+    @Test
+    public void testListedInWeakComparison() {
+        EntityTag tag = new EntityTag("v2");
+        assertTrue(tag.isListedIn("\"v2\"", true));
+        assertTrue(tag.isListedIn("\"v1\", W/\"v2\"", true));
+        assertTrue(tag.isListedIn("\"v1\",\"v3\" ,\"v2\"", true));
+        assertTrue(new EntityTag("v2", true).isListedIn("\"v2\"", true));
+        assertFalse(tag.isListedIn("\"v1\", \"v22\", \"v\"", true));
+        assertFalse(tag.isListedIn("", true));
+        assertFalse(tag.isListedIn(null, true));
+    }
+
+    @Test
+    public void testListedInStrongComparison() {
+        EntityTag tag = new EntityTag("v2");
+        assertTrue(tag.isListedIn("\"v1\", \"v2\"", false));
+        assertFalse(tag.isListedIn("W/\"v2\"", false));
+        assertFalse(new EntityTag("v2", true).isListedIn("\"v2\"", false));
+    }
+
+    @Test
+    public void testListedInAny() {
+        assertTrue(new EntityTag("v2").isListedIn("*", false));
+        assertTrue(new EntityTag("v2", true).isListedIn(" *", true));
+    }
+
+    @Test
+    public void testListedInTolerant() {
+        EntityTag tag = new EntityTag("v2");
+        assertTrue(tag.isListedIn("v1, v2", true));
+        assertTrue(tag.isListedIn("\"v1\" garbage, \"v2\"", true));
+        assertFalse(tag.isListedIn("\"a,v2\"", true));
+    }
+}
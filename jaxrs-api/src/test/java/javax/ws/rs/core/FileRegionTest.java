@@ -0,0 +1,153 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link javax.ws.rs.core.FileRegion} unit tests.
+ */
+public class FileRegionTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("file-region", ".txt");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testWholeFile() throws IOException {
+        FileRegion region = FileRegion.of(file);
+
+        assertThat(region.getPosition(), equalTo(0L));
+        assertThat(region.getCount(), equalTo(10L));
+        assertThat(transfer(region), equalTo("0123456789"));
+        // path based regions may be transferred repeatedly
+        assertThat(transfer(region), equalTo("0123456789"));
+    }
+
+    @Test
+    public void testPathRegion() throws IOException {
+        assertThat(transfer(FileRegion.of(file, 2, 5)), equalTo("23456"));
+    }
+
+    @Test
+    public void testChannelRegionIsClosedAfterTransfer() throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(4);
+        FileRegion region = FileRegion.of(channel);
+
+        assertThat(region.getCount(), equalTo(6L));
+        assertThat(transfer(region), equalTo("456789"));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testRegionBeyondEndOfFile() throws IOException {
+        transfer(FileRegion.of(file, 8, 5));
+    }
+
+    @Test
+    public void testTargetAcceptingNoBytes() throws IOException {
+        WritableByteChannel full = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                return 0;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            FileRegion.of(file).transferTo(full);
+            fail("Transfer to a target accepting no bytes must fail.");
+        } catch (IOException e) {
+            assertFalse(e instanceof EOFException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        FileRegion.of(file, 0, -1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullPath() {
+        FileRegion.of((Path) null, 0, 1);
+    }
+
+    private static String transfer(FileRegion region) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long transferred = region.transferTo(Channels.newChannel(out));
+        assertThat(transferred, equalTo((long) out.size()));
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.client.Entity;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link javax.ws.rs.core.SerializedEntity} unit tests.
+ */
+public class SerializedEntityTest {
+
+    @Test
+    public void testBytesAreCopied() throws IOException {
+        byte[] bytes = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        SerializedEntity entity = SerializedEntity.of(bytes, MediaType.APPLICATION_JSON_TYPE);
+        bytes[0] = 'x';
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), equalTo("{\"a\":1}"));
+        assertThat(entity.getLength(), equalTo(7L));
+    }
+
+    @Test
+    public void testByteBufferIsReadOnlyView() {
+        SerializedEntity entity = SerializedEntity.of(new byte[] {1, 2, 3}, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        ByteBuffer first = entity.asByteBuffer();
+        first.get();
+
+        assertTrue(first.isReadOnly());
+        assertThat(entity.asByteBuffer().remaining(), equalTo(3));
+    }
+
+    @Test
+    public void testVariant() {
+        Variant variant = new Variant(MediaType.TEXT_PLAIN_TYPE, (String) null, "gzip");
+        SerializedEntity entity = SerializedEntity.of(new byte[0], variant);
+        Entity<SerializedEntity> requestEntity = Entity.serialized(entity);
+
+        assertThat(entity.getEncoding(), equalTo("gzip"));
+        assertThat(entity.getMediaType(), equalTo(MediaType.TEXT_PLAIN_TYPE));
+        assertThat(requestEntity.getEntity(), sameInstance(entity));
+        assertThat(requestEntity.getVariant(), equalTo(variant));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullMediaType() {
+        SerializedEntity.of(new byte[0], (MediaType) null);
+    }
+}
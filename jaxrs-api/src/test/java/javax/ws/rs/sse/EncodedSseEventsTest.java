@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.sse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link javax.ws.rs.sse.EncodedSseEvents} unit tests.
+ */
+public class EncodedSseEventsTest {
+
+    @Test
+    public void testDecode() {
+        List<OutboundSseEvent> events = EncodedSseEvents.decode(encoded(
+                ": keep-alive\n\n"
+                + "id: 7\nevent: item\ndata: first\ndata:second\n\n"
+                + "retry: 3000\r\ndata: {\"size\":2}\r\n\r\n"
+                + "data: incomplete\n"));
+
+        assertThat(events.size(), equalTo(3));
+        assertThat(events.get(0).getComment(), equalTo("keep-alive"));
+        assertThat(events.get(0).getData(), nullValue());
+
+        assertThat(events.get(1).getId(), equalTo("7"));
+        assertThat(events.get(1).getName(), equalTo("item"));
+        assertThat(events.get(1).getData(), equalTo("first\nsecond"));
+        assertFalse(events.get(1).isReconnectDelaySet());
+
+        assertTrue(events.get(2).isReconnectDelaySet());
+        assertThat(events.get(2).getReconnectDelay(), equalTo(3000L));
+        assertThat(events.get(2).getData(), equalTo("{\"size\":2}"));
+        assertThat(events.get(2).getType(), equalTo((Object) String.class));
+    }
+
+    @Test
+    public void testDecodeKeepsPosition() {
+        ByteBuffer buffer = encoded("data: x\n\n");
+        EncodedSseEvents.decode(buffer);
+        assertThat(buffer.position(), equalTo(0));
+    }
+
+    @Test
+    public void testDefaultSendEncoded() {
+        List<OutboundSseEvent> sent = new ArrayList<>();
+        SseEventSink sink = new SseEventSink() {
+            @Override
+            public boolean isClosed() {
+                return false;
+            }
+
+            @Override
+            public CompletionStage<?> send(OutboundSseEvent event) {
+                sent.add(event);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        sink.sendEncoded(encoded("id: 1\ndata: a\n\nid: 2\ndata: b\n\n")).toCompletableFuture().join();
+        assertThat(sent.size(), equalTo(2));
+        assertThat(sent.get(1).getId(), equalTo("2"));
+        assertThat(sent.get(1).getData(), equalTo("b"));
+    }
+
+    private static ByteBuffer encoded(String events) {
+        return ByteBuffer.wrap(events.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package javax.ws.rs.sse;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.WebTarget;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link javax.ws.rs.sse.ReconnectPolicy} unit tests.
+ */
+public class ReconnectPolicyTest {
+
+    @Test
+    public void testFixedDelay() {
+        ReconnectPolicy policy = ReconnectPolicy.fixedDelay(2, TimeUnit.SECONDS);
+
+        assertThat(policy.nextDelay(1, SseEvent.RECONNECT_NOT_SET), equalTo(2000L));
+        assertThat(policy.nextDelay(10, SseEvent.RECONNECT_NOT_SET), equalTo(2000L));
+        assertThat(policy.nextDelay(1, 500), equalTo(500L));
+    }
+
+    @Test
+    public void testExponentialBackoffBounds() {
+        ReconnectPolicy policy = ReconnectPolicy.exponentialBackoff(100, 1000, TimeUnit.MILLISECONDS);
+
+        long maxFirst = 0;
+        long maxFifth = 0;
+        long maxLast = 0;
+        for (int i = 0; i < 10000; i++) {
+            maxFirst = Math.max(maxFirst, policy.nextDelay(1, SseEvent.RECONNECT_NOT_SET));
+            maxFifth = Math.max(maxFifth, policy.nextDelay(5, SseEvent.RECONNECT_NOT_SET));
+            maxLast = Math.max(maxLast, policy.nextDelay(Integer.MAX_VALUE, SseEvent.RECONNECT_NOT_SET));
+        }
+        assertTrue(maxFirst <= 100 && maxFirst > 50);
+        assertTrue(maxFifth <= 1000 && maxFifth > 800);
+        assertTrue(maxLast <= 1000 && maxLast > 800);
+    }
+
+    @Test
+    public void testExponentialBackoffHonoursServerDelay() {
+        ReconnectPolicy policy = ReconnectPolicy.exponentialBackoff(100, 1000, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelay(3, 5000);
+            assertThat(delay, equalTo(5000L));
+            assertTrue(policy.nextDelay(4, 300) >= 300);
+        }
+    }
+
+    @Test
+    public void testInitialDelay() {
+        assertThat(ReconnectPolicy.fixedDelay(2, TimeUnit.SECONDS).initialDelay(), equalTo(2000L));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(ReconnectPolicy.exponentialBackoff(1, 30, TimeUnit.SECONDS).initialDelay(), equalTo(1000L));
+        }
+    }
+
+    @Test
+    public void testReconnectingWithFallback() {
+        final long[] reconnectDelay = {-1};
+        final SseEventSource.Builder builder = new SseEventSource.Builder() {
+            @Override
+            protected SseEventSource.Builder target(WebTarget endpoint) {
+                return this;
+            }
+
+            @Override
+            public SseEventSource.Builder reconnectingEvery(long delay, TimeUnit unit) {
+                reconnectDelay[0] = unit.toMillis(delay);
+                return this;
+            }
+
+            @Override
+            public SseEventSource build() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        builder.reconnectingWith(ReconnectPolicy.exponentialBackoff(500, 30000, TimeUnit.MILLISECONDS));
+        assertThat(reconnectDelay[0], equalTo(500L));
+
+        reconnectDelay[0] = -1;
+        builder.reconnectingWith((attempt, serverDelay) -> 0);
+        assertThat(reconnectDelay[0], equalTo(-1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExponentialBackoffRejectsInvertedBounds() {
+        ReconnectPolicy.exponentialBackoff(2, 1, TimeUnit.SECONDS);
+    }
+}